@@ -0,0 +1,184 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.FleetCapacityReservation;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Synthetic inputs shared by the benchmarks. Every fixture is built once per trial so that
+ * the measured methods only pay for the translation itself.
+ */
+final class BenchmarkFixtures {
+  static final String CR_FLEET_ID = "crf-0123456789abcdef0";
+  static final String CR_FLEET_TAG_RESOURCE_TYPE = "capacity-reservation-fleet";
+
+  private static final String[] INSTANCE_TYPES = {"m5.large", "m5.xlarge", "c5.large", "c5.xlarge", "r5.large"};
+  private static final String[] AVAILABILITY_ZONES = {"us-east-1a", "us-east-1b", "us-east-1c", "us-east-1d",
+          "us-east-1e", "us-east-1f", "us-west-2a", "us-west-2b", "us-west-2c", "us-west-2d"};
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Builds a model with {@code specCount} distinct instance type specifications and {@code tagCount}
+   * user tags on the fleet, plus one tag specification for another resource type.
+   */
+  static ResourceModel resourceModel(final int specCount, final int tagCount) {
+    final Set<InstanceTypeSpecification> specifications = new HashSet<>();
+    for (int i = 0; i < specCount; i++) {
+      specifications.add(InstanceTypeSpecification.builder()
+              .instanceType(INSTANCE_TYPES[i % INSTANCE_TYPES.length])
+              .availabilityZone(AVAILABILITY_ZONES[i / INSTANCE_TYPES.length % AVAILABILITY_ZONES.length])
+              .instancePlatform("Linux/UNIX")
+              .ebsOptimized(true)
+              .priority(i)
+              .weight(1.0 + i)
+              .build());
+    }
+
+    final List<TagSpecification> tagSpecifications = new ArrayList<>();
+    tagSpecifications.add(TagSpecification.builder()
+            .resourceType(CR_FLEET_TAG_RESOURCE_TYPE)
+            .tags(tags("user", tagCount))
+            .build());
+    tagSpecifications.add(TagSpecification.builder()
+            .resourceType("capacity-reservation")
+            .tags(tags("reservation", tagCount))
+            .build());
+
+    return ResourceModel.builder()
+            .capacityReservationFleetId(CR_FLEET_ID)
+            .allocationStrategy("prioritized")
+            .instanceMatchCriteria("open")
+            .tenancy("default")
+            .totalTargetCapacity(specCount * 10)
+            .endDate(Instant.parse("2030-01-01T00:00:00Z").toString())
+            .instanceTypeSpecifications(specifications)
+            .tagSpecifications(tagSpecifications)
+            .build();
+  }
+
+  static ResourceHandlerRequest<ResourceModel> handlerRequest(final ResourceModel model, final int tagCount) {
+    final Map<String, String> systemTags = new LinkedHashMap<>();
+    systemTags.put("aws:cloudformation:logical-id", "CapacityReservationFleet");
+    systemTags.put("aws:cloudformation:stack-id",
+            "arn:aws:cloudformation:us-east-1:123456789012:stack/benchmark/00000000-0000-0000-0000-000000000000");
+    systemTags.put("aws:cloudformation:stack-name", "benchmark");
+
+    return ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .desiredResourceTags(stackTags(tagCount))
+            .systemTags(systemTags)
+            .region("us-east-1")
+            .awsAccountId("123456789012")
+            .build();
+  }
+
+  /**
+   * Mirrors the model into the Describe response EC2 would return for it, with the fleet tags on the fleet.
+   */
+  static DescribeCapacityReservationFleetsResponse describeResponse(final ResourceModel model, final int tagCount) {
+    return DescribeCapacityReservationFleetsResponse.builder()
+            .capacityReservationFleets(Collections.singletonList(fleet(model, tagCount, CR_FLEET_ID, CapacityReservationFleetState.ACTIVE)))
+            .build();
+  }
+
+  /**
+   * A List page of {@code fleetCount} fleets cycling through every fleet state.
+   */
+  static DescribeCapacityReservationFleetsResponse listResponse(final ResourceModel model, final int tagCount, final int fleetCount) {
+    final CapacityReservationFleetState[] states = {
+            CapacityReservationFleetState.ACTIVE,
+            CapacityReservationFleetState.PARTIALLY_FULFILLED,
+            CapacityReservationFleetState.FAILED,
+            CapacityReservationFleetState.CANCELLED,
+            CapacityReservationFleetState.EXPIRED,
+            CapacityReservationFleetState.SUBMITTED};
+    final List<CapacityReservationFleet> fleets = new ArrayList<>(fleetCount);
+    for (int i = 0; i < fleetCount; i++) {
+      fleets.add(fleet(model, tagCount, String.format("crf-%017x", i), states[i % states.length]));
+    }
+    return DescribeCapacityReservationFleetsResponse.builder()
+            .capacityReservationFleets(fleets)
+            .nextToken("next-page")
+            .build();
+  }
+
+  static AwsServiceException serviceException(final String errorCode, final int statusCode) {
+    return AwsServiceException.builder()
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).errorMessage(errorCode).build())
+            .message(errorCode)
+            .statusCode(statusCode)
+            .build();
+  }
+
+  private static CapacityReservationFleet fleet(final ResourceModel model,
+                                                final int tagCount,
+                                                final String crFleetId,
+                                                final CapacityReservationFleetState state) {
+    final List<FleetCapacityReservation> reservations = new ArrayList<>(model.getInstanceTypeSpecifications().size());
+    for (final InstanceTypeSpecification specification : model.getInstanceTypeSpecifications()) {
+      reservations.add(FleetCapacityReservation.builder()
+              .instanceType(specification.getInstanceType())
+              .instancePlatform(specification.getInstancePlatform())
+              .availabilityZone(specification.getAvailabilityZone())
+              .ebsOptimized(specification.getEbsOptimized())
+              .priority(specification.getPriority())
+              .weight(specification.getWeight())
+              .build());
+    }
+
+    final List<software.amazon.awssdk.services.ec2.model.Tag> tags = new ArrayList<>(tagCount);
+    for (final Tag tag : tags("user", tagCount)) {
+      tags.add(software.amazon.awssdk.services.ec2.model.Tag.builder().key(tag.getKey()).value(tag.getValue()).build());
+    }
+
+    return CapacityReservationFleet.builder()
+            .capacityReservationFleetId(crFleetId)
+            .allocationStrategy(model.getAllocationStrategy())
+            .instanceMatchCriteria(model.getInstanceMatchCriteria())
+            .tenancy(model.getTenancy())
+            .totalTargetCapacity(model.getTotalTargetCapacity())
+            .totalFulfilledCapacity((double) model.getTotalTargetCapacity())
+            .endDate(Instant.parse(model.getEndDate()))
+            .createTime(Instant.now().minus(1, ChronoUnit.HOURS))
+            .instanceTypeSpecifications(reservations)
+            .tags(tags)
+            .state(state)
+            .build();
+  }
+
+  private static List<Tag> tags(final String prefix, final int count) {
+    final List<Tag> tags = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      tags.add(Tag.builder().key(prefix + "-key-" + i).value(prefix + "-value-" + i).build());
+    }
+    return tags;
+  }
+
+  /**
+   * Stack-level tags with the keys of the user tags, so that the merged fleet tags stay within the 50 tags EC2
+   * allows and every stack tag goes through the precedence check of {@link TagMerger}.
+   */
+  private static Map<String, String> stackTags(final int count) {
+    final Map<String, String> tags = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      tags.put("user-key-" + i, "stack-value-" + i);
+    }
+    return tags;
+  }
+}
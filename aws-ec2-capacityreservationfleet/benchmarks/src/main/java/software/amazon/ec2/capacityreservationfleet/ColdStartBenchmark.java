@@ -0,0 +1,66 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Latency of the first handler invocation in a fresh JVM, with and without {@link HandlerPriming}.
+ *
+ * Every fork is a new JVM that loads the handler in the setup, which is where Lambda runs the static initializer
+ * and therefore the priming, and then measures a single Read invocation against the offline EC2 client. The
+ * difference between the two priming values is the latency priming takes off the first request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ColdStartBenchmark {
+
+  @Param({"false", "true"})
+  public String priming;
+
+  private AmazonWebServicesClientProxy proxy;
+  private ResourceHandlerRequest<ResourceModel> request;
+  private LoggerProxy logger;
+  private ReadHandler handler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    System.setProperty("crfleet.priming", priming);
+    logger = new LoggerProxy();
+    proxy = new AmazonWebServicesClientProxy(logger, new Credentials("accessKey", "secretKey", "token"),
+            () -> Duration.ofMinutes(1).toMillis());
+    request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(ResourceModel.builder().capacityReservationFleetId("crf-00000000000000000").build())
+            .region("us-east-1")
+            .build();
+    handler = new ReadHandler();
+  }
+
+  @Benchmark
+  public ProgressEvent<ResourceModel, CallbackContext> firstInvocation() {
+    final Ec2Client client = HandlerPriming.offlineClient();
+    return handler.handleRequest(proxy, request, new CallbackContext(), proxy.newProxy(() -> client), logger);
+  }
+}
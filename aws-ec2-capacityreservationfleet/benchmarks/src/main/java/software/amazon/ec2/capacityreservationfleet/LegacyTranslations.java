@@ -0,0 +1,131 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections.CollectionUtils;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Earlier implementations of {@link Translator} methods, kept so that a benchmark run compares the current
+ * implementation with the one it replaced on the same JVM and fixtures.
+ */
+final class LegacyTranslations {
+  private static final String CR_FLEET_TAG_RESOURCE_TYPE = "capacity-reservation-fleet";
+
+  private LegacyTranslations() {
+  }
+
+  /**
+   * Translator.translateFromFleet before the allocation-lean rewrite: tags are always mapped through a stream,
+   * even when the desired tag specifications are used, and the specification set is not pre-sized.
+   */
+  static ResourceModel translateFromFleet(final CapacityReservationFleet crFleet, final List<TagSpecification> desiredTagSpecifications) {
+    final ResourceModel.ResourceModelBuilder builder = ResourceModel.builder();
+    final List<Tag> tags = crFleet.tags().stream().map((tag) -> Tag.builder().key(tag.key()).value(tag.value()).build()).collect(Collectors.toList());
+    List<TagSpecification> tagSpecifications = null;
+
+    if (desiredTagSpecifications != null) {
+      tagSpecifications = desiredTagSpecifications;
+    } else if (!CollectionUtils.isEmpty(tags)) {
+      tagSpecifications = Arrays.asList(TagSpecification.builder().resourceType(CR_FLEET_TAG_RESOURCE_TYPE).tags(tags).build());
+    }
+
+    final Set<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>();
+
+    crFleet.instanceTypeSpecifications().stream().forEach(specification -> {
+      instanceTypeSpecifications.add(InstanceTypeSpecification.builder()
+              .instanceType(specification.instanceTypeAsString())
+              .instancePlatform(specification.instancePlatformAsString())
+              .availabilityZone(specification.availabilityZone())
+              .availabilityZoneId(specification.availabilityZoneId())
+              .ebsOptimized(specification.ebsOptimized())
+              .priority(specification.priority())
+              .weight(specification.weight())
+              .build());
+    });
+
+    builder.capacityReservationFleetId(crFleet.capacityReservationFleetId())
+            .allocationStrategy(crFleet.allocationStrategy())
+            .tenancy(crFleet.tenancyAsString())
+            .totalTargetCapacity(crFleet.totalTargetCapacity())
+            .instanceTypeSpecifications(instanceTypeSpecifications)
+            .tagSpecifications(CollectionUtils.isEmpty(tagSpecifications) ? null : tagSpecifications)
+            .instanceMatchCriteria(crFleet.instanceMatchCriteria().toString())
+            .endDate(crFleet.endDate() != null ? String.valueOf(crFleet.endDate()) : null)
+            .build();
+
+    return builder.build();
+  }
+
+  /**
+   * Translator.getTags before {@link TagMerger}: stack, system and user tags are appended without deduplication or
+   * validation, and other resource types are mapped through nested streams.
+   */
+  static List<software.amazon.awssdk.services.ec2.model.TagSpecification> getTags(
+          final ResourceHandlerRequest<ResourceModel> handlerRequest, final ResourceModel model, final Logger logger) {
+    final HandlerLogger log = HandlerLogger.of(logger);
+    final List<software.amazon.awssdk.services.ec2.model.Tag> tags = new ArrayList<>();
+    final List<software.amazon.awssdk.services.ec2.model.TagSpecification> fleetTagSpecifications = new ArrayList<>();
+
+    if (handlerRequest.getDesiredResourceTags() != null) {
+      handlerRequest.getDesiredResourceTags().forEach((key, value) -> {
+        software.amazon.awssdk.services.ec2.model.Tag tag = software.amazon.awssdk.services.ec2.model.Tag.builder()
+                .key(key)
+                .value(value)
+                .build();
+        tags.add(tag);
+      });
+    }
+
+    if (handlerRequest.getSystemTags() != null) {
+      handlerRequest.getSystemTags().forEach((key, value) -> {
+        software.amazon.awssdk.services.ec2.model.Tag tag = software.amazon.awssdk.services.ec2.model.Tag.builder()
+                .key(key)
+                .value(value)
+                .build();
+        tags.add(tag);
+      });
+    }
+
+    if (tags.isEmpty()) {
+      log.info("No stack-level tags and system tags for CFN");
+    }
+
+    if (model.getTagSpecifications() != null && model.getTagSpecifications().size() > 0) {
+      for (TagSpecification tagSpecification : model.getTagSpecifications()) {
+        if (tagSpecification.getResourceType().equalsIgnoreCase(CR_FLEET_TAG_RESOURCE_TYPE)) {
+          tags.addAll(tagSpecification.getTags().stream().map(tag -> software.amazon.awssdk.services.ec2.model.Tag.builder()
+                  .key(tag.getKey())
+                  .value(tag.getValue())
+                  .build()).collect(Collectors.toList()));
+        } else {
+          fleetTagSpecifications.add(software.amazon.awssdk.services.ec2.model.TagSpecification.builder()
+                  .resourceType(tagSpecification.getResourceType())
+                  .tags(tagSpecification.getTags().stream().map(tag -> software.amazon.awssdk.services.ec2.model.Tag.builder()
+                          .key(tag.getKey())
+                          .value(tag.getValue())
+                          .build()).collect(Collectors.toList()))
+                  .build());
+        }
+      }
+    }
+
+    if (tags.isEmpty()) {
+      return fleetTagSpecifications;
+    }
+
+    log.debug(() -> "TagSpecifications to add : " + fleetTagSpecifications);
+    fleetTagSpecifications.add(software.amazon.awssdk.services.ec2.model.TagSpecification.builder()
+            .resourceType(CR_FLEET_TAG_RESOURCE_TYPE)
+            .tags(tags)
+            .build());
+    return fleetTagSpecifications;
+  }
+}
@@ -0,0 +1,153 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Throughput of the {@link Translator} paths every handler invocation goes through.
+ *
+ * specCount ranges from a single spec to the schema maximum of 50 InstanceTypeSpecifications, tagCount is
+ * applied to stack tags, fleet tags and the tags of a second resource type alike. Run with the GC profiler
+ * (the default of {@link BenchmarkRunner}) to get gc.alloc.rate.norm, the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TranslatorBenchmark {
+
+  @Param({"1", "10", "50"})
+  public int specCount;
+
+  @Param({"5", "50"})
+  public int tagCount;
+
+  @Param({"INFO", "DEBUG"})
+  public String logLevel;
+
+  private HandlerLogger logger;
+  private ResourceModel model;
+  private ResourceModel desiredStateWithoutTags;
+  private ResourceHandlerRequest<ResourceModel> handlerRequest;
+  private DescribeCapacityReservationFleetsResponse describeResponse;
+  private DescribeCapacityReservationFleetsResponse listResponse;
+  private AwsServiceException throttlingException;
+  private AwsServiceException notFoundException;
+  private AwsServiceException internalErrorException;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // no publishers are registered, so the measured cost is the message construction at the call sites
+    logger = new HandlerLogger(new LoggerProxy(), HandlerLogger.Level.valueOf(logLevel));
+    model = BenchmarkFixtures.resourceModel(specCount, tagCount);
+    desiredStateWithoutTags = ResourceModel.builder().capacityReservationFleetId(BenchmarkFixtures.CR_FLEET_ID).build();
+    handlerRequest = BenchmarkFixtures.handlerRequest(model, tagCount);
+    describeResponse = BenchmarkFixtures.describeResponse(model, tagCount);
+    listResponse = BenchmarkFixtures.listResponse(model, tagCount, 100);
+    throttlingException = BenchmarkFixtures.serviceException("RequestLimitExceeded", 503);
+    notFoundException = BenchmarkFixtures.serviceException(Translator.INVALID_CR_FLEET_ID_NOT_FOUND, 400);
+    internalErrorException = BenchmarkFixtures.serviceException("InternalError", 500);
+  }
+
+  @Benchmark
+  public CreateCapacityReservationFleetRequest translateToCreateRequest() {
+    return Translator.translateToCreateRequest(model, handlerRequest, logger);
+  }
+
+  @Benchmark
+  public ResourceModel translateFromReadResponse() {
+    return Translator.translateFromReadResponse(describeResponse, logger, model, true);
+  }
+
+  @Benchmark
+  public ResourceModel translateFromReadResponse_tagsFromResponse() {
+    return Translator.translateFromReadResponse(describeResponse, logger, desiredStateWithoutTags, true);
+  }
+
+  /**
+   * The fleet mapping of translateFromReadResponse, compared with {@link LegacyTranslations#translateFromFleet}.
+   */
+  @Benchmark
+  public ResourceModel translateFromFleet() {
+    return Translator.translateFromFleet(describeResponse.capacityReservationFleets().get(0), model.getTagSpecifications());
+  }
+
+  @Benchmark
+  public ResourceModel translateFromFleet_legacy() {
+    return LegacyTranslations.translateFromFleet(describeResponse.capacityReservationFleets().get(0), model.getTagSpecifications());
+  }
+
+  @Benchmark
+  public ResourceModel translateFromFleet_tagsFromResponse() {
+    return Translator.translateFromFleet(describeResponse.capacityReservationFleets().get(0), null);
+  }
+
+  @Benchmark
+  public ResourceModel translateFromFleet_tagsFromResponse_legacy() {
+    return LegacyTranslations.translateFromFleet(describeResponse.capacityReservationFleets().get(0), null);
+  }
+
+  @Benchmark
+  public List<ResourceModel> translateFromListRequest() {
+    return Translator.translateFromListRequest(listResponse);
+  }
+
+  @Benchmark
+  public List<ResourceModel> translateFromListRequest_hydrated() {
+    return Translator.translateFromListRequest(listResponse, true);
+  }
+
+  @Benchmark
+  public List<software.amazon.awssdk.services.ec2.model.TagSpecification> getTags() {
+    return Translator.getTags(handlerRequest, model, logger);
+  }
+
+  @Benchmark
+  public List<software.amazon.awssdk.services.ec2.model.TagSpecification> getTags_legacy() {
+    return LegacyTranslations.getTags(handlerRequest, model, logger);
+  }
+
+  @Benchmark
+  public ProgressEvent<ResourceModel, CallbackContext> translateToFailure_throttling() {
+    return Translator.translateToFailure(throttlingException);
+  }
+
+  @Benchmark
+  public ProgressEvent<ResourceModel, CallbackContext> translateToFailure_notFound() {
+    return Translator.translateToFailure(notFoundException);
+  }
+
+  @Benchmark
+  public ProgressEvent<ResourceModel, CallbackContext> translateToFailure_internalError() {
+    return Translator.translateToFailure(internalErrorException);
+  }
+
+  /**
+   * Includes building the SDK exception, i.e. what a throttled call costs the handler end to end.
+   */
+  @Benchmark
+  public ProgressEvent<ResourceModel, CallbackContext> constructAndTranslateThrottlingFailure() {
+    return Translator.translateToFailure(BenchmarkFixtures.serviceException("RequestLimitExceeded", 503));
+  }
+}
@@ -1,19 +1,60 @@
 package software.amazon.ec2.capacityreservationfleet;
 
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Delay;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import static software.amazon.ec2.capacityreservationfleet.Translator.UNAUTHORIZED_CODE;
 
 public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
+  static final String CALL_GRAPH_PREFIX = "AWS-EC2-CapacityReservationFleet::";
+  static final String STABILIZATION_BUDGET_SECONDS = "STABILIZATION_BUDGET_SECONDS";
+
+  /**
+   * Thrown by a stabilize step that used up the in-invocation budget. It passes through handleError and the call
+   * chain and is turned into an in-progress event by {@link #resumable}, so that the framework doesn't wait out
+   * the callback delay inside the invocation.
+   */
+  static final class StabilizationYield extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int callbackDelaySeconds;
 
+    StabilizationYield(final int callbackDelaySeconds) {
+      super("Stabilization budget of the invocation used up", null, false, false);
+      this.callbackDelaySeconds = callbackDelaySeconds;
+    }
+
+    int getCallbackDelaySeconds() {
+      return callbackDelaySeconds;
+    }
+  }
+
+  static {
+    HandlerPriming.prime();
+  }
 
   @Override
   public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -21,13 +62,46 @@ public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
           final ResourceHandlerRequest<ResourceModel> request,
           final CallbackContext callbackContext,
           final Logger logger) {
-    return handleRequest(
-            proxy,
-            request,
-            callbackContext != null ? callbackContext : new CallbackContext(),
-            proxy.newProxy(ClientBuilder::getClient),
-            logger
-    );
+    final CallbackContext context = callbackContext != null ? callbackContext : new CallbackContext();
+    context.setInvocationStartNanos(System.nanoTime());
+    context.setEc2Retry(newEc2Retry());
+    final int stabilizationAttempts = context.getStabilizationAttempts();
+    final HandlerMetrics metrics = HandlerMetrics.open(action());
+    final HandlerTracing.Span span = HandlerTracing.start(CALL_GRAPH_PREFIX + action());
+    final Ec2CallAccounting accounting = Ec2CallAccounting.open(action());
+
+    ProgressEvent<ResourceModel, CallbackContext> event = null;
+    Throwable failure = null;
+    try {
+      event = handleRequest(
+              proxy,
+              request,
+              context,
+              accounting.account(proxy.newProxy(() -> ClientBuilder.getClient(request.getRegion()))),
+              logger
+      );
+      return event;
+    } catch (final RuntimeException | Error e) {
+      failure = e;
+      throw e;
+    } finally {
+      HandlerTracing.end(span, failure);
+      metrics.stabilizationAttempts(context.getStabilizationAttempts() - stabilizationAttempts);
+      metrics.ec2CallsByStage(accounting.callsByStage());
+      accounting.close();
+      metrics.close(event);
+    }
+  }
+
+  /**
+   * Name of the handler action for metrics, e.g. Create for the CreateHandler.
+   */
+  String action() {
+    Class<?> type = getClass();
+    while (type.isAnonymousClass()) {
+      type = type.getSuperclass();
+    }
+    return type.getSimpleName().replace("Handler", "");
   }
 
   protected abstract ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -37,6 +111,181 @@ public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
           final ProxyClient<Ec2Client> proxyClient,
           final Logger logger);
 
+  /**
+   * Whether the handler issues its EC2 calls through the Ec2AsyncClient. Defaults to the ASYNC_CLIENT setting,
+   * override to select the path for a single handler.
+   *
+   * @return true to use the async client
+   */
+  protected boolean isAsyncClientEnabled() {
+    return HandlerSettings.getBoolean(HandlerSettings.ASYNC_CLIENT, false);
+  }
+
+  protected ProxyClient<Ec2AsyncClient> newAsyncProxyClient(final AmazonWebServicesClientProxy proxy, final String region) {
+    return proxy.newProxy(() -> ClientBuilder.getAsyncClient(region));
+  }
+
+  /**
+   * EC2 calls of one invocation, on the async client when enabled and on the given blocking proxy client otherwise.
+   * Unless disabled with the RATE_LIMIT setting, the calls wait on the rate limiter of the account and region,
+   * and unless disabled with the CIRCUIT_BREAKER setting they are guarded by its circuit breaker. Unless disabled with
+   * the RETRY setting, throttled Describe and Cancel calls are retried with the {@link Ec2Retry} of the invocation,
+   * which is kept in the callback context so that nested handlers share its budget.
+   *
+   * @param proxy
+   * @param request
+   * @param callbackContext callback context of the invocation, null for the ListHandler
+   * @param proxyClient
+   * @return calls for the handler
+   */
+  protected Ec2Calls ec2Calls(
+          final AmazonWebServicesClientProxy proxy,
+          final ResourceHandlerRequest<ResourceModel> request,
+          final CallbackContext callbackContext,
+          final ProxyClient<Ec2Client> proxyClient) {
+    final Ec2Calls calls = isAsyncClientEnabled()
+            ? Ec2Calls.async(Ec2CallAccounting.current().accountAsync(newAsyncProxyClient(proxy, request.getRegion())))
+            : Ec2Calls.sync(proxyClient);
+    final Ec2Calls limited = Ec2RateLimiter.isEnabled() ? Ec2Calls.rateLimited(calls, Ec2RateLimiter.of(request.getAwsAccountId(), request.getRegion())) : calls;
+    // the breaker goes first so that calls it rejects don't wait for a token
+    final Ec2Calls guarded = Ec2CircuitBreaker.isEnabled() ? Ec2Calls.circuitBroken(limited, Ec2CircuitBreaker.of(request.getAwsAccountId(), request.getRegion())) : limited;
+    // every retry goes through the breaker and the limiter again
+    final Ec2Retry retry = ec2Retry(callbackContext);
+    return retry == Ec2Retry.NONE ? guarded : Ec2Calls.retried(guarded, retry);
+  }
+
+  private static Ec2Retry newEc2Retry() {
+    return Ec2Retry.isEnabled() ? Ec2Retry.fromSettings() : Ec2Retry.NONE;
+  }
+
+  /**
+   * @param callbackContext callback context of the invocation, may be null
+   * @return retry of the invocation, created on first use when the handler is run without the final handleRequest
+   */
+  private static Ec2Retry ec2Retry(final CallbackContext callbackContext) {
+    if (callbackContext == null) {
+      return newEc2Retry();
+    }
+    if (callbackContext.getEc2Retry() == null) {
+      callbackContext.setEc2Retry(newEc2Retry());
+    }
+    return callbackContext.getEc2Retry();
+  }
+
+  /**
+   * Runs a stage of a call chain in a tracing span, e.g. the makeServiceCall of the Create chain as
+   * traced(CALL_GRAPH_PREFIX + "Create", HandlerTracing.SERVICE_CALL, () -> ...). The EC2 calls of the body are
+   * counted for the stage by {@link Ec2CallAccounting}.
+   *
+   * @param callGraph call graph name passed to proxy.initiate
+   * @param stage one of the HandlerTracing stage constants
+   * @param body stage to run
+   * @return result of the stage
+   */
+  protected <T> T traced(final String callGraph, final String stage, final Supplier<T> body) {
+    return HandlerTracing.span(callGraph, stage, () -> Ec2CallAccounting.stage(callGraph, stage, body));
+  }
+
+  /**
+   * Backoff policy shared by the stabilize steps of all handlers. Override to plug in another policy.
+   *
+   * @return stabilization backoff policy
+   */
+  protected StabilizationBackoff stabilizationBackoff() {
+    return StabilizationBackoff.DEFAULT;
+  }
+
+  /**
+   * Delay between stabilization polls of the given fleet, sized from its TotalTargetCapacity and specifications.
+   *
+   * @param model fleet being stabilized
+   * @param context callback context holding the stabilization attempt count
+   * @return delay for backoffDelay of the call chain
+   */
+  protected Delay stabilizationDelay(final ResourceModel model, final CallbackContext context) {
+    return stabilizationBackoff().delayFor(model, context);
+  }
+
+  /**
+   * Fulfilled capacity the stabilize steps of Create and Update wait for. Override to plug in another threshold.
+   *
+   * @return fulfillment threshold, {@link FulfillmentThreshold#NONE} unless configured
+   */
+  protected FulfillmentThreshold fulfillmentThreshold() {
+    return FulfillmentThreshold.fromSettings();
+  }
+
+  /**
+   * Ends a stabilize poll. Polls normally go on in the invocation until the framework hands the operation back to
+   * CloudFormation. With STABILIZATION_BUDGET_SECONDS set, a poll that doesn't stabilize once the invocation has run
+   * that long saves the call graph in the CallbackContext and yields: the operation is returned in progress with
+   * the next backoff delay as callback delay, and the re-invocation resumes at this stabilize step instead of
+   * paying for the wait.
+   *
+   * @param callGraph call graph of the stabilize step
+   * @param stabilized result of the poll
+   * @param model fleet being stabilized
+   * @param context callback context of the invocation
+   * @return stabilized
+   * @throws StabilizationYield if the poll didn't stabilize and the budget is used up
+   */
+  protected boolean endStabilizationPoll(
+          final String callGraph,
+          final boolean stabilized,
+          final ResourceModel model,
+          final CallbackContext context) {
+    if (stabilized) {
+      context.setStabilizingCallGraph(null);
+      return true;
+    }
+
+    final long budgetSeconds = HandlerSettings.getLong(STABILIZATION_BUDGET_SECONDS, 0);
+    if (budgetSeconds <= 0 || System.nanoTime() - context.getInvocationStartNanos() < TimeUnit.SECONDS.toNanos(budgetSeconds)) {
+      return false;
+    }
+
+    final Duration nextDelay = stabilizationBackoff().nextDelay(model, context);
+    if (nextDelay.isZero()) {
+      // the framework fails the exhausted stabilization with NotStabilized on the next delay
+      return false;
+    }
+
+    // the attempt counts as done, so that the backoff keeps growing across the re-invocations
+    context.setStabilizationAttempts(context.getStabilizationAttempts() + 1);
+    context.setStabilizingCallGraph(callGraph);
+    HandlerMetrics.current().stabilizationYield();
+    throw new StabilizationYield((int) Math.max(1, (nextDelay.toMillis() + 999) / 1000));
+  }
+
+  /**
+   * Runs the call chains of a handler, returning it in progress with the callback delay of the yield when one of
+   * its stabilize steps yields.
+   *
+   * @param model resource model of the operation
+   * @param context callback context of the invocation, handed back to CloudFormation on a yield
+   * @param chains call chains of the handler
+   * @return progress of the chains
+   */
+  protected ProgressEvent<ResourceModel, CallbackContext> resumable(
+          final ResourceModel model,
+          final CallbackContext context,
+          final Supplier<ProgressEvent<ResourceModel, CallbackContext>> chains) {
+    try {
+      return chains.get();
+    } catch (final StabilizationYield yield) {
+      return ProgressEvent.defaultInProgressHandler(context, yield.getCallbackDelaySeconds(), model);
+    }
+  }
+
+  /**
+   * @param context callback context of the invocation
+   * @param callGraph call graph of a stabilize step
+   * @return true if the invocation resumes the yielded stabilize step of callGraph
+   */
+  protected boolean isResumingStabilization(final CallbackContext context, final String callGraph) {
+    return callGraph.equals(context.getStabilizingCallGraph());
+  }
+
   /**
    *  describe api is used in almost all handlers so defined here for common usage.
    *
@@ -49,22 +298,200 @@ public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
           final DescribeCapacityReservationFleetsRequest request,
           final ProxyClient<Ec2Client> proxyClient,
           final Logger logger) {
-    DescribeCapacityReservationFleetsResponse response = null;
+    return describeCapacityReservationFleets(request, Ec2Calls.sync(proxyClient), logger);
+  }
+
+  protected DescribeCapacityReservationFleetsResponse describeCapacityReservationFleets(
+          final DescribeCapacityReservationFleetsRequest request,
+          final Ec2Calls ec2Calls,
+          final Logger logger) {
+    final HandlerLogger log = HandlerLogger.of(logger);
+    final DescribeCapacityReservationFleetsResponse response;
     try {
-      logger.log(String.format("[INFO] Trying DescribeCapacityReservationFleets with request: %s", request));
-      response = proxyClient.injectCredentialsAndInvokeV2(request, (proxyRequest) -> proxyClient.client().describeCapacityReservationFleets(proxyRequest));
+      log.debug(() -> String.format("Trying DescribeCapacityReservationFleets with request: %s", request));
+      response = ec2Calls.joinRetrying(() -> ec2Calls.describeCapacityReservationFleets(request));
 
-      final String requestId = response.responseMetadata() != null ? response.responseMetadata().requestId() : null;
-      logger.log(String.format("[INFO] Received DescribeCapacityReservationFleets requestId: %s response: %s", requestId, response));
+      log.debug(() -> String.format("Received DescribeCapacityReservationFleets requestId: %s response: %s",
+              response.responseMetadata() != null ? response.responseMetadata().requestId() : null, response));
+      if (response != null && response.capacityReservationFleets().size() == 1) {
+        HandlerMetrics.current().fleetState(response.capacityReservationFleets().get(0).stateAsString());
+      }
     } catch (final AwsServiceException e) {
-      logger.log(String.format("[INFO] Exception thrown while describing CapacityReservationfleet with request: %s", request));
+      log.warn(() -> String.format("Exception thrown while describing CapacityReservationfleet with request: %s", request));
       throw e;
     }
 
-    logger.log(String.format("[INFO] %s has successfully been read.", ResourceModel.TYPE_NAME));
+    log.info(() -> String.format("%s has successfully been read.", ResourceModel.TYPE_NAME));
     return response;
   }
 
+  /**
+   * Reads many fleets with as few DescribeCapacityReservationFleets calls as possible, DESCRIBE_MAX_IDS ids per call.
+   * Ids that don't exist, and fleets a Read would report as NotFound, are missing from the result instead of failing
+   * the whole batch.
+   *
+   * @param crFleetIds fleet ids, duplicates are described once
+   * @param ec2Calls
+   * @param logger
+   * @return resource models by fleet id, in the order of the ids
+   */
+  protected Map<String, ResourceModel> describeCapacityReservationFleets(
+          final Collection<String> crFleetIds,
+          final Ec2Calls ec2Calls,
+          final Logger logger) {
+    final Map<String, CapacityReservationFleet> fleets = describeFleetsById(crFleetIds, ec2Calls, HandlerLogger.of(logger));
+    return Translator.translateFromBatchReadResponse(fleets.values());
+  }
+
+  /**
+   * Batched describe behind the handlers and bulk operations. Every chunk is requested before any response
+   * is awaited, so on the async client the chunks are described concurrently.
+   *
+   * @param crFleetIds fleet ids, duplicates are described once
+   * @param ec2Calls
+   * @param logger
+   * @return fleets by id in the order of the ids, without the ids EC2 doesn't know
+   */
+  static Map<String, CapacityReservationFleet> describeFleetsById(
+          final Collection<String> crFleetIds,
+          final Ec2Calls ec2Calls,
+          final HandlerLogger logger) {
+    final List<String> ids = new ArrayList<>(new LinkedHashSet<>(crFleetIds));
+    final List<List<String>> chunks = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += Translator.DESCRIBE_MAX_IDS) {
+      chunks.add(ids.subList(from, Math.min(from + Translator.DESCRIBE_MAX_IDS, ids.size())));
+    }
+
+    final List<CompletableFuture<DescribeCapacityReservationFleetsResponse>> pending = new ArrayList<>(chunks.size());
+    for (final List<String> chunk : chunks) {
+      pending.add(ec2Calls.describeCapacityReservationFleets(Translator.translateToBatchReadRequest(chunk, null)));
+    }
+
+    final Map<String, CapacityReservationFleet> fleets = new HashMap<>();
+    for (int i = 0; i < chunks.size(); i++) {
+      describeChunk(chunks.get(i), pending.get(i), ec2Calls, fleets, logger);
+    }
+
+    final Map<String, CapacityReservationFleet> ordered = new LinkedHashMap<>();
+    ids.stream().filter(fleets::containsKey).forEach(id -> ordered.put(id, fleets.get(id)));
+    return ordered;
+  }
+
+  private static void describeChunk(
+          final List<String> chunk,
+          final CompletableFuture<DescribeCapacityReservationFleetsResponse> pending,
+          final Ec2Calls ec2Calls,
+          final Map<String, CapacityReservationFleet> fleets,
+          final HandlerLogger logger) {
+    DescribeCapacityReservationFleetsResponse response;
+    try {
+      response = ec2Calls.joinRetrying(pending, () -> ec2Calls.describeCapacityReservationFleets(Translator.translateToBatchReadRequest(chunk, null)));
+    } catch (final AwsServiceException e) {
+      if (!Translator.isFleetNotFound(e)) {
+        throw e;
+      }
+      if (chunk.size() == 1) {
+        logger.info(() -> String.format("CRFleet %s was not found", chunk.get(0)));
+        return;
+      }
+
+      // EC2 fails the whole call for a single unknown id, so split the chunk until the unknown ids are isolated
+      final List<String> left = chunk.subList(0, chunk.size() / 2);
+      final List<String> right = chunk.subList(chunk.size() / 2, chunk.size());
+      describeChunk(left, ec2Calls.describeCapacityReservationFleets(Translator.translateToBatchReadRequest(left, null)), ec2Calls, fleets, logger);
+      describeChunk(right, ec2Calls.describeCapacityReservationFleets(Translator.translateToBatchReadRequest(right, null)), ec2Calls, fleets, logger);
+      return;
+    }
+
+    while (true) {
+      response.capacityReservationFleets().forEach(fleet -> fleets.put(fleet.capacityReservationFleetId(), fleet));
+      if (response.nextToken() == null) {
+        return;
+      }
+      final String nextToken = response.nextToken();
+      response = ec2Calls.joinRetrying(() -> ec2Calls.describeCapacityReservationFleets(Translator.translateToBatchReadRequest(chunk, nextToken)));
+    }
+  }
+
+  /**
+   * Final read of Create and Update. Translates the Describe response that ended stabilization in this invocation
+   * instead of describing the fleet again, and falls back to the ReadHandler when there is none, e.g. when the
+   * handler was re-invoked after stabilization.
+   *
+   * @param proxy
+   * @param request
+   * @param callbackContext
+   * @param proxyClient
+   * @param logger
+   * @return
+   */
+  protected ProgressEvent<ResourceModel, CallbackContext> readAfterStabilization(
+          final AmazonWebServicesClientProxy proxy,
+          final ResourceHandlerRequest<ResourceModel> request,
+          final CallbackContext callbackContext,
+          final ProxyClient<Ec2Client> proxyClient,
+          final Logger logger) {
+    final DescribeCapacityReservationFleetsResponse response = callbackContext.getStabilizedDescribeResponse();
+    if (response == null) {
+      return new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger);
+    }
+
+    callbackContext.setStabilizedDescribeResponse(null);
+    HandlerLogger.of(logger).info("Reusing the stabilization DescribeCapacityReservationFleets response for the final read.");
+    return ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(response, logger, request.getDesiredResourceState(), true));
+  }
+
+  /**
+   * Fails a create request that {@link PreflightValidator} rejects with InvalidRequest before any EC2 call is made.
+   *
+   * @param request
+   * @param progress
+   * @param logger
+   * @return progress unchanged if the request is valid
+   */
+  protected ProgressEvent<ResourceModel, CallbackContext> preflightCreate(
+          final ResourceHandlerRequest<ResourceModel> request,
+          final ProgressEvent<ResourceModel, CallbackContext> progress,
+          final Logger logger) {
+    try {
+      PreflightValidator.validateCreate(request);
+      return progress;
+    } catch (final BaseHandlerException ex) {
+      HandlerLogger.of(logger).warn(() -> String.format("Create request failed preflight validation: %s", ex.getMessage()));
+      HandlerMetrics.current().failure(ex.getErrorCode());
+      return ProgressEvent.defaultFailureHandler(ex, ex.getErrorCode());
+    }
+  }
+
+  /**
+   * handleError of the mutating call chains. While the EC2 circuit breaker is open, or the rate limiter has no token
+   * within its max wait, the operation is handed back to CloudFormation as in progress, to be re-invoked once calls
+   * can be made again. A {@link StabilizationYield} is rethrown for {@link #resumable}. Every other exception fails it.
+   *
+   * @param exception
+   * @param model
+   * @param context
+   * @return
+   */
+  protected ProgressEvent<ResourceModel, CallbackContext> handleServiceCallError(
+          final Exception exception,
+          final ResourceModel model,
+          final CallbackContext context) {
+    if (exception instanceof StabilizationYield) {
+      throw (StabilizationYield) exception;
+    }
+    if (exception instanceof Ec2CircuitBreaker.OpenException) {
+      final long retryAfterSeconds = ((Ec2CircuitBreaker.OpenException) exception).getRetryAfter().getSeconds();
+      return ProgressEvent.defaultInProgressHandler(context, (int) Math.max(1, retryAfterSeconds + 1), model);
+    }
+    if (exception instanceof Ec2RateLimiter.WaitExceededException) {
+      final long retryAfterSeconds = ((Ec2RateLimiter.WaitExceededException) exception).getRetryAfter().getSeconds();
+      return ProgressEvent.defaultInProgressHandler(context, (int) Math.max(1, retryAfterSeconds + 1), model);
+    }
+
+    return Translator.translateToFailure(exception);
+  }
+
   protected ProgressEvent<ResourceModel, CallbackContext> handleDescribeCapacityReservationFleetsError(
           final DescribeCapacityReservationFleetsRequest request,
           final Exception exception,
@@ -1,5 +1,7 @@
 package software.amazon.ec2.capacityreservationfleet;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
 import software.amazon.cloudformation.proxy.StdCallbackContext;
 
 @lombok.Getter
@@ -7,4 +9,46 @@ import software.amazon.cloudformation.proxy.StdCallbackContext;
 @lombok.ToString
 @lombok.EqualsAndHashCode(callSuper = true)
 public class CallbackContext extends StdCallbackContext {
+    /**
+     * Number of stabilization polls done so far, across re-invocations. Drives {@link StabilizationBackoff}.
+     */
+    private int stabilizationAttempts;
+
+    /**
+     * Call graph whose stabilize step handed the operation back to CloudFormation after using up the
+     * in-invocation stabilization budget, null otherwise. The re-invocation goes straight to that stabilize step.
+     */
+    private String stabilizingCallGraph;
+
+    /**
+     * Epoch milliseconds at which the stabilize step first saw the fleet ACTIVE or PARTIALLY_FULFILLED below its
+     * {@link FulfillmentThreshold}, 0 otherwise. Bounds the wait for fulfillment across re-invocations.
+     */
+    private long fulfillmentWaitStartMillis;
+
+    /**
+     * Describe response that ended the stabilize step, reused for the final read of Create and Update.
+     * Scoped to the current invocation: it is never serialized into the context handed back to CloudFormation.
+     */
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private transient DescribeCapacityReservationFleetsResponse stabilizedDescribeResponse;
+
+    /**
+     * System.nanoTime() at the start of the current invocation, the in-invocation stabilization budget counts from it.
+     */
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private transient long invocationStartNanos;
+
+    /**
+     * Retry of the throttled Describe and Cancel calls of the current invocation. Shared by every handler the
+     * invocation runs, including the ReadHandler of the final read, so that they draw from a single retry budget.
+     */
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private transient Ec2Retry ec2Retry;
 }
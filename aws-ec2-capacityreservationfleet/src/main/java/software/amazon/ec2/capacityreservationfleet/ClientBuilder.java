@@ -1,12 +1,89 @@
 package software.amazon.ec2.capacityreservationfleet;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClientBuilder;
 import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.Ec2ClientBuilder;
 import software.amazon.cloudformation.LambdaWrapper;
 
+/**
+ * Builds the EC2 clients once per region and keeps them for the life of the container, so warm invocations don't
+ * pay for client construction. Every client gets explicit timeouts and adaptive retries, sized for the Describe
+ * polling of the stabilize steps, so that a slow endpoint fails the call instead of running the handler into the
+ * Lambda timeout.
+ */
 public class ClientBuilder {
+  static final String API_CALL_ATTEMPT_TIMEOUT_MS = "API_CALL_ATTEMPT_TIMEOUT_MS";
+  static final String API_CALL_TIMEOUT_MS = "API_CALL_TIMEOUT_MS";
+  static final String MAX_RETRIES = "MAX_RETRIES";
+
+  private static final String DEFAULT_REGION_KEY = "";
+
+  private static final Map<String, Ec2Client> CLIENTS = new ConcurrentHashMap<>();
+  private static final Map<String, Ec2AsyncClient> ASYNC_CLIENTS = new ConcurrentHashMap<>();
+
   public static Ec2Client getClient() {
-    return Ec2Client.builder()
-            .httpClient(LambdaWrapper.HTTP_CLIENT)
+    return getClient(null);
+  }
+
+  /**
+   * @param region region of the request, the region of the function when null
+   * @return cached Ec2Client for the region
+   */
+  public static Ec2Client getClient(final String region) {
+    return CLIENTS.computeIfAbsent(regionKey(region), key -> {
+      final Ec2ClientBuilder builder = Ec2Client.builder()
+              .httpClient(LambdaWrapper.HTTP_CLIENT)
+              .overrideConfiguration(overrideConfiguration());
+      regionOf(key).ifPresent(builder::region);
+      return builder.build();
+    });
+  }
+
+  public static Ec2AsyncClient getAsyncClient() {
+    return getAsyncClient(null);
+  }
+
+  /**
+   * The async client owns its event loop, so sharing it across invocations matters even more than for the
+   * blocking client.
+   *
+   * @param region region of the request, the region of the function when null
+   * @return cached Ec2AsyncClient for the region
+   */
+  public static Ec2AsyncClient getAsyncClient(final String region) {
+    return ASYNC_CLIENTS.computeIfAbsent(regionKey(region), key -> {
+      final Ec2AsyncClientBuilder builder = Ec2AsyncClient.builder()
+              .overrideConfiguration(overrideConfiguration());
+      regionOf(key).ifPresent(builder::region);
+      return builder.build();
+    });
+  }
+
+  static ClientOverrideConfiguration overrideConfiguration() {
+    return ClientOverrideConfiguration.builder()
+            .apiCallAttemptTimeout(Duration.ofMillis(HandlerSettings.getLong(API_CALL_ATTEMPT_TIMEOUT_MS, 10_000L)))
+            .apiCallTimeout(Duration.ofMillis(HandlerSettings.getLong(API_CALL_TIMEOUT_MS, 30_000L)))
+            .retryPolicy(RetryPolicy.builder(RetryMode.ADAPTIVE)
+                    .numRetries(HandlerSettings.getInt(MAX_RETRIES, 5))
+                    .build())
             .build();
   }
+
+  private static String regionKey(final String region) {
+    return region == null || region.isEmpty() ? DEFAULT_REGION_KEY : region;
+  }
+
+  private static Optional<Region> regionOf(final String key) {
+    return DEFAULT_REGION_KEY.equals(key) ? Optional.empty() : Optional.of(Region.of(key));
+  }
 }
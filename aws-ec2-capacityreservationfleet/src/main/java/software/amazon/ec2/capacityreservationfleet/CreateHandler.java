@@ -4,7 +4,6 @@ import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
-import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
 import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
@@ -25,53 +24,63 @@ public class CreateHandler extends BaseHandlerStd {
             final ProxyClient<Ec2Client> proxyClient,
             final Logger logger) {
 
-        this.logger = logger;
+        final HandlerLogger log = HandlerLogger.of(logger);
+        this.logger = log;
+        final Ec2Calls ec2Calls = ec2Calls(proxy, request, callbackContext, proxyClient);
+        final String callGraph = CALL_GRAPH_PREFIX + "Create";
 
-        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+        return resumable(request.getDesiredResourceState(), callbackContext, () -> ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+                .then(progress -> preflightCreate(request, progress, log))
                 .then(progress ->
-                        proxy.initiate("AWS-EC2-CapacityReservationFleet::Create", proxyClient,progress.getResourceModel(), progress.getCallbackContext())
-                                .translateToServiceRequest((model) -> Translator.translateToCreateRequest(model, request, logger))
-                                .makeServiceCall((awsRequest, client) -> {
-                                    logger.log(String.format("[INFO] Creating resource with CreateCapacityReservationFleet: %s", request));
+                        proxy.initiate(callGraph, proxyClient,progress.getResourceModel(), progress.getCallbackContext())
+                                .translateToServiceRequest((model) -> traced(callGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToCreateRequest(model, request, log)))
+                                .backoffDelay(stabilizationDelay(progress.getResourceModel(), progress.getCallbackContext()))
+                                .makeServiceCall((awsRequest, client) -> traced(callGraph, HandlerTracing.SERVICE_CALL, () -> {
+                                    log.debug(() -> String.format("Creating resource with CreateCapacityReservationFleet: %s", awsRequest));
 
                                     CreateCapacityReservationFleetResponse response = null;
                                     try {
-                                        response = proxyClient.injectCredentialsAndInvokeV2(awsRequest, proxyClient.client()::createCapacityReservationFleet);
-                                        logger.log(String.format("[INFO] createCapacityReservationFleet response : ", response));
+                                        response = Ec2Calls.join(ec2Calls.createCapacityReservationFleet(awsRequest));
+                                        final CreateCapacityReservationFleetResponse createResponse = response;
+                                        log.debug(() -> String.format("createCapacityReservationFleet response : %s", createResponse));
 
                                         return response;
                                     } catch (final SdkException e) {
-                                        logger.log(String.format("[INFO] Encountered an exception while calling CreateCapacityReservationFleet to create resource: ", e));
+                                        log.warn(() -> String.format("Encountered an exception while calling CreateCapacityReservationFleet to create resource: %s", e));
                                         throw e;
                                     }
-                                })
-                                .stabilize((awsRequest, awsResponse, client, model, context) -> {
+                                }))
+                                .stabilize((awsRequest, awsResponse, client, model, context) -> traced(callGraph, HandlerTracing.STABILIZE_POLL, () -> {
                                     boolean stabilized = false;
                                     try {
-                                        logger.log(String.format("[INFO] stabilizing. crFleet %s is in state - %s ", awsResponse.capacityReservationFleetId(), awsResponse.state()));
+                                        log.info(() -> String.format("stabilizing. crFleet %s is in state - %s ", awsResponse.capacityReservationFleetId(), awsResponse.state()));
                                         model.setCapacityReservationFleetId(awsResponse.capacityReservationFleetId());
-                                        final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, logger);
-                                        final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, proxyClient, logger);
+                                        final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, log);
+                                        final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, ec2Calls, log);
 
                                         if (describeCapacityReservationFleetsResponse.hasCapacityReservationFleets()) {
                                             final CapacityReservationFleet crFleet = describeCapacityReservationFleetsResponse.capacityReservationFleets().get(0);
-                                            stabilized = (CapacityReservationFleetState.ACTIVE.equals(crFleet.state()) || CapacityReservationFleetState.PARTIALLY_FULFILLED.equals(crFleet.state()));
-                                            logger.log(String.format("[INFO] cr fleet is in %s state. Stabilized: %s", crFleet.state(), stabilized));
+                                            stabilized = fulfillmentThreshold().isStabilized(crFleet, context, System.currentTimeMillis(), log);
+                                            log.info(String.format("cr fleet is in %s state with %s of %s capacity fulfilled. Stabilized: %s", crFleet.state(), crFleet.totalFulfilledCapacity(), crFleet.totalTargetCapacity(), stabilized));
                                         }
 
-                                        return stabilized;
+                                        if (stabilized) {
+                                            context.setStabilizedDescribeResponse(describeCapacityReservationFleetsResponse);
+                                        }
+
+                                        return endStabilizationPoll(callGraph, stabilized, model, context);
                                     } catch (final AwsServiceException ex) {
-                                        logger.log(String.format("[ERROR] A exception occurred during stabilization: %s", ex));
+                                        log.error(() -> String.format("A exception occurred during stabilization: %s", ex));
 
                                         if (isUnauthorizedException(ex)) {
-                                            logger.log(String.format("[INFO] User is missing permissions for DescribeCapacityReservationFleets during Update."));
+                                            log.warn("User is missing permissions for DescribeCapacityReservationFleets during Update.");
                                         }
 
                                         throw ex;
                                     }
-                                })
-                                .handleError((awsRequest, exception, client, model, context) -> Translator.translateToFailure(exception))
+                                }))
+                                .handleError((awsRequest, exception, client, model, context) -> traced(callGraph, HandlerTracing.ERROR_HANDLING, () -> handleServiceCallError(exception, model, context)))
                                 .progress())
-                .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+                .then(progress -> readAfterStabilization(proxy, request, progress.getCallbackContext(), proxyClient, log)));
     }
 }
@@ -25,67 +25,73 @@ public class DeleteHandler extends BaseHandlerStd {
             final ProxyClient<Ec2Client> proxyClient,
             final Logger logger) {
 
-        this.logger = logger;
+        final HandlerLogger log = HandlerLogger.of(logger);
+        this.logger = log;
+        final Ec2Calls ec2Calls = ec2Calls(proxy, request, callbackContext, proxyClient);
+        final String existCallGraph = CALL_GRAPH_PREFIX + "Delete-exist";
+        final String deleteCallGraph = CALL_GRAPH_PREFIX + "Delete-delete";
 
-        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
-                .then(progress ->
-                        proxy.initiate("AWS-EC2-CapacityReservationFleet::Delete-exist", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                                .translateToServiceRequest((model) -> Translator.translateToReadRequest(model, logger))
-                                .makeServiceCall((describeRequest, ec2ClientProxyClient) -> describeCapacityReservationFleets(describeRequest, ec2ClientProxyClient, logger))
-                                .handleError((awsRequest, exception, client, model, context) -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context))
+        return resumable(request.getDesiredResourceState(), callbackContext, () -> ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+                // a re-invocation after a stabilization yield resumes at the stabilize step of the delete chain
+                .then(progress -> isResumingStabilization(progress.getCallbackContext(), deleteCallGraph) ? progress :
+                        proxy.initiate(existCallGraph, proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                                .translateToServiceRequest((model) -> traced(existCallGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToReadRequest(model, log)))
+                                .makeServiceCall((describeRequest, ec2ClientProxyClient) -> traced(existCallGraph, HandlerTracing.SERVICE_CALL, () -> describeCapacityReservationFleets(describeRequest, ec2Calls, log)))
+                                .handleError((awsRequest, exception, client, model, context) -> traced(existCallGraph, HandlerTracing.ERROR_HANDLING, () -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context)))
                                 .done((describeFleetsRequest, describeFleetsResponse, client, model, context) ->
-                                        Translator.translateToResourceFoundProgress(describeFleetsResponse, logger, context, model, false)))
+                                        Translator.translateToResourceFoundProgress(describeFleetsResponse, log, context, model, false)))
                 .then(progress ->
-                        proxy.initiate("AWS-EC2-CapacityReservationFleet::Delete-delete", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                                .translateToServiceRequest((model) -> Translator.translateToDeleteRequest(model, logger))
-                                .makeServiceCall((awsRequest, client) -> {
+                        proxy.initiate(deleteCallGraph, proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                                .translateToServiceRequest((model) -> traced(deleteCallGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToDeleteRequest(model, log)))
+                                .backoffDelay(stabilizationDelay(progress.getResourceModel(), progress.getCallbackContext()))
+                                .makeServiceCall((awsRequest, client) -> traced(deleteCallGraph, HandlerTracing.SERVICE_CALL, () -> {
                                     CancelCapacityReservationFleetsResponse response = null;
                                     final String crFleetId = awsRequest.capacityReservationFleetIds().get(0);
 
                                     try {
-                                        logger.log(String.format("[INFO] Calling CancelCapacityReservationFleets: %s", awsRequest));
-                                        response = proxyClient.injectCredentialsAndInvokeV2(awsRequest, proxyClient.client()::cancelCapacityReservationFleets);
-                                        logger.log(String.format("[INFO] Successfully cancelled CRFleet: %s", crFleetId));
+                                        log.debug(() -> String.format("Calling CancelCapacityReservationFleets: %s", awsRequest));
+                                        response = ec2Calls.joinRetrying(() -> ec2Calls.cancelCapacityReservationFleets(awsRequest));
+                                        log.info(() -> String.format("Successfully cancelled CRFleet: %s", crFleetId));
 
                                         return response;
                                     } catch (final AwsServiceException e) {
-                                        logger.log(String.format("[INFO] CancelCapacityFleets for fleet %s threw an exception: %s", crFleetId, e));
+                                        log.warn(() -> String.format("CancelCapacityFleets for fleet %s threw an exception: %s", crFleetId, e));
 
                                         throw e;
                                     }
-                                })
-                                .stabilize((awsRequest, awsResponse, client, model, context) -> {
+                                }))
+                                .stabilize((awsRequest, awsResponse, client, model, context) -> traced(deleteCallGraph, HandlerTracing.STABILIZE_POLL, () -> {
                                     boolean stabilized = false;
                                     try {
                                         if (awsResponse == null) {
                                             throw new CfnNotStabilizedException(ResourceModel.TYPE_NAME, awsRequest.capacityReservationFleetIds().get(0));
                                         } else if (awsResponse.hasFailedFleetCancellations() && awsResponse.failedFleetCancellations().size() > 0) {
-                                            logger.log("[ERROR] CR Fleet cancellation failed: " + awsResponse.failedFleetCancellations());
+                                            log.error(() -> "CR Fleet cancellation failed: " + awsResponse.failedFleetCancellations());
                                             throw AwsServiceException.builder().awsErrorDetails(AwsErrorDetails.builder()
                                                     .errorMessage("CancelCapacityReservationFleets failed.").build()).statusCode(500).build();
                                         }
 
-                                        final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, logger);
-                                        final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, proxyClient, logger);
+                                        final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, log);
+                                        final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, ec2Calls, log);
 
                                         if (describeCapacityReservationFleetsResponse.hasCapacityReservationFleets()) {
                                             final CapacityReservationFleet crFleet = describeCapacityReservationFleetsResponse.capacityReservationFleets().get(0);
                                             stabilized = CapacityReservationFleetState.CANCELLED.equals(crFleet.state());
-                                            logger.log(String.format("[INFO] Cancel requested cr fleet is in %s state. Stabilized: %s", crFleet.state(), stabilized));
+                                            log.info(String.format("Cancel requested cr fleet is in %s state. Stabilized: %s", crFleet.state(), stabilized));
                                         }
 
-                                        return stabilized;
+                                        return endStabilizationPoll(deleteCallGraph, stabilized, model, context);
                                     } catch (final AwsServiceException ex) {
-                                        logger.log(String.format("[ERROR] A exception occurred during stabilization: %s", ex));
+                                        log.error(() -> String.format("A exception occurred during stabilization: %s", ex));
 
                                         if (isUnauthorizedException(ex)) {
-                                            logger.log(String.format("[INFO] User is missing permissions for DescribeCapacityReservationFleets during Update."));
+                                            log.warn("User is missing permissions for DescribeCapacityReservationFleets during Update.");
                                         }
 
                                         throw ex;
                                     }
-                                })
-                                .handleError((awsRequest, exception, client, model, context) -> Translator.translateToFailure(exception))
-                                .done(response -> ProgressEvent.success(null, callbackContext)));
+                                }))
+                                .handleError((awsRequest, exception, client, model, context) -> traced(deleteCallGraph, HandlerTracing.ERROR_HANDLING, () -> handleServiceCallError(exception, model, context)))
+                                .done(response -> ProgressEvent.success(null, callbackContext))));
     }
 }
@@ -0,0 +1,347 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetResponse;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+/**
+ * EC2 calls of one handler invocation by call-graph stage and API. The calls are counted by a decorator around the
+ * ProxyClient of the invocation, so every path is covered: the call chains, Ec2Calls on either client, and each page
+ * the ListHandler fetches. The stage is the call graph without its prefix and the stage run by
+ * {@link BaseHandlerStd#traced}, e.g. Create/stabilize-poll, calls outside of a traced stage count for
+ * &lt;action&gt;/handler. The number of times each stage ran is kept as well, for budgets per stabilization poll.
+ *
+ * {@link BaseHandlerStd} opens the accounting of every invocation, binds it to the handler thread like
+ * {@link HandlerMetrics}, and adds the counts to the metrics document of the invocation as Ec2CallsByStage.
+ */
+final class Ec2CallAccounting {
+  static final String HANDLER_STAGE = "handler";
+  static final String DESCRIBE = "Describe";
+  static final String CREATE = "Create";
+  static final String MODIFY = "Modify";
+  static final String CANCEL = "Cancel";
+
+  private static final ThreadLocal<Ec2CallAccounting> CURRENT = new ThreadLocal<>();
+  private static final ThreadLocal<String> STAGE = new ThreadLocal<>();
+  private static final Ec2CallAccounting DETACHED = new Ec2CallAccounting(null);
+
+  private final String action;
+  private final Map<String, Map<String, Integer>> calls = new LinkedHashMap<>();
+  private final Map<String, Integer> runs = new LinkedHashMap<>();
+
+  private Ec2CallAccounting(final String action) {
+    this.action = action;
+  }
+
+  /**
+   * Starts the accounting of an invocation and binds it to the current thread until {@link #close}.
+   *
+   * @param action handler action, e.g. Create
+   * @return accounting of the invocation
+   */
+  static Ec2CallAccounting open(final String action) {
+    final Ec2CallAccounting accounting = new Ec2CallAccounting(action);
+    CURRENT.set(accounting);
+    return accounting;
+  }
+
+  /**
+   * @return accounting of the invocation running on this thread, or one that counts nothing outside of an invocation
+   */
+  static Ec2CallAccounting current() {
+    final Ec2CallAccounting accounting = CURRENT.get();
+    return accounting == null ? DETACHED : accounting;
+  }
+
+  void close() {
+    if (CURRENT.get() == this) {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Runs a stage of a call chain, calls made by the body are counted for that stage.
+   *
+   * @param callGraph call graph name passed to proxy.initiate
+   * @param stage one of the HandlerTracing stage constants
+   * @param body stage to run
+   * @return result of the stage
+   */
+  static <T> T stage(final String callGraph, final String stage, final Supplier<T> body) {
+    final String name = (callGraph.startsWith(BaseHandlerStd.CALL_GRAPH_PREFIX)
+            ? callGraph.substring(BaseHandlerStd.CALL_GRAPH_PREFIX.length()) : callGraph) + "/" + stage;
+    final String outer = STAGE.get();
+    STAGE.set(name);
+    current().ran(name);
+    try {
+      return body.get();
+    } finally {
+      if (outer == null) {
+        STAGE.remove();
+      } else {
+        STAGE.set(outer);
+      }
+    }
+  }
+
+  /**
+   * @param proxyClient proxy client of the invocation
+   * @return proxy client counting every call made through it in this accounting
+   */
+  ProxyClient<Ec2Client> account(final ProxyClient<Ec2Client> proxyClient) {
+    return this == DETACHED ? proxyClient : new AccountedProxyClient(proxyClient, this);
+  }
+
+  /**
+   * @param proxyClient async proxy client of the invocation
+   * @return async proxy client counting every call made through it in this accounting
+   */
+  ProxyClient<Ec2AsyncClient> accountAsync(final ProxyClient<Ec2AsyncClient> proxyClient) {
+    return this == DETACHED ? proxyClient : new AccountedAsyncProxyClient(proxyClient, this);
+  }
+
+  /**
+   * @param stage stage such as Create/stabilize-poll
+   * @param api Describe, Create, Modify or Cancel
+   * @return calls to the API made in the stage
+   */
+  synchronized int calls(final String stage, final String api) {
+    return calls.getOrDefault(stage, Collections.emptyMap()).getOrDefault(api, 0);
+  }
+
+  /**
+   * @param api Describe, Create, Modify or Cancel
+   * @return calls to the API made in the invocation
+   */
+  synchronized int calls(final String api) {
+    int total = 0;
+    for (final Map<String, Integer> stageCalls : calls.values()) {
+      total += stageCalls.getOrDefault(api, 0);
+    }
+    return total;
+  }
+
+  /**
+   * @param stage stage such as Create/stabilize-poll
+   * @return times the stage ran in the invocation
+   */
+  synchronized int runs(final String stage) {
+    return runs.getOrDefault(stage, 0);
+  }
+
+  /**
+   * @return calls by stage and API, in the order they were first made
+   */
+  synchronized Map<String, Map<String, Integer>> callsByStage() {
+    final Map<String, Map<String, Integer>> copy = new LinkedHashMap<>();
+    calls.forEach((stage, stageCalls) -> copy.put(stage, new LinkedHashMap<>(stageCalls)));
+    return copy;
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder summary = new StringBuilder();
+    calls.forEach((stage, stageCalls) -> {
+      summary.append(summary.length() == 0 ? "" : ", ").append(stage);
+      if (runs.containsKey(stage)) {
+        summary.append(" x").append(runs.get(stage));
+      }
+      summary.append(' ').append(stageCalls);
+    });
+    return summary.toString();
+  }
+
+  private synchronized void ran(final String stage) {
+    if (this != DETACHED) {
+      runs.merge(stage, 1, Integer::sum);
+    }
+  }
+
+  private synchronized void record(final String api) {
+    final String stage = STAGE.get();
+    calls.computeIfAbsent(stage != null ? stage : action + "/" + HANDLER_STAGE, key -> new LinkedHashMap<>())
+            .merge(api, 1, Integer::sum);
+  }
+
+  private static String api(final AwsRequest request) {
+    if (request instanceof DescribeCapacityReservationFleetsRequest) {
+      return DESCRIBE;
+    } else if (request instanceof CreateCapacityReservationFleetRequest) {
+      return CREATE;
+    } else if (request instanceof ModifyCapacityReservationFleetRequest) {
+      return MODIFY;
+    } else if (request instanceof CancelCapacityReservationFleetsRequest) {
+      return CANCEL;
+    }
+    return request.getClass().getSimpleName().replace("Request", "");
+  }
+
+  /**
+   * Counts the calls on the client, which the call functions passed to the proxy client are bound to.
+   */
+  private static final class AccountedProxyClient implements ProxyClient<Ec2Client> {
+    private final ProxyClient<Ec2Client> proxyClient;
+    private final Ec2CallAccounting accounting;
+
+    private AccountedProxyClient(final ProxyClient<Ec2Client> proxyClient, final Ec2CallAccounting accounting) {
+      this.proxyClient = proxyClient;
+      this.accounting = accounting;
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+            final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+      return proxyClient.injectCredentialsAndInvokeV2(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> injectCredentialsAndInvokeV2Async(
+            final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+      return proxyClient.injectCredentialsAndInvokeV2Async(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse, IterableT extends SdkIterable<ResponseT>> IterableT injectCredentialsAndInvokeIterableV2(
+            final RequestT request, final Function<RequestT, IterableT> requestFunction) {
+      return proxyClient.injectCredentialsAndInvokeIterableV2(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseInputStream<ResponseT> injectCredentialsAndInvokeV2InputStream(
+            final RequestT request, final Function<RequestT, ResponseInputStream<ResponseT>> requestFunction) {
+      return proxyClient.injectCredentialsAndInvokeV2InputStream(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseBytes<ResponseT> injectCredentialsAndInvokeV2Bytes(
+            final RequestT request, final Function<RequestT, ResponseBytes<ResponseT>> requestFunction) {
+      return proxyClient.injectCredentialsAndInvokeV2Bytes(request, requestFunction);
+    }
+
+    @Override
+    public Ec2Client client() {
+      return new AccountedClient(proxyClient.client(), accounting);
+    }
+  }
+
+  /**
+   * Counts the calls as they are handed to the async client.
+   */
+  private static final class AccountedAsyncProxyClient implements ProxyClient<Ec2AsyncClient> {
+    private final ProxyClient<Ec2AsyncClient> proxyClient;
+    private final Ec2CallAccounting accounting;
+
+    private AccountedAsyncProxyClient(final ProxyClient<Ec2AsyncClient> proxyClient, final Ec2CallAccounting accounting) {
+      this.proxyClient = proxyClient;
+      this.accounting = accounting;
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+            final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+      accounting.record(api(request));
+      return proxyClient.injectCredentialsAndInvokeV2(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> injectCredentialsAndInvokeV2Async(
+            final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+      accounting.record(api(request));
+      return proxyClient.injectCredentialsAndInvokeV2Async(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse, IterableT extends SdkIterable<ResponseT>> IterableT injectCredentialsAndInvokeIterableV2(
+            final RequestT request, final Function<RequestT, IterableT> requestFunction) {
+      accounting.record(api(request));
+      return proxyClient.injectCredentialsAndInvokeIterableV2(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseInputStream<ResponseT> injectCredentialsAndInvokeV2InputStream(
+            final RequestT request, final Function<RequestT, ResponseInputStream<ResponseT>> requestFunction) {
+      accounting.record(api(request));
+      return proxyClient.injectCredentialsAndInvokeV2InputStream(request, requestFunction);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseBytes<ResponseT> injectCredentialsAndInvokeV2Bytes(
+            final RequestT request, final Function<RequestT, ResponseBytes<ResponseT>> requestFunction) {
+      accounting.record(api(request));
+      return proxyClient.injectCredentialsAndInvokeV2Bytes(request, requestFunction);
+    }
+
+    @Override
+    public Ec2AsyncClient client() {
+      return proxyClient.client();
+    }
+  }
+
+  /**
+   * Counts the fleet APIs on the blocking client. The paginators are the defaults of {@link Ec2Client}, which call
+   * back into this client for every page.
+   */
+  private static final class AccountedClient implements Ec2Client {
+    private final Ec2Client client;
+    private final Ec2CallAccounting accounting;
+
+    private AccountedClient(final Ec2Client client, final Ec2CallAccounting accounting) {
+      this.client = client;
+      this.accounting = accounting;
+    }
+
+    @Override
+    public String serviceName() {
+      return client.serviceName();
+    }
+
+    @Override
+    public void close() {
+      client.close();
+    }
+
+    @Override
+    public DescribeCapacityReservationFleetsResponse describeCapacityReservationFleets(final DescribeCapacityReservationFleetsRequest request) {
+      accounting.record(DESCRIBE);
+      return client.describeCapacityReservationFleets(request);
+    }
+
+    @Override
+    public CreateCapacityReservationFleetResponse createCapacityReservationFleet(final CreateCapacityReservationFleetRequest request) {
+      accounting.record(CREATE);
+      return client.createCapacityReservationFleet(request);
+    }
+
+    @Override
+    public ModifyCapacityReservationFleetResponse modifyCapacityReservationFleet(final ModifyCapacityReservationFleetRequest request) {
+      accounting.record(MODIFY);
+      return client.modifyCapacityReservationFleet(request);
+    }
+
+    @Override
+    public CancelCapacityReservationFleetsResponse cancelCapacityReservationFleets(final CancelCapacityReservationFleetsRequest request) {
+      accounting.record(CANCEL);
+      return client.cancelCapacityReservationFleets(request);
+    }
+  }
+}
@@ -0,0 +1,397 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetResponse;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+/**
+ * EC2 calls issued by the handlers, returned as futures. The blocking implementation runs the call on the
+ * {@link Ec2Client} and returns a completed future, the asynchronous one hands the call to the {@link Ec2AsyncClient}
+ * so that independent calls can be started together and joined later.
+ *
+ * Every call is recorded in the {@link HandlerMetrics} of the invocation that issued it.
+ */
+public abstract class Ec2Calls {
+
+  public static Ec2Calls sync(final ProxyClient<Ec2Client> proxyClient) {
+    return new SyncCalls(proxyClient);
+  }
+
+  public static Ec2Calls async(final ProxyClient<Ec2AsyncClient> proxyClient) {
+    return new AsyncCalls(proxyClient);
+  }
+
+  /**
+   * Calls that wait for a token of the limiter before every call, Describe on the read budget and
+   * Create, Modify and Cancel on the mutate budget. A call whose token is too far away isn't made and the returned
+   * future fails with {@link Ec2RateLimiter.WaitExceededException}.
+   *
+   * @param calls calls to limit
+   * @param limiter limiter of the account and region
+   * @return rate limited calls
+   */
+  static Ec2Calls rateLimited(final Ec2Calls calls, final Ec2RateLimiter limiter) {
+    return new RateLimitedCalls(calls, limiter);
+  }
+
+  /**
+   * Calls guarded by the circuit breaker. While the breaker is open the returned futures fail right away with
+   * {@link Ec2CircuitBreaker.OpenException} and no call is made. A call retried by {@link Ec2Retry} counts once
+   * towards the failures that open the breaker.
+   *
+   * @param calls calls to guard
+   * @param breaker breaker of the account and region
+   * @return guarded calls
+   */
+  static Ec2Calls circuitBroken(final Ec2Calls calls, final Ec2CircuitBreaker breaker) {
+    return new CircuitBrokenCalls(calls, breaker);
+  }
+
+  /**
+   * Calls whose Describe and Cancel are retried on throttling by {@link #joinRetrying}.
+   *
+   * @param calls calls to retry
+   * @param retry retry of the invocation
+   * @return retried calls
+   */
+  static Ec2Calls retried(final Ec2Calls calls, final Ec2Retry retry) {
+    return new RetriedCalls(calls, retry);
+  }
+
+  public abstract boolean isAsync();
+
+  /**
+   * @return retry of the idempotent calls, {@link Ec2Retry#NONE} unless the calls are {@link #retried}
+   */
+  Ec2Retry retry() {
+    return Ec2Retry.NONE;
+  }
+
+  public abstract CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+          DescribeCapacityReservationFleetsRequest request);
+
+  public abstract CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+          CreateCapacityReservationFleetRequest request);
+
+  public abstract CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+          ModifyCapacityReservationFleetRequest request);
+
+  public abstract CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+          CancelCapacityReservationFleetsRequest request);
+
+  /**
+   * Waits for a call and rethrows the exception it failed with, so callers and the handleError steps of the call
+   * chains see the same SdkException as on the blocking path instead of a CompletionException.
+   *
+   * @param future pending call
+   * @return response of the call
+   */
+  public static <ResponseT> ResponseT join(final CompletableFuture<ResponseT> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Issues an idempotent call, Describe or Cancel, and waits for it like {@link #join}, re-issuing it while EC2
+   * throttles it as far as the {@link Ec2Retry} of these calls allows.
+   *
+   * @param call issues the call
+   * @return response of the call
+   */
+  public <ResponseT> ResponseT joinRetrying(final Supplier<CompletableFuture<ResponseT>> call) {
+    return joinRetrying(call.get(), call);
+  }
+
+  /**
+   * Like {@link #joinRetrying(Supplier)} for a call that was already issued, e.g. one of a batch started together.
+   *
+   * @param pending first attempt of the call
+   * @param call issues the call again
+   * @return response of the call
+   */
+  public <ResponseT> ResponseT joinRetrying(final CompletableFuture<ResponseT> pending, final Supplier<CompletableFuture<ResponseT>> call) {
+    return retry().join(pending, call);
+  }
+
+  /**
+   * Issues a call and records its count, latency and throttling once it completes. The metrics are captured on the
+   * calling thread, since an async call completes on an SDK thread.
+   */
+  static <ResponseT> CompletableFuture<ResponseT> timed(final String api, final Supplier<CompletableFuture<ResponseT>> call) {
+    final HandlerMetrics metrics = HandlerMetrics.current();
+    final long startNanos = System.nanoTime();
+    return call.get().whenComplete((response, error) -> metrics.ec2Call(api, startNanos, error));
+  }
+
+  private static <ResponseT> CompletableFuture<ResponseT> failed(final Throwable exception) {
+    final CompletableFuture<ResponseT> failed = new CompletableFuture<>();
+    failed.completeExceptionally(exception);
+    return failed;
+  }
+
+  private static final class SyncCalls extends Ec2Calls {
+    private final ProxyClient<Ec2Client> proxyClient;
+
+    private SyncCalls(final ProxyClient<Ec2Client> proxyClient) {
+      this.proxyClient = proxyClient;
+    }
+
+    @Override
+    public boolean isAsync() {
+      return false;
+    }
+
+    @Override
+    public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+            final DescribeCapacityReservationFleetsRequest request) {
+      return timed("Describe", () -> invoke(request, proxyClient.client()::describeCapacityReservationFleets));
+    }
+
+    @Override
+    public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+            final CreateCapacityReservationFleetRequest request) {
+      return timed("Create", () -> invoke(request, proxyClient.client()::createCapacityReservationFleet));
+    }
+
+    @Override
+    public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+            final ModifyCapacityReservationFleetRequest request) {
+      return timed("Modify", () -> invoke(request, proxyClient.client()::modifyCapacityReservationFleet));
+    }
+
+    @Override
+    public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+            final CancelCapacityReservationFleetsRequest request) {
+      return timed("Cancel", () -> invoke(request, proxyClient.client()::cancelCapacityReservationFleets));
+    }
+
+    private <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> invoke(
+            final RequestT request, final Function<RequestT, ResponseT> call) {
+      try {
+        return CompletableFuture.completedFuture(proxyClient.injectCredentialsAndInvokeV2(request, call));
+      } catch (final RuntimeException e) {
+        return failed(e);
+      }
+    }
+  }
+
+  private static final class AsyncCalls extends Ec2Calls {
+    private final ProxyClient<Ec2AsyncClient> proxyClient;
+
+    private AsyncCalls(final ProxyClient<Ec2AsyncClient> proxyClient) {
+      this.proxyClient = proxyClient;
+    }
+
+    @Override
+    public boolean isAsync() {
+      return true;
+    }
+
+    @Override
+    public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+            final DescribeCapacityReservationFleetsRequest request) {
+      return timed("Describe", () -> proxyClient.injectCredentialsAndInvokeV2Async(request, proxyClient.client()::describeCapacityReservationFleets));
+    }
+
+    @Override
+    public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+            final CreateCapacityReservationFleetRequest request) {
+      return timed("Create", () -> proxyClient.injectCredentialsAndInvokeV2Async(request, proxyClient.client()::createCapacityReservationFleet));
+    }
+
+    @Override
+    public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+            final ModifyCapacityReservationFleetRequest request) {
+      return timed("Modify", () -> proxyClient.injectCredentialsAndInvokeV2Async(request, proxyClient.client()::modifyCapacityReservationFleet));
+    }
+
+    @Override
+    public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+            final CancelCapacityReservationFleetsRequest request) {
+      return timed("Cancel", () -> proxyClient.injectCredentialsAndInvokeV2Async(request, proxyClient.client()::cancelCapacityReservationFleets));
+    }
+  }
+
+  private static final class RateLimitedCalls extends Ec2Calls {
+    private final Ec2Calls calls;
+    private final Ec2RateLimiter limiter;
+
+    private RateLimitedCalls(final Ec2Calls calls, final Ec2RateLimiter limiter) {
+      this.calls = calls;
+      this.limiter = limiter;
+    }
+
+    @Override
+    public boolean isAsync() {
+      return calls.isAsync();
+    }
+
+    @Override
+    public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+            final DescribeCapacityReservationFleetsRequest request) {
+      return limited(limiter::acquireRead, () -> calls.describeCapacityReservationFleets(request));
+    }
+
+    @Override
+    public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+            final CreateCapacityReservationFleetRequest request) {
+      return limited(limiter::acquireMutation, () -> calls.createCapacityReservationFleet(request));
+    }
+
+    @Override
+    public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+            final ModifyCapacityReservationFleetRequest request) {
+      return limited(limiter::acquireMutation, () -> calls.modifyCapacityReservationFleet(request));
+    }
+
+    @Override
+    public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+            final CancelCapacityReservationFleetsRequest request) {
+      return limited(limiter::acquireMutation, () -> calls.cancelCapacityReservationFleets(request));
+    }
+
+    private <ResponseT> CompletableFuture<ResponseT> limited(final Runnable acquire, final Supplier<CompletableFuture<ResponseT>> call) {
+      try {
+        acquire.run();
+      } catch (final Ec2RateLimiter.WaitExceededException e) {
+        return failed(e);
+      }
+      return call.get();
+    }
+  }
+
+  private static final class CircuitBrokenCalls extends Ec2Calls {
+    private final Ec2Calls calls;
+    private final Ec2CircuitBreaker breaker;
+
+    private CircuitBrokenCalls(final Ec2Calls calls, final Ec2CircuitBreaker breaker) {
+      this.calls = calls;
+      this.breaker = breaker;
+    }
+
+    @Override
+    public boolean isAsync() {
+      return calls.isAsync();
+    }
+
+    @Override
+    public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+            final DescribeCapacityReservationFleetsRequest request) {
+      return guarded(() -> calls.describeCapacityReservationFleets(request));
+    }
+
+    @Override
+    public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+            final CreateCapacityReservationFleetRequest request) {
+      return guarded(() -> calls.createCapacityReservationFleet(request));
+    }
+
+    @Override
+    public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+            final ModifyCapacityReservationFleetRequest request) {
+      return guarded(() -> calls.modifyCapacityReservationFleet(request));
+    }
+
+    @Override
+    public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+            final CancelCapacityReservationFleetsRequest request) {
+      return guarded(() -> calls.cancelCapacityReservationFleets(request));
+    }
+
+    private <ResponseT> CompletableFuture<ResponseT> guarded(final Supplier<CompletableFuture<ResponseT>> call) {
+      final HandlerMetrics metrics = HandlerMetrics.current();
+      final Ec2CircuitBreaker.Listener listener = metrics::circuitBreakerTransition;
+      final boolean retry = Ec2Retry.isReissuing();
+
+      final boolean probe;
+      try {
+        probe = breaker.acquire(listener);
+      } catch (final Ec2CircuitBreaker.OpenException e) {
+        metrics.circuitBreakerRejection();
+        return failed(e);
+      }
+
+      final CompletableFuture<ResponseT> future;
+      try {
+        future = call.get();
+      } catch (final RuntimeException e) {
+        record(probe, retry, e, listener);
+        throw e;
+      }
+      return future.whenComplete((response, error) -> record(probe, retry, error, listener));
+    }
+
+    private void record(final boolean probe, final boolean retry, final Throwable error, final Ec2CircuitBreaker.Listener listener) {
+      if (retry) {
+        breaker.recordRetry(probe, error, listener);
+      } else {
+        breaker.record(probe, error, listener);
+      }
+    }
+  }
+
+  private static final class RetriedCalls extends Ec2Calls {
+    private final Ec2Calls calls;
+    private final Ec2Retry retry;
+
+    private RetriedCalls(final Ec2Calls calls, final Ec2Retry retry) {
+      this.calls = calls;
+      this.retry = retry;
+    }
+
+    @Override
+    public boolean isAsync() {
+      return calls.isAsync();
+    }
+
+    @Override
+    Ec2Retry retry() {
+      return retry;
+    }
+
+    @Override
+    public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(
+            final DescribeCapacityReservationFleetsRequest request) {
+      return calls.describeCapacityReservationFleets(request);
+    }
+
+    @Override
+    public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(
+            final CreateCapacityReservationFleetRequest request) {
+      return calls.createCapacityReservationFleet(request);
+    }
+
+    @Override
+    public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(
+            final ModifyCapacityReservationFleetRequest request) {
+      return calls.modifyCapacityReservationFleet(request);
+    }
+
+    @Override
+    public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(
+            final CancelCapacityReservationFleetsRequest request) {
+      return calls.cancelCapacityReservationFleets(request);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+/**
+ * Circuit breaker in front of the EC2 calls, one per account and region and shared by every invocation of the
+ * container. When EC2 is degraded every stabilization poll would otherwise still make a full SDK call with retries
+ * before failing.
+ *
+ *  - CLOSED: calls go through. A run of failureThreshold throttling or 5xx errors, classified like
+ *    {@link Translator#isServiceDegraded}, opens the breaker.
+ *  - OPEN: calls fail right away with {@link OpenException} until openDuration has passed. The mutating chains of the
+ *    handlers turn it into an in-progress event with a callback delay.
+ *  - HALF_OPEN: up to probes calls are let through. If all of them succeed the breaker closes, one degraded
+ *    response opens it again.
+ *
+ * Settings: CIRCUIT_BREAKER (default true), CIRCUIT_BREAKER_FAILURES (default 5), CIRCUIT_BREAKER_OPEN_SECONDS
+ * (default 30) and CIRCUIT_BREAKER_PROBES (default 1). Transitions are reported through the {@link Listener}.
+ */
+final class Ec2CircuitBreaker {
+  static final String CIRCUIT_BREAKER = "CIRCUIT_BREAKER";
+  static final String CIRCUIT_BREAKER_FAILURES = "CIRCUIT_BREAKER_FAILURES";
+  static final String CIRCUIT_BREAKER_OPEN_SECONDS = "CIRCUIT_BREAKER_OPEN_SECONDS";
+  static final String CIRCUIT_BREAKER_PROBES = "CIRCUIT_BREAKER_PROBES";
+
+  private static final Duration PROBE_RETRY_AFTER = Duration.ofSeconds(1);
+  private static final ConcurrentMap<String, Ec2CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  @FunctionalInterface
+  interface Listener {
+    void onTransition(State from, State to);
+  }
+
+  /**
+   * Thrown instead of making a call while the breaker is open.
+   */
+  static final class OpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    OpenException(final Duration retryAfter) {
+      super(String.format("EC2 calls are suspended for %d seconds after repeated throttling or server errors", retryAfter.getSeconds()));
+      this.retryAfter = retryAfter;
+    }
+
+    Duration getRetryAfter() {
+      return retryAfter;
+    }
+  }
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final int probes;
+  private final LongSupplier nanoClock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+  private int probesInFlight;
+  private int probeSuccesses;
+
+  Ec2CircuitBreaker(final int failureThreshold, final Duration openDuration, final int probes, final LongSupplier nanoClock) {
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openDuration = openDuration;
+    this.probes = Math.max(1, probes);
+    this.nanoClock = nanoClock;
+  }
+
+  static boolean isEnabled() {
+    return HandlerSettings.getBoolean(CIRCUIT_BREAKER, true);
+  }
+
+  /**
+   * @param awsAccountId account of the invocation
+   * @param region region of the invocation
+   * @return breaker shared by all invocations for the account and region
+   */
+  static Ec2CircuitBreaker of(final String awsAccountId, final String region) {
+    return BREAKERS.computeIfAbsent(awsAccountId + "/" + region, key -> new Ec2CircuitBreaker(
+            HandlerSettings.getInt(CIRCUIT_BREAKER_FAILURES, 5),
+            Duration.ofSeconds(HandlerSettings.getLong(CIRCUIT_BREAKER_OPEN_SECONDS, 30)),
+            HandlerSettings.getInt(CIRCUIT_BREAKER_PROBES, 1),
+            System::nanoTime));
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Admits a call or rejects it while the breaker is open.
+   *
+   * @param listener notified of a transition to HALF_OPEN
+   * @return true if the call is a half-open probe, to be passed to {@link #record}
+   * @throws OpenException if the call must not be made
+   */
+  synchronized boolean acquire(final Listener listener) {
+    if (state == State.OPEN) {
+      final long remainingNanos = openDuration.toNanos() - (nanoClock.getAsLong() - openedAtNanos);
+      if (remainingNanos > 0) {
+        throw new OpenException(Duration.ofNanos(remainingNanos));
+      }
+      probesInFlight = 0;
+      probeSuccesses = 0;
+      transition(State.HALF_OPEN, listener);
+    }
+
+    if (state == State.HALF_OPEN) {
+      if (probesInFlight >= probes) {
+        throw new OpenException(PROBE_RETRY_AFTER);
+      }
+      probesInFlight++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records the outcome of an admitted call.
+   *
+   * @param probe value returned by {@link #acquire} for the call
+   * @param error exception the call failed with, null on success
+   * @param listener notified of a transition
+   */
+  synchronized void record(final boolean probe, final Throwable error, final Listener listener) {
+    if (isNotMade(error)) {
+      // a call the rate limiter turned away says nothing about EC2
+      if (probe && state == State.HALF_OPEN) {
+        probesInFlight--;
+      }
+      return;
+    }
+    final boolean degraded = isDegraded(error);
+
+    if (probe) {
+      if (state != State.HALF_OPEN) {
+        return;
+      }
+      probesInFlight--;
+      if (degraded) {
+        open(listener);
+      } else if (++probeSuccesses >= probes) {
+        consecutiveFailures = 0;
+        transition(State.CLOSED, listener);
+      }
+      return;
+    }
+
+    if (state != State.CLOSED) {
+      return;
+    }
+    if (!degraded) {
+      consecutiveFailures = 0;
+    } else if (++consecutiveFailures >= failureThreshold) {
+      open(listener);
+    }
+  }
+
+  /**
+   * Records the outcome of a retry of a call whose first attempt was already recorded. A degraded response isn't
+   * counted again, so that a call retried by {@link Ec2Retry} counts once towards failureThreshold however many
+   * attempts it took, while a successful retry ends the run of failures as usual.
+   *
+   * @param probe value returned by {@link #acquire} for the retry
+   * @param error exception the retry failed with, null on success
+   * @param listener notified of a transition
+   */
+  synchronized void recordRetry(final boolean probe, final Throwable error, final Listener listener) {
+    if (!probe && isDegraded(error)) {
+      return;
+    }
+    record(probe, error, listener);
+  }
+
+  private void open(final Listener listener) {
+    openedAtNanos = nanoClock.getAsLong();
+    transition(State.OPEN, listener);
+  }
+
+  private void transition(final State to, final Listener listener) {
+    final State from = state;
+    state = to;
+    listener.onTransition(from, to);
+  }
+
+  private static boolean isDegraded(final Throwable error) {
+    final Throwable cause = unwrap(error);
+    return cause instanceof AwsServiceException && Translator.isServiceDegraded((AwsServiceException) cause);
+  }
+
+  private static boolean isNotMade(final Throwable error) {
+    return unwrap(error) instanceof Ec2RateLimiter.WaitExceededException;
+  }
+
+  private static Throwable unwrap(final Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+}
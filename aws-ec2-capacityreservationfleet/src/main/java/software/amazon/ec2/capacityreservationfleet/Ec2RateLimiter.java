@@ -0,0 +1,170 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side token buckets in front of the EC2 calls, one pair per account and region and shared by every
+ * invocation and thread of the container. EC2 throttles the fleet APIs per account with separate buckets for
+ * non-mutating and mutating actions, so Describe calls and Create/Modify/Cancel calls draw from separate budgets.
+ * A call that finds its bucket empty waits for the refill instead of being rejected with RequestLimitExceeded.
+ * A call that would have to wait longer than maxWait isn't made and fails with {@link WaitExceededException}
+ * instead, which the mutating chains of the handlers turn into an in-progress event with a callback delay, so an
+ * invocation never sleeps through a backlog of the whole container.
+ *
+ * Settings: RATE_LIMIT (default true), RATE_LIMIT_READ_PER_SECOND and RATE_LIMIT_READ_BURST (default 20 and 50),
+ * RATE_LIMIT_MUTATE_PER_SECOND and RATE_LIMIT_MUTATE_BURST (default 5 and 10), RATE_LIMIT_MAX_WAIT_MS
+ * (default 5000).
+ */
+final class Ec2RateLimiter {
+  static final String RATE_LIMIT = "RATE_LIMIT";
+  static final String RATE_LIMIT_READ_PER_SECOND = "RATE_LIMIT_READ_PER_SECOND";
+  static final String RATE_LIMIT_READ_BURST = "RATE_LIMIT_READ_BURST";
+  static final String RATE_LIMIT_MUTATE_PER_SECOND = "RATE_LIMIT_MUTATE_PER_SECOND";
+  static final String RATE_LIMIT_MUTATE_BURST = "RATE_LIMIT_MUTATE_BURST";
+  static final String RATE_LIMIT_MAX_WAIT_MS = "RATE_LIMIT_MAX_WAIT_MS";
+
+  private static final ConcurrentMap<String, Ec2RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+  /**
+   * Thrown instead of making a call whose token is further away than the maxWait of its bucket, or whose wait for
+   * the token was interrupted.
+   */
+  static final class WaitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    WaitExceededException(final Duration retryAfter) {
+      super(String.format("EC2 calls are rate limited, the next token of the account and region is %d ms away", retryAfter.toMillis()));
+      this.retryAfter = retryAfter;
+    }
+
+    Duration getRetryAfter() {
+      return retryAfter;
+    }
+  }
+
+  private final TokenBucket reads;
+  private final TokenBucket mutations;
+
+  Ec2RateLimiter(final TokenBucket reads, final TokenBucket mutations) {
+    this.reads = reads;
+    this.mutations = mutations;
+  }
+
+  static boolean isEnabled() {
+    return HandlerSettings.getBoolean(RATE_LIMIT, true);
+  }
+
+  /**
+   * @param awsAccountId account of the invocation
+   * @param region region of the invocation
+   * @return limiter shared by all invocations for the account and region
+   */
+  static Ec2RateLimiter of(final String awsAccountId, final String region) {
+    return LIMITERS.computeIfAbsent(awsAccountId + "/" + region, key -> {
+      final Duration maxWait = Duration.ofMillis(HandlerSettings.getLong(RATE_LIMIT_MAX_WAIT_MS, 5_000));
+      return new Ec2RateLimiter(
+              new TokenBucket(HandlerSettings.getDouble(RATE_LIMIT_READ_PER_SECOND, 20), HandlerSettings.getDouble(RATE_LIMIT_READ_BURST, 50), maxWait),
+              new TokenBucket(HandlerSettings.getDouble(RATE_LIMIT_MUTATE_PER_SECOND, 5), HandlerSettings.getDouble(RATE_LIMIT_MUTATE_BURST, 10), maxWait));
+    });
+  }
+
+  /**
+   * Waits for a token of the Describe budget.
+   *
+   * @throws WaitExceededException if the token is further away than maxWait, or the wait is interrupted
+   */
+  void acquireRead() {
+    reads.acquire();
+  }
+
+  /**
+   * Waits for a token of the Create, Modify and Cancel budget.
+   *
+   * @throws WaitExceededException if the token is further away than maxWait, or the wait is interrupted
+   */
+  void acquireMutation() {
+    mutations.acquire();
+  }
+
+  static final class TokenBucket {
+    private final double permitsPerSecond;
+    private final double burst;
+    private final long maxWaitNanos;
+    private double tokens;
+    private long refilledAtNanos;
+
+    TokenBucket(final double permitsPerSecond, final double burst, final Duration maxWait) {
+      this(permitsPerSecond, burst, maxWait, System.nanoTime());
+    }
+
+    TokenBucket(final double permitsPerSecond, final double burst, final Duration maxWait, final long nowNanos) {
+      this.permitsPerSecond = Math.max(permitsPerSecond, 0.001);
+      this.burst = Math.max(burst, 1);
+      this.maxWaitNanos = Math.max(0, maxWait.toNanos());
+      this.tokens = this.burst;
+      this.refilledAtNanos = nowNanos;
+    }
+
+    /**
+     * Takes a token, borrowing against the refill when the bucket is empty so that waiting callers are served
+     * in order. A token that would be further away than maxWait isn't taken, so the backlog the bucket borrows
+     * against is bounded by maxWait.
+     *
+     * @param nowNanos System.nanoTime() of the call
+     * @return nanoseconds the caller has to wait before its call
+     * @throws WaitExceededException if the caller would have to wait longer than maxWait
+     */
+    synchronized long reserve(final long nowNanos) {
+      final double refill = (nowNanos - refilledAtNanos) / (double) TimeUnit.SECONDS.toNanos(1) * permitsPerSecond;
+      tokens = Math.min(burst, tokens + Math.max(0, refill));
+      refilledAtNanos = Math.max(refilledAtNanos, nowNanos);
+
+      if (tokens >= 1) {
+        tokens -= 1;
+        return 0;
+      }
+      final long waitNanos = (long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+      if (waitNanos > maxWaitNanos) {
+        throw new WaitExceededException(Duration.ofNanos(waitNanos - maxWaitNanos));
+      }
+      tokens -= 1;
+      return waitNanos;
+    }
+
+    void acquire() {
+      final long waitNanos;
+      try {
+        waitNanos = reserve(System.nanoTime());
+      } catch (final WaitExceededException e) {
+        HandlerMetrics.current().rateLimitRejection();
+        throw e;
+      }
+      if (waitNanos <= 0) {
+        return;
+      }
+
+      HandlerMetrics.current().rateLimitWait(waitNanos);
+      final long deadlineNanos = System.nanoTime() + waitNanos;
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (final InterruptedException e) {
+        // the call isn't made: its token goes back to the bucket and it fails like a call that got no token
+        Thread.currentThread().interrupt();
+        release();
+        throw new WaitExceededException(Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime())));
+      }
+    }
+
+    /**
+     * Gives back a token taken by {@link #reserve} for a call that isn't made.
+     */
+    synchronized void release() {
+      tokens = Math.min(burst, tokens + 1);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+/**
+ * In-handler retry of the idempotent EC2 calls, Describe and Cancel, when EC2 throttles them after the SDK has used
+ * up its own retries. Without it a single RequestLimitExceeded on a stabilization poll fails the operation with
+ * Throttling, and rolls back a create that already reserved capacity.
+ *
+ *  - delays use decorrelated jitter: each one is drawn between baseDelay and three times the previous delay,
+ *    capped at maxDelay, so the invocations throttled together spread out instead of retrying in lockstep
+ *  - a call is attempted at most maxAttempts times
+ *  - an invocation may wait at most budget in total across all of its retries. A retry whose delay doesn't fit in
+ *    what is left of the budget isn't made and the throttling error is surfaced, so retries never eat into the time
+ *    the invocation needs to hand the operation back to CloudFormation.
+ *
+ * One instance is created per invocation by {@link BaseHandlerStd#handleRequest} and kept in the CallbackContext, so
+ * the ReadHandler of the final read shares its budget. Retries are made on the thread that joins the call, where the
+ * metrics and EC2 call accounting of the invocation are bound. The attempts after the first are issued with
+ * {@link #isReissuing()} set, so that the circuit breaker counts a retried call once.
+ *
+ * Settings: RETRY (default true), RETRY_MAX_ATTEMPTS (default 4), RETRY_BASE_DELAY_MS (default 200),
+ * RETRY_MAX_DELAY_MS (default 5000) and RETRY_BUDGET_SECONDS (default 20).
+ */
+final class Ec2Retry {
+  static final String RETRY = "RETRY";
+  static final String RETRY_MAX_ATTEMPTS = "RETRY_MAX_ATTEMPTS";
+  static final String RETRY_BASE_DELAY_MS = "RETRY_BASE_DELAY_MS";
+  static final String RETRY_MAX_DELAY_MS = "RETRY_MAX_DELAY_MS";
+  static final String RETRY_BUDGET_SECONDS = "RETRY_BUDGET_SECONDS";
+
+  static final Ec2Retry NONE = new Ec2Retry(1, Duration.ZERO, Duration.ZERO, Duration.ZERO, Thread::sleep, () -> 0);
+
+  private static final ThreadLocal<Boolean> REISSUING = new ThreadLocal<>();
+
+  @FunctionalInterface
+  interface Sleeper {
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final Sleeper sleeper;
+  private final DoubleSupplier random;
+
+  private long remainingBudgetMillis;
+
+  Ec2Retry(final int maxAttempts,
+           final Duration baseDelay,
+           final Duration maxDelay,
+           final Duration budget,
+           final Sleeper sleeper,
+           final DoubleSupplier random) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelayMillis = Math.max(1, baseDelay.toMillis());
+    this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelay.toMillis());
+    this.remainingBudgetMillis = budget.toMillis();
+    this.sleeper = sleeper;
+    this.random = random;
+  }
+
+  static boolean isEnabled() {
+    return HandlerSettings.getBoolean(RETRY, true);
+  }
+
+  /**
+   * @return retry of a new invocation, with the full budget
+   */
+  static Ec2Retry fromSettings() {
+    return new Ec2Retry(
+            HandlerSettings.getInt(RETRY_MAX_ATTEMPTS, 4),
+            Duration.ofMillis(HandlerSettings.getLong(RETRY_BASE_DELAY_MS, 200)),
+            Duration.ofMillis(HandlerSettings.getLong(RETRY_MAX_DELAY_MS, 5_000)),
+            Duration.ofSeconds(HandlerSettings.getLong(RETRY_BUDGET_SECONDS, 20)),
+            Thread::sleep,
+            () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * @param previousDelayMillis previous delay of the call, baseDelay before the first retry
+   * @return delay before the next retry
+   */
+  long nextDelayMillis(final long previousDelayMillis) {
+    final long upper = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis * 3));
+    return Math.min(maxDelayMillis, baseDelayMillis + (long) (random.getAsDouble() * (upper - baseDelayMillis)));
+  }
+
+  /**
+   * @return true while a retry of a throttled call is being issued on the current thread
+   */
+  static boolean isReissuing() {
+    return REISSUING.get() != null;
+  }
+
+  synchronized long getRemainingBudgetMillis() {
+    return remainingBudgetMillis;
+  }
+
+  /**
+   * Waits for an idempotent call, re-issuing it while EC2 throttles it and the attempts and budget allow.
+   *
+   * @param pending first attempt of the call, already issued
+   * @param call issues the call again
+   * @return response of the call
+   * @throws AwsServiceException the error of the last attempt if it didn't succeed
+   */
+  <ResponseT> ResponseT join(final CompletableFuture<ResponseT> pending, final Supplier<CompletableFuture<ResponseT>> call) {
+    CompletableFuture<ResponseT> future = pending;
+    long delayMillis = baseDelayMillis;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return Ec2Calls.join(future);
+      } catch (final AwsServiceException e) {
+        if (!e.isThrottlingException() || maxAttempts == 1) {
+          throw e;
+        }
+        delayMillis = nextDelayMillis(delayMillis);
+        if (attempt >= maxAttempts || !reserve(delayMillis)) {
+          HandlerMetrics.current().ec2RetriesExhausted();
+          throw e;
+        }
+
+        HandlerMetrics.current().ec2Retry(delayMillis);
+        try {
+          sleeper.sleep(delayMillis);
+        } catch (final InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+        REISSUING.set(Boolean.TRUE);
+        try {
+          future = call.get();
+        } finally {
+          REISSUING.remove();
+        }
+      }
+    }
+  }
+
+  private synchronized boolean reserve(final long delayMillis) {
+    if (delayMillis > remainingBudgetMillis) {
+      return false;
+    }
+    remainingBudgetMillis -= delayMillis;
+    return true;
+  }
+}
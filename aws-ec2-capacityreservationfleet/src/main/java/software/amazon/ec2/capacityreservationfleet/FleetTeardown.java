@@ -0,0 +1,159 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+/**
+ * Cancels many fleets at once, for environment teardown outside of a CloudFormation stack operation.
+ *
+ * Fleets are cancelled CANCEL_MAX_IDS per CancelCapacityReservationFleets call and then stabilized together, one
+ * batched Describe per poll for all fleets still cancelling. Errors are mapped with the same Translator rules as
+ * the DeleteHandler, and every fleet gets its own {@link Result}.
+ */
+@lombok.Builder
+public class FleetTeardown {
+
+  public enum Outcome {
+    /** The fleet reached the cancelled state. */
+    CANCELLED,
+    /** EC2 doesn't know the fleet id. */
+    NOT_FOUND,
+    /** The cancel request for the fleet was rejected. */
+    FAILED,
+    /** The fleet was still cancelling when the polls ran out. */
+    TIMED_OUT
+  }
+
+  @lombok.Value
+  public static class Result {
+    String crFleetId;
+    Outcome outcome;
+    HandlerErrorCode errorCode;
+    String message;
+  }
+
+  @FunctionalInterface
+  public interface Sleeper {
+    void sleep(Duration duration) throws InterruptedException;
+  }
+
+  private final Ec2Calls ec2Calls;
+
+  private final Logger logger;
+
+  /**
+   * Delay between polls. Its maxAttempts bounds the number of polls.
+   */
+  @lombok.Builder.Default
+  private final StabilizationBackoff backoff = StabilizationBackoff.DEFAULT;
+
+  @lombok.Builder.Default
+  private final Sleeper sleeper = duration -> Thread.sleep(duration.toMillis());
+
+  /**
+   * Cancels the fleets and waits until all of them are cancelled or the polls run out.
+   *
+   * @param crFleetIds fleet ids, duplicates are cancelled once
+   * @return result per fleet id, in the order of the ids
+   * @throws InterruptedException if interrupted while waiting between polls
+   */
+  public Map<String, Result> teardown(final Collection<String> crFleetIds) throws InterruptedException {
+    final HandlerLogger log = HandlerLogger.of(logger);
+    final List<String> ids = new ArrayList<>(new LinkedHashSet<>(crFleetIds));
+    final Map<String, Result> results = new LinkedHashMap<>();
+    final Set<String> cancelling = new LinkedHashSet<>();
+
+    final List<List<String>> chunks = new ArrayList<>();
+    final List<CompletableFuture<CancelCapacityReservationFleetsResponse>> pending = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += Translator.CANCEL_MAX_IDS) {
+      final List<String> chunk = ids.subList(from, Math.min(from + Translator.CANCEL_MAX_IDS, ids.size()));
+      chunks.add(chunk);
+      pending.add(ec2Calls.cancelCapacityReservationFleets(Translator.translateToBatchDeleteRequest(chunk)));
+    }
+
+    for (int i = 0; i < chunks.size(); i++) {
+      final List<String> chunk = chunks.get(i);
+      try {
+        final CancelCapacityReservationFleetsResponse response = ec2Calls.joinRetrying(pending.get(i),
+                () -> ec2Calls.cancelCapacityReservationFleets(Translator.translateToBatchDeleteRequest(chunk)));
+        response.successfulFleetCancellations().forEach(cancellation -> cancelling.add(cancellation.capacityReservationFleetId()));
+        response.failedFleetCancellations().forEach(failure -> {
+          final AwsServiceException ex = AwsServiceException.builder()
+                  .awsErrorDetails(AwsErrorDetails.builder()
+                          .errorCode(failure.cancelCapacityReservationFleetError().code())
+                          .errorMessage(failure.cancelCapacityReservationFleetError().message())
+                          .build())
+                  .statusCode(400)
+                  .build();
+          results.put(failure.capacityReservationFleetId(), failed(failure.capacityReservationFleetId(), ex));
+        });
+      } catch (final SdkException e) {
+        log.warn(() -> String.format("CancelCapacityReservationFleets failed for %d fleets: %s", chunk.size(), e));
+        chunk.forEach(id -> results.put(id, failed(id, e)));
+      }
+    }
+    // ids EC2 reported neither way are left to the polls
+    ids.stream().filter(id -> !results.containsKey(id)).forEach(cancelling::add);
+
+    final CallbackContext context = new CallbackContext();
+    final Delay delay = backoff.delayFor(ResourceModel.builder().build(), context);
+    int poll = 0;
+    while (!cancelling.isEmpty()) {
+      final Duration wait = delay.nextDelay(poll++);
+      if (wait.isZero()) {
+        break;
+      }
+      sleeper.sleep(wait);
+
+      final Map<String, CapacityReservationFleet> fleets;
+      try {
+        fleets = BaseHandlerStd.describeFleetsById(cancelling, ec2Calls, log);
+      } catch (final SdkException e) {
+        log.warn(() -> String.format("Describe of cancelling fleets failed, retrying on the next poll: %s", e));
+        continue;
+      }
+      cancelling.removeIf(id -> {
+        final CapacityReservationFleet fleet = fleets.get(id);
+        if (fleet != null && !CapacityReservationFleetState.CANCELLED.equals(fleet.state())) {
+          return false;
+        }
+        // a cancelled fleet eventually disappears from Describe
+        results.put(id, new Result(id, Outcome.CANCELLED, null, null));
+        return true;
+      });
+      log.info(() -> String.format("Teardown poll %d, %d fleets still cancelling", context.getStabilizationAttempts(), cancelling.size()));
+    }
+
+    cancelling.forEach(id -> results.put(id, new Result(id, Outcome.TIMED_OUT, HandlerErrorCode.NotStabilized,
+            String.format("CRFleet %s is still cancelling", id))));
+
+    final Map<String, Result> ordered = new LinkedHashMap<>();
+    ids.forEach(id -> ordered.put(id, results.get(id)));
+    return ordered;
+  }
+
+  private static Result failed(final String crFleetId, final Exception exception) {
+    final ProgressEvent<ResourceModel, CallbackContext> failure = Translator.translateToFailure(exception);
+    final Outcome outcome = failure.getErrorCode() == HandlerErrorCode.NotFound ? Outcome.NOT_FOUND : Outcome.FAILED;
+
+    return new Result(crFleetId, outcome, failure.getErrorCode(), failure.getMessage());
+  }
+}
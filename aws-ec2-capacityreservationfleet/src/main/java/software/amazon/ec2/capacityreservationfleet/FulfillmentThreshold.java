@@ -0,0 +1,129 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+
+/**
+ * Capacity a fleet must have reserved before the stabilize step of Create and Update is done. Without a threshold a
+ * fleet is stabilized as soon as it is ACTIVE or PARTIALLY_FULFILLED, whatever its fulfilled capacity. With one, an
+ * ACTIVE or PARTIALLY_FULFILLED fleet is also polled until its totalFulfilledCapacity reaches every configured
+ * threshold, or until maxWait has passed since it was first seen in one of these states, after which it is
+ * stabilized with the capacity it has.
+ *
+ *  - percent: fulfilled share of totalTargetCapacity, e.g. 100 to block until the fleet is full
+ *  - capacity: absolute fulfilled capacity, capped at totalTargetCapacity
+ *
+ * A fleet still SUBMITTED or MODIFYING is never stabilized, since the final read rejects these states.
+ *
+ * Settings: FULFILLMENT_THRESHOLD_PERCENT and FULFILLMENT_THRESHOLD_CAPACITY (default 0, off) and
+ * FULFILLMENT_MAX_WAIT_SECONDS (default 3600).
+ */
+@lombok.Builder
+@lombok.Getter
+public class FulfillmentThreshold {
+  static final String FULFILLMENT_THRESHOLD_PERCENT = "FULFILLMENT_THRESHOLD_PERCENT";
+  static final String FULFILLMENT_THRESHOLD_CAPACITY = "FULFILLMENT_THRESHOLD_CAPACITY";
+  static final String FULFILLMENT_MAX_WAIT_SECONDS = "FULFILLMENT_MAX_WAIT_SECONDS";
+  static final long DEFAULT_MAX_WAIT_SECONDS = 3600;
+
+  public static final FulfillmentThreshold NONE = FulfillmentThreshold.builder().build();
+
+  @lombok.Builder.Default
+  private final double percent = 0;
+
+  @lombok.Builder.Default
+  private final double capacity = 0;
+
+  @lombok.Builder.Default
+  private final Duration maxWait = Duration.ofSeconds(DEFAULT_MAX_WAIT_SECONDS);
+
+  /**
+   * @return threshold configured by the FULFILLMENT_* settings
+   */
+  public static FulfillmentThreshold fromSettings() {
+    final double percent = HandlerSettings.getDouble(FULFILLMENT_THRESHOLD_PERCENT, 0);
+    final double capacity = HandlerSettings.getDouble(FULFILLMENT_THRESHOLD_CAPACITY, 0);
+    if (percent <= 0 && capacity <= 0) {
+      return NONE;
+    }
+
+    return FulfillmentThreshold.builder()
+            .percent(percent)
+            .capacity(capacity)
+            .maxWait(Duration.ofSeconds(HandlerSettings.getLong(FULFILLMENT_MAX_WAIT_SECONDS, DEFAULT_MAX_WAIT_SECONDS)))
+            .build();
+  }
+
+  public boolean isEnabled() {
+    return percent > 0 || capacity > 0;
+  }
+
+  /**
+   * @param crFleet fleet from a Describe response
+   * @return totalFulfilledCapacity / totalTargetCapacity, 1 for a fleet without target capacity
+   */
+  public static double fulfillment(final CapacityReservationFleet crFleet) {
+    final Integer target = crFleet.totalTargetCapacity();
+    if (target == null || target <= 0) {
+      return 1;
+    }
+    final Double fulfilled = crFleet.totalFulfilledCapacity();
+    return fulfilled == null ? 0 : fulfilled / target;
+  }
+
+  /**
+   * @param crFleet fleet from a Describe response
+   * @return true if the fulfilled capacity of the fleet reaches every configured threshold
+   */
+  public boolean isReached(final CapacityReservationFleet crFleet) {
+    if (percent > 0 && fulfillment(crFleet) * 100 < percent) {
+      return false;
+    }
+    if (capacity > 0) {
+      final double fulfilled = crFleet.totalFulfilledCapacity() == null ? 0 : crFleet.totalFulfilledCapacity();
+      final double target = crFleet.totalTargetCapacity() == null ? capacity : Math.min(capacity, crFleet.totalTargetCapacity());
+      return fulfilled >= target;
+    }
+    return true;
+  }
+
+  /**
+   * Whether a stabilize poll that described the fleet is done.
+   *
+   * @param crFleet fleet from the Describe response of the poll
+   * @param context callback context holding the time the fleet was first seen ACTIVE or PARTIALLY_FULFILLED
+   * @param nowMillis current time in epoch milliseconds
+   * @param logger logger of the handler
+   * @return true if the fleet is stabilized
+   */
+  public boolean isStabilized(final CapacityReservationFleet crFleet,
+                              final CallbackContext context,
+                              final long nowMillis,
+                              final HandlerLogger logger) {
+    if (!CapacityReservationFleetState.ACTIVE.equals(crFleet.state())
+            && !CapacityReservationFleetState.PARTIALLY_FULFILLED.equals(crFleet.state())) {
+      return false;
+    }
+    if (!isEnabled() || isReached(crFleet)) {
+      context.setFulfillmentWaitStartMillis(0);
+      return true;
+    }
+
+    if (context.getFulfillmentWaitStartMillis() == 0) {
+      context.setFulfillmentWaitStartMillis(nowMillis);
+    }
+    final long waitedMillis = nowMillis - context.getFulfillmentWaitStartMillis();
+    if (waitedMillis >= maxWait.toMillis()) {
+      logger.warn(() -> String.format("CRFleet %s has %s of %s capacity fulfilled after waiting %d ms for the threshold, continuing.",
+              crFleet.capacityReservationFleetId(), crFleet.totalFulfilledCapacity(), crFleet.totalTargetCapacity(), waitedMillis));
+      context.setFulfillmentWaitStartMillis(0);
+      return true;
+    }
+
+    logger.info(() -> String.format("CRFleet %s has %s of %s capacity fulfilled, waiting for the threshold.",
+            crFleet.capacityReservationFleetId(), crFleet.totalFulfilledCapacity(), crFleet.totalTargetCapacity()));
+    return false;
+  }
+}
@@ -0,0 +1,94 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.function.Supplier;
+
+import software.amazon.cloudformation.proxy.Logger;
+
+/**
+ * Level-gated logger on top of the CloudFormation {@link Logger}.
+ *
+ * Messages are passed as suppliers and only built when their level is enabled, so dumping requests, responses
+ * and models at DEBUG costs nothing unless the log level is lowered through the LOG_LEVEL setting.
+ */
+public final class HandlerLogger implements Logger {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private final Logger delegate;
+    private final Level threshold;
+
+    HandlerLogger(final Logger delegate, final Level threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Wraps the logger handed to the handler, using the configured log level. Loggers that are already wrapped
+     * are returned as is, so passing a HandlerLogger down the call chain allocates nothing.
+     *
+     * @param logger CloudFormation logger
+     * @return level-gated logger
+     */
+    public static HandlerLogger of(final Logger logger) {
+        if (logger instanceof HandlerLogger) {
+            return (HandlerLogger) logger;
+        }
+        return new HandlerLogger(logger, HandlerSettings.logLevel());
+    }
+
+    public boolean isEnabled(final Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public void debug(final Supplier<String> message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void info(final String message) {
+        log(Level.INFO, message);
+    }
+
+    public void info(final Supplier<String> message) {
+        log(Level.INFO, message);
+    }
+
+    public void warn(final String message) {
+        log(Level.WARN, message);
+    }
+
+    public void warn(final Supplier<String> message) {
+        log(Level.WARN, message);
+    }
+
+    public void error(final String message) {
+        log(Level.ERROR, message);
+    }
+
+    public void error(final Supplier<String> message) {
+        log(Level.ERROR, message);
+    }
+
+    /**
+     * Messages logged through the plain {@link Logger} interface are treated as INFO and not prefixed.
+     */
+    @Override
+    public void log(final String message) {
+        if (isEnabled(Level.INFO)) {
+            delegate.log(message);
+        }
+    }
+
+    private void log(final Level level, final String message) {
+        if (isEnabled(level)) {
+            delegate.log("[" + level.name() + "] " + message);
+        }
+    }
+
+    private void log(final Level level, final Supplier<String> message) {
+        if (isEnabled(level)) {
+            delegate.log("[" + level.name() + "] " + message.get());
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+/**
+ * Metrics of one handler invocation, written to stdout as a single CloudWatch Embedded Metric Format document when
+ * the invocation ends. Lambda ships stdout to CloudWatch Logs, which extracts the metrics, so nothing is sent over
+ * the network from the handler.
+ *
+ * The metrics of the running invocation are bound to the handler thread by {@link BaseHandlerStd}, so static code
+ * such as the Translator records through {@link #current()}. Outside of an invocation, e.g. while priming,
+ * current() returns a scope that drops everything. Disabled with the METRICS setting (CRFLEET_METRICS=false).
+ *
+ * All metrics have the dimension Action (Create, Read, Update, Delete, List):
+ *
+ *  - Latency: end-to-end latency of the invocation
+ *  - ColdStart: 1 for the first invocation of the JVM, 0 otherwise
+ *  - &lt;Api&gt;Calls, &lt;Api&gt;Latency: count and latency of the Describe, Create, Modify and Cancel EC2 calls
+ *  - Throttles: EC2 calls rejected with a throttling error
+ *  - Retries, RetryWait: throttled Describe and Cancel calls retried by {@link Ec2Retry} and the time waited
+ *  - RetriesExhausted: throttling errors surfaced because the attempts or the retry budget ran out
+ *  - RateLimitWait: time spent waiting on the client-side rate limiter
+ *  - RateLimitRejections: EC2 calls not made because their rate limiter token was further away than its max wait
+ *  - CircuitBreaker.&lt;state&gt;: transitions of the EC2 circuit breaker into each state
+ *  - CircuitBreakerRejections: EC2 calls not made because the circuit breaker was open
+ *  - StabilizationAttempts: stabilization polls done by the invocation
+ *  - StabilizationYields: stabilizations handed back to CloudFormation after using up the in-invocation budget
+ *  - TimeInState.&lt;state&gt;: time the fleet was observed in each state
+ *  - Failures.&lt;errorCode&gt;: failures by handler error code
+ *
+ * The EC2 calls by call-graph stage and API, as counted by {@link Ec2CallAccounting}, are added to the document as
+ * the property Ec2CallsByStage.
+ */
+final class HandlerMetrics {
+  static final String METRICS = "METRICS";
+  static final String METRICS_NAMESPACE = "METRICS_NAMESPACE";
+  static final String DEFAULT_NAMESPACE = "CapacityReservationFleet";
+
+  static final String MILLISECONDS = "Milliseconds";
+  static final String COUNT = "Count";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ThreadLocal<HandlerMetrics> CURRENT = new ThreadLocal<>();
+  private static final AtomicBoolean COLD = new AtomicBoolean(true);
+  private static final HandlerMetrics DISABLED = new HandlerMetrics(null, null, null, false);
+
+  private final String action;
+  private final String namespace;
+  private final PrintStream out;
+  private final boolean coldStart;
+  private final long startNanos = System.nanoTime();
+  private final Map<String, String> units = new LinkedHashMap<>();
+  private final Map<String, List<Double>> values = new LinkedHashMap<>();
+  private final Map<String, Object> properties = new LinkedHashMap<>();
+
+  private String observedState;
+  private long observedAtNanos;
+
+  private HandlerMetrics(final String action, final String namespace, final PrintStream out, final boolean coldStart) {
+    this.action = action;
+    this.namespace = namespace;
+    this.out = out;
+    this.coldStart = coldStart;
+  }
+
+  static HandlerMetrics open(final String action) {
+    return open(action, System.out);
+  }
+
+  /**
+   * Starts the metrics of an invocation and binds them to the current thread until {@link #close}.
+   *
+   * @param action handler action, the value of the Action dimension
+   * @param out stream the EMF document is written to
+   * @return metrics of the invocation
+   */
+  static HandlerMetrics open(final String action, final PrintStream out) {
+    final boolean coldStart = COLD.getAndSet(false);
+    if (!HandlerSettings.getBoolean(METRICS, true)) {
+      return DISABLED;
+    }
+
+    final HandlerMetrics metrics = new HandlerMetrics(action, HandlerSettings.get(METRICS_NAMESPACE, DEFAULT_NAMESPACE), out, coldStart);
+    CURRENT.set(metrics);
+    return metrics;
+  }
+
+  /**
+   * @return metrics of the invocation running on this thread
+   */
+  static HandlerMetrics current() {
+    final HandlerMetrics metrics = CURRENT.get();
+    return metrics == null ? DISABLED : metrics;
+  }
+
+  private boolean isEnabled() {
+    return this != DISABLED;
+  }
+
+  /**
+   * Records a completed EC2 call. Called from the completion of the call, which runs on an SDK thread on the
+   * async client.
+   *
+   * @param api Describe, Create, Modify or Cancel
+   * @param callStartNanos System.nanoTime() when the call was issued
+   * @param error exception the call failed with, null on success
+   */
+  synchronized void ec2Call(final String api, final long callStartNanos, final Throwable error) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    put(api + "Calls", COUNT, 1);
+    put(api + "Latency", MILLISECONDS, millisSince(callStartNanos));
+
+    final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if (cause instanceof AwsServiceException && ((AwsServiceException) cause).isThrottlingException()) {
+      add("Throttles", COUNT, 1);
+    }
+  }
+
+  /**
+   * Records the state a Describe returned for the fleet. The time until the next observation, or until the
+   * invocation ends, is counted as time spent in that state.
+   *
+   * @param state fleet state as returned by EC2
+   */
+  synchronized void fleetState(final String state) {
+    if (!isEnabled() || state == null) {
+      return;
+    }
+
+    final long now = System.nanoTime();
+    recordTimeInState(now);
+    observedState = state;
+    observedAtNanos = now;
+  }
+
+  synchronized void rateLimitWait(final long waitNanos) {
+    if (isEnabled()) {
+      add("RateLimitWait", MILLISECONDS, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+  }
+
+  synchronized void rateLimitRejection() {
+    if (isEnabled()) {
+      add("RateLimitRejections", COUNT, 1);
+    }
+  }
+
+  synchronized void ec2Retry(final long delayMillis) {
+    if (isEnabled()) {
+      add("Retries", COUNT, 1);
+      add("RetryWait", MILLISECONDS, delayMillis);
+    }
+  }
+
+  synchronized void ec2RetriesExhausted() {
+    if (isEnabled()) {
+      add("RetriesExhausted", COUNT, 1);
+    }
+  }
+
+  synchronized void circuitBreakerTransition(final Ec2CircuitBreaker.State from, final Ec2CircuitBreaker.State to) {
+    if (isEnabled()) {
+      add("CircuitBreaker." + to.name(), COUNT, 1);
+      properties.put("CircuitBreakerState", to.name());
+    }
+  }
+
+  synchronized void circuitBreakerRejection() {
+    if (isEnabled()) {
+      add("CircuitBreakerRejections", COUNT, 1);
+    }
+  }
+
+  synchronized void stabilizationAttempts(final int attempts) {
+    if (isEnabled()) {
+      add("StabilizationAttempts", COUNT, attempts);
+    }
+  }
+
+  synchronized void stabilizationYield() {
+    if (isEnabled()) {
+      add("StabilizationYields", COUNT, 1);
+    }
+  }
+
+  synchronized void ec2CallsByStage(final Map<String, Map<String, Integer>> callsByStage) {
+    if (isEnabled() && !callsByStage.isEmpty()) {
+      properties.put("Ec2CallsByStage", callsByStage);
+    }
+  }
+
+  synchronized void failure(final HandlerErrorCode errorCode) {
+    if (!isEnabled() || errorCode == null) {
+      return;
+    }
+
+    add("Failures." + errorCode.name(), COUNT, 1);
+    properties.put("ErrorCode", errorCode.name());
+  }
+
+  /**
+   * Ends the invocation, writes its EMF document and unbinds the metrics from the thread.
+   *
+   * @param event result of the invocation, null if it threw
+   */
+  synchronized void close(final ProgressEvent<ResourceModel, CallbackContext> event) {
+    if (!isEnabled()) {
+      return;
+    }
+    CURRENT.remove();
+
+    recordTimeInState(System.nanoTime());
+    put("Latency", MILLISECONDS, millisSince(startNanos));
+    put("ColdStart", COUNT, coldStart ? 1 : 0);
+    properties.put("OperationStatus", event == null || event.getStatus() == null ? "EXCEPTION" : event.getStatus().name());
+
+    try {
+      out.println(MAPPER.writeValueAsString(document(System.currentTimeMillis())));
+    } catch (final JsonProcessingException e) {
+      // metrics are best effort and must never fail the invocation
+    }
+  }
+
+  Map<String, Object> document(final long timestamp) {
+    final List<Map<String, String>> metrics = new ArrayList<>();
+    units.forEach((name, unit) -> {
+      final Map<String, String> definition = new LinkedHashMap<>();
+      definition.put("Name", name);
+      definition.put("Unit", unit);
+      metrics.add(definition);
+    });
+
+    final Map<String, Object> directive = new LinkedHashMap<>();
+    directive.put("Namespace", namespace);
+    directive.put("Dimensions", Collections.singletonList(Collections.singletonList("Action")));
+    directive.put("Metrics", metrics);
+
+    final Map<String, Object> aws = new LinkedHashMap<>();
+    aws.put("Timestamp", timestamp);
+    aws.put("CloudWatchMetrics", Collections.singletonList(directive));
+
+    final Map<String, Object> document = new LinkedHashMap<>();
+    document.put("_aws", aws);
+    document.put("Action", action);
+    values.forEach((name, samples) -> document.put(name, samples.size() == 1 ? samples.get(0) : samples));
+    document.putAll(properties);
+    return document;
+  }
+
+  private void recordTimeInState(final long now) {
+    if (observedState != null) {
+      add("TimeInState." + observedState, MILLISECONDS, TimeUnit.NANOSECONDS.toMillis(now - observedAtNanos));
+    }
+  }
+
+  /**
+   * Adds a sample, a metric with several samples is written as an EMF value array.
+   */
+  private void put(final String name, final String unit, final double value) {
+    units.putIfAbsent(name, unit);
+    values.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+  }
+
+  /**
+   * Adds to the single value of a counter.
+   */
+  private void add(final String name, final String unit, final double value) {
+    units.putIfAbsent(name, unit);
+    final List<Double> samples = values.computeIfAbsent(name, key -> new ArrayList<>(Collections.singletonList(0d)));
+    samples.set(0, samples.get(0) + value);
+  }
+
+  private static double millisSince(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanos);
+  }
+}
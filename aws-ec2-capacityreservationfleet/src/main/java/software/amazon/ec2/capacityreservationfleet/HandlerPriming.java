@@ -0,0 +1,273 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.utils.IoUtils;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.resource.Serializer;
+
+/**
+ * Cold-start priming, run once per JVM from the static initializer of {@link BaseHandlerStd}.
+ *
+ * Lambda runs static initialization before the first invocation, so loading and exercising the code paths of a
+ * handler invocation here takes class loading and first-call initialization of the SDK EC2 model, its marshallers,
+ * Jackson and the Translator off the first request. All EC2 calls are answered by an in-process HTTP client with
+ * canned responses, nothing goes over the network. Disabled with the PRIMING setting (CRFLEET_PRIMING=false).
+ */
+final class HandlerPriming {
+  static final String PRIMING = "PRIMING";
+
+  private static final String CR_FLEET_ID = "crf-00000000000000000";
+  private static final String EC2_NAMESPACE = "http://ec2.amazonaws.com/doc/2016-11-15/";
+  private static final Map<String, String> CANNED_RESPONSES = new HashMap<>();
+
+  static {
+    CANNED_RESPONSES.put("DescribeCapacityReservationFleets",
+            "<capacityReservationFleetSet><item>"
+                    + "<capacityReservationFleetId>" + CR_FLEET_ID + "</capacityReservationFleetId>"
+                    + "<state>active</state>"
+                    + "<totalTargetCapacity>1</totalTargetCapacity>"
+                    + "<totalFulfilledCapacity>1.0</totalFulfilledCapacity>"
+                    + "<allocationStrategy>prioritized</allocationStrategy>"
+                    + "<instanceMatchCriteria>open</instanceMatchCriteria>"
+                    + "<tenancy>default</tenancy>"
+                    + "<instanceTypeSpecificationSet><item>"
+                    + "<instanceType>m5.large</instanceType><instancePlatform>Linux/UNIX</instancePlatform>"
+                    + "<availabilityZone>us-east-1a</availabilityZone><ebsOptimized>true</ebsOptimized>"
+                    + "<priority>0</priority><weight>1.0</weight>"
+                    + "</item></instanceTypeSpecificationSet>"
+                    + "<tagSet><item><key>priming</key><value>true</value></item></tagSet>"
+                    + "</item></capacityReservationFleetSet>");
+    CANNED_RESPONSES.put("CreateCapacityReservationFleet",
+            "<capacityReservationFleetId>" + CR_FLEET_ID + "</capacityReservationFleetId><state>submitted</state>");
+    CANNED_RESPONSES.put("ModifyCapacityReservationFleet", "<return>true</return>");
+    CANNED_RESPONSES.put("CancelCapacityReservationFleets",
+            "<successfulFleetCancellationSet><item>"
+                    + "<capacityReservationFleetId>" + CR_FLEET_ID + "</capacityReservationFleetId>"
+                    + "<currentFleetState>cancelling</currentFleetState><previousFleetState>active</previousFleetState>"
+                    + "</item></successfulFleetCancellationSet>");
+  }
+
+  private static final AtomicBoolean PRIMED = new AtomicBoolean();
+
+  private HandlerPriming() {
+  }
+
+  /**
+   * Primes the handler once. Priming is best effort, a failure only means the first invocation stays cold.
+   *
+   * @return true if this call primed the handler
+   */
+  static boolean prime() {
+    if (!HandlerSettings.getBoolean(PRIMING, true) || !PRIMED.compareAndSet(false, true)) {
+      return false;
+    }
+
+    try {
+      final HandlerLogger logger = new HandlerLogger(message -> { }, HandlerLogger.Level.ERROR);
+      final Ec2Client client = offlineClient();
+      final ResourceModel model = syntheticModel();
+      final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+              .desiredResourceState(model)
+              .previousResourceState(model)
+              .desiredResourceTags(Collections.singletonMap("stack", "priming"))
+              .systemTags(Collections.singletonMap("aws:cloudformation:stack-name", "priming"))
+              .logicalResourceIdentifier("CapacityReservationFleet")
+              .clientRequestToken("priming")
+              .region(Region.US_EAST_1.id())
+              .build();
+
+      primeTranslator(client, request, logger);
+      primeHandler(client, request, logger);
+      primeExceptions();
+      primeSerialization(model);
+      return true;
+    } catch (final RuntimeException | IOException e) {
+      return false;
+    }
+  }
+
+  private static void primeTranslator(
+          final Ec2Client client,
+          final ResourceHandlerRequest<ResourceModel> request,
+          final HandlerLogger logger) {
+    final ResourceModel model = request.getDesiredResourceState();
+
+    client.createCapacityReservationFleet(Translator.translateToCreateRequest(model, request, logger));
+    client.modifyCapacityReservationFleet(Translator.translateToUpdateRequest(model, logger));
+    client.cancelCapacityReservationFleets(Translator.translateToDeleteRequest(model, logger));
+
+    final DescribeCapacityReservationFleetsResponse response =
+            client.describeCapacityReservationFleets(Translator.translateToReadRequest(model, logger));
+    Translator.translateFromReadResponse(response, logger, model, true);
+    Translator.translateFromListRequest(client.describeCapacityReservationFleets(Translator.translateToListRequest(null)));
+    StabilizationBackoff.DEFAULT.delayFor(model, new CallbackContext()).nextDelay(0);
+  }
+
+  /**
+   * Runs a Read invocation through the framework call chain, which loads the proxy, call graph and progress event
+   * classes the handlers share. Its EC2 calls go straight to the offline client, without the rate limiter, circuit
+   * breaker and retry of {@link BaseHandlerStd#ec2Calls}, so that priming leaves no container-wide state behind and
+   * takes no tokens from the first invocations.
+   */
+  private static void primeHandler(
+          final Ec2Client client,
+          final ResourceHandlerRequest<ResourceModel> request,
+          final HandlerLogger logger) {
+    final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(new LoggerProxy(),
+            new Credentials("priming", "priming", "priming"), () -> Duration.ofMinutes(1).toMillis());
+
+    final ReadHandler handler = new ReadHandler() {
+      @Override
+      protected Ec2Calls ec2Calls(
+              final AmazonWebServicesClientProxy proxy,
+              final ResourceHandlerRequest<ResourceModel> request,
+              final CallbackContext callbackContext,
+              final ProxyClient<Ec2Client> proxyClient) {
+        return Ec2Calls.sync(proxyClient);
+      }
+    };
+    handler.handleRequest(proxy, request, new CallbackContext(), proxy.newProxy(() -> client), logger);
+  }
+
+  private static void primeExceptions() {
+    Translator.translateToFailure(serviceException("RequestLimitExceeded", 400));
+    Translator.translateToFailure(serviceException(Translator.INVALID_CR_FLEET_ID_NOT_FOUND, 400));
+    Translator.translateToFailure(serviceException(Translator.UNAUTHORIZED_CODE, 403));
+    Translator.translateToFailure(serviceException("InternalError", 500));
+    Translator.translateToFailure(new IllegalStateException("priming"));
+  }
+
+  private static void primeSerialization(final ResourceModel model) throws IOException {
+    final Serializer serializer = new Serializer();
+    serializer.deserialize(serializer.serialize(model), new TypeReference<ResourceModel>() { });
+    serializer.deserialize(serializer.serialize(new CallbackContext()), new TypeReference<CallbackContext>() { });
+  }
+
+  private static AwsServiceException serviceException(final String errorCode, final int statusCode) {
+    return AwsServiceException.builder()
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).errorMessage("priming").build())
+            .statusCode(statusCode)
+            .build();
+  }
+
+  private static ResourceModel syntheticModel() {
+    final HashSet<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>();
+    instanceTypeSpecifications.add(InstanceTypeSpecification.builder()
+            .instanceType("m5.large")
+            .instancePlatform("Linux/UNIX")
+            .availabilityZone("us-east-1a")
+            .ebsOptimized(true)
+            .priority(0)
+            .weight(1.0)
+            .build());
+
+    return ResourceModel.builder()
+            .capacityReservationFleetId(CR_FLEET_ID)
+            .allocationStrategy("prioritized")
+            .instanceMatchCriteria("open")
+            .tenancy("default")
+            .totalTargetCapacity(1)
+            .instanceTypeSpecifications(instanceTypeSpecifications)
+            .tagSpecifications(Collections.singletonList(TagSpecification.builder()
+                    .resourceType("capacity-reservation-fleet")
+                    .tags(Collections.singletonList(Tag.builder().key("priming").value("true").build()))
+                    .build()))
+            .build();
+  }
+
+  /**
+   * Ec2Client in us-east-1 whose HTTP client answers the four fleet APIs with canned responses. Also used by the
+   * cold-start benchmark.
+   *
+   * @return client that never leaves the process
+   */
+  static Ec2Client offlineClient() {
+    return Ec2Client.builder()
+            .region(Region.US_EAST_1)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("priming", "priming")))
+            .httpClient(new CannedResponseHttpClient())
+            .overrideConfiguration(ClientOverrideConfiguration.builder().retryPolicy(RetryPolicy.none()).build())
+            .build();
+  }
+
+  private static final class CannedResponseHttpClient implements SdkHttpClient {
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(final HttpExecuteRequest request) {
+      return new ExecutableHttpRequest() {
+        @Override
+        public HttpExecuteResponse call() throws IOException {
+          final String action = action(request);
+          final byte[] body = ("<" + action + "Response xmlns=\"" + EC2_NAMESPACE + "\">"
+                  + "<requestId>priming</requestId>"
+                  + CANNED_RESPONSES.getOrDefault(action, "")
+                  + "</" + action + "Response>").getBytes(StandardCharsets.UTF_8);
+
+          return HttpExecuteResponse.builder()
+                  .response(SdkHttpResponse.builder().statusCode(200).build())
+                  .responseBody(AbortableInputStream.create(new ByteArrayInputStream(body)))
+                  .build();
+        }
+
+        @Override
+        public void abort() {
+        }
+      };
+    }
+
+    @Override
+    public String clientName() {
+      return "Priming";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static String action(final HttpExecuteRequest request) throws IOException {
+      final Optional<InputStream> content = request.contentStreamProvider().map(provider -> provider.newStream());
+      if (!content.isPresent()) {
+        return "";
+      }
+
+      for (final String parameter : IoUtils.toUtf8String(content.get()).split("&")) {
+        if (parameter.startsWith("Action=")) {
+          return URLDecoder.decode(parameter.substring("Action=".length()), StandardCharsets.UTF_8.name());
+        }
+      }
+      return "";
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.Locale;
+
+/**
+ * Operational settings of the handlers. A setting is read from the JVM system property first and from the
+ * environment of the handler function second, e.g. LOG_LEVEL is read from -Dcrfleet.log.level or CRFLEET_LOG_LEVEL.
+ * Missing and malformed values fall back to the given default.
+ */
+final class HandlerSettings {
+    private static final String PROPERTY_PREFIX = "crfleet.";
+    private static final String ENVIRONMENT_PREFIX = "CRFLEET_";
+
+    static final String LOG_LEVEL = "LOG_LEVEL";
+    static final String ASYNC_CLIENT = "ASYNC_CLIENT";
+
+    private HandlerSettings() {
+    }
+
+    static String get(final String name, final String defaultValue) {
+        final String property = System.getProperty(PROPERTY_PREFIX + name.toLowerCase(Locale.ROOT).replace('_', '.'));
+        if (property != null && !property.trim().isEmpty()) {
+            return property.trim();
+        }
+
+        final String variable = System.getenv(ENVIRONMENT_PREFIX + name);
+        return variable == null || variable.trim().isEmpty() ? defaultValue : variable.trim();
+    }
+
+    static int getInt(final String name, final int defaultValue) {
+        try {
+            return Integer.parseInt(get(name, String.valueOf(defaultValue)));
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static long getLong(final String name, final long defaultValue) {
+        try {
+            return Long.parseLong(get(name, String.valueOf(defaultValue)));
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static double getDouble(final String name, final double defaultValue) {
+        try {
+            return Double.parseDouble(get(name, String.valueOf(defaultValue)));
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static boolean getBoolean(final String name, final boolean defaultValue) {
+        return Boolean.parseBoolean(get(name, String.valueOf(defaultValue)));
+    }
+
+    static HandlerLogger.Level logLevel() {
+        try {
+            return HandlerLogger.Level.valueOf(get(LOG_LEVEL, HandlerLogger.Level.INFO.name()).toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            return HandlerLogger.Level.INFO;
+        }
+    }
+}
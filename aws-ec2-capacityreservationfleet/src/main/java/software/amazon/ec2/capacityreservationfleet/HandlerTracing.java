@@ -0,0 +1,277 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lightweight spans around the stages of the handler call chains: translate, service-call, stabilize-poll and
+ * error-handling, named after the call graph of the chain, e.g. AWS-EC2-CapacityReservationFleet::Create. A root
+ * span per invocation is opened by {@link BaseHandlerStd}, stages run inside of it are recorded as its children.
+ *
+ * When the root span ends, the spans of the invocation are handed to the {@link SpanExporter}, by default one line of
+ * OpenTelemetry (OTLP/JSON) trace data on stdout or appended to a file, for offline profiling. Selected with the
+ * TRACING setting: off (default), stdout, or file together with TRACING_FILE. Without an open trace a stage
+ * only runs its body.
+ */
+final class HandlerTracing {
+  static final String TRACING = "TRACING";
+  static final String TRACING_FILE = "TRACING_FILE";
+
+  static final String TRANSLATE = "translate";
+  static final String SERVICE_CALL = "service-call";
+  static final String STABILIZE_POLL = "stabilize-poll";
+  static final String ERROR_HANDLING = "error-handling";
+
+  private static final String SERVICE_NAME = "AWS::EC2::CapacityReservationFleet";
+  private static final String SCOPE_NAME = "software.amazon.ec2.capacityreservationfleet";
+  private static final int SPAN_KIND_INTERNAL = 1;
+  private static final int STATUS_OK = 1;
+  private static final int STATUS_ERROR = 2;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ThreadLocal<Deque<Span>> ACTIVE = new ThreadLocal<>();
+
+  private static volatile SpanExporter exporter;
+
+  @FunctionalInterface
+  interface SpanExporter {
+    /**
+     * @param spans finished spans of one invocation, the root span last
+     */
+    void export(List<Span> spans);
+  }
+
+  @lombok.Getter
+  static final class Span {
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startEpochNanos;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final List<Span> trace;
+    private long endEpochNanos;
+    private String error;
+
+    private Span(final String name, final Span parent) {
+      final Instant now = Instant.now();
+      this.traceId = parent == null ? randomHex(16) : parent.traceId;
+      this.spanId = randomHex(8);
+      this.parentSpanId = parent == null ? null : parent.spanId;
+      this.name = name;
+      this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+      this.trace = parent == null ? new ArrayList<>() : parent.trace;
+    }
+
+    Span attribute(final String key, final String value) {
+      attributes.put(key, value);
+      return this;
+    }
+
+    private void end(final Throwable failure) {
+      endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+      error = failure == null ? null : failure.getClass().getSimpleName() + ": " + failure.getMessage();
+      trace.add(this);
+    }
+  }
+
+  private HandlerTracing() {
+  }
+
+  /**
+   * Replaces the exporter selected by the TRACING setting.
+   *
+   * @param spanExporter exporter for all following traces, null to go back to the setting
+   */
+  static void exporter(final SpanExporter spanExporter) {
+    exporter = spanExporter;
+  }
+
+  /**
+   * Opens the root span of an invocation on the current thread, or nothing when tracing is off.
+   *
+   * @param name call graph of the invocation
+   * @return root span to pass to {@link #end}, null when tracing is off
+   */
+  static Span start(final String name) {
+    final SpanExporter spanExporter = activeExporter();
+    if (spanExporter == null) {
+      return null;
+    }
+
+    final Span root = new Span(name, null);
+    final Deque<Span> active = new ArrayDeque<>();
+    active.push(root);
+    ACTIVE.set(active);
+    return root;
+  }
+
+  /**
+   * Ends the root span and exports the spans of the invocation.
+   *
+   * @param root span returned by {@link #start}
+   * @param failure exception the invocation ended with, null otherwise
+   */
+  static void end(final Span root, final Throwable failure) {
+    if (root == null) {
+      return;
+    }
+    ACTIVE.remove();
+
+    root.end(failure);
+    final SpanExporter spanExporter = activeExporter();
+    if (spanExporter == null) {
+      return;
+    }
+    try {
+      spanExporter.export(Collections.unmodifiableList(root.trace));
+    } catch (final RuntimeException e) {
+      // tracing is best effort and must never fail the invocation
+    }
+  }
+
+  /**
+   * Runs one stage of a call chain in a child span of the invocation.
+   *
+   * @param callGraph call graph name of the chain
+   * @param stage one of the stage constants
+   * @param body stage to run
+   * @return result of the stage
+   */
+  static <T> T span(final String callGraph, final String stage, final Supplier<T> body) {
+    final Deque<Span> active = ACTIVE.get();
+    if (active == null || active.isEmpty()) {
+      return body.get();
+    }
+
+    final Span span = new Span(callGraph + "/" + stage, active.peek())
+            .attribute("callGraph", callGraph)
+            .attribute("stage", stage);
+    active.push(span);
+    try {
+      final T result = body.get();
+      span.end(null);
+      return result;
+    } catch (final RuntimeException | Error e) {
+      span.end(e);
+      throw e;
+    } finally {
+      active.pop();
+    }
+  }
+
+  private static SpanExporter activeExporter() {
+    final SpanExporter spanExporter = exporter;
+    if (spanExporter != null) {
+      return spanExporter;
+    }
+
+    switch (HandlerSettings.get(TRACING, "off").toLowerCase(Locale.ROOT)) {
+      case "stdout":
+        return stdoutExporter(System.out);
+      case "file":
+        return fileExporter(Paths.get(HandlerSettings.get(TRACING_FILE, "crfleet-traces.jsonl")));
+      default:
+        return null;
+    }
+  }
+
+  static SpanExporter stdoutExporter(final PrintStream out) {
+    return spans -> out.println(toOtlpJson(spans));
+  }
+
+  static SpanExporter fileExporter(final Path path) {
+    return spans -> {
+      synchronized (HandlerTracing.class) {
+        try {
+          Files.write(path, Collections.singletonList(toOtlpJson(spans)), StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (final IOException e) {
+          // tracing is best effort and must never fail the invocation
+        }
+      }
+    };
+  }
+
+  /**
+   * OTLP/JSON ExportTraceServiceRequest of the spans, as accepted by the OpenTelemetry collector and tools reading
+   * its file exporter output.
+   */
+  static String toOtlpJson(final List<Span> spans) {
+    final List<Map<String, Object>> otlpSpans = new ArrayList<>(spans.size());
+    for (final Span span : spans) {
+      final Map<String, Object> otlpSpan = new LinkedHashMap<>();
+      otlpSpan.put("traceId", span.traceId);
+      otlpSpan.put("spanId", span.spanId);
+      if (span.parentSpanId != null) {
+        otlpSpan.put("parentSpanId", span.parentSpanId);
+      }
+      otlpSpan.put("name", span.name);
+      otlpSpan.put("kind", SPAN_KIND_INTERNAL);
+      otlpSpan.put("startTimeUnixNano", String.valueOf(span.startEpochNanos));
+      otlpSpan.put("endTimeUnixNano", String.valueOf(span.endEpochNanos));
+      otlpSpan.put("attributes", attributes(span.attributes));
+
+      final Map<String, Object> status = new LinkedHashMap<>();
+      status.put("code", span.error == null ? STATUS_OK : STATUS_ERROR);
+      if (span.error != null) {
+        status.put("message", span.error);
+      }
+      otlpSpan.put("status", status);
+      otlpSpans.add(otlpSpan);
+    }
+
+    final Map<String, Object> scopeSpans = new LinkedHashMap<>();
+    scopeSpans.put("scope", Collections.singletonMap("name", SCOPE_NAME));
+    scopeSpans.put("spans", otlpSpans);
+
+    final Map<String, Object> resourceSpans = new LinkedHashMap<>();
+    resourceSpans.put("resource", Collections.singletonMap("attributes", attributes(Collections.singletonMap("service.name", SERVICE_NAME))));
+    resourceSpans.put("scopeSpans", Collections.singletonList(scopeSpans));
+
+    try {
+      return MAPPER.writeValueAsString(Collections.singletonMap("resourceSpans", Collections.singletonList(resourceSpans)));
+    } catch (final JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static List<Map<String, Object>> attributes(final Map<String, String> attributes) {
+    final List<Map<String, Object>> otlpAttributes = new ArrayList<>(attributes.size());
+    attributes.forEach((key, value) -> {
+      final Map<String, Object> attribute = new LinkedHashMap<>();
+      attribute.put("key", key);
+      attribute.put("value", Collections.singletonMap("stringValue", value));
+      otlpAttributes.add(attribute);
+    });
+    return otlpAttributes;
+  }
+
+  private static String randomHex(final int bytes) {
+    final StringBuilder hex = new StringBuilder(bytes * 2);
+    for (int i = 0; i < bytes; i++) {
+      hex.append(String.format("%02x", ThreadLocalRandom.current().nextInt(256)));
+    }
+    return hex.toString();
+  }
+}
@@ -11,9 +11,15 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ListHandler extends BaseHandlerStd {
+    /**
+     * Setting to return every property of the listed fleets instead of the identifier only, mapped from the
+     * Describe pages the handler fetches anyway. Off by default.
+     */
+    static final String LIST_HYDRATED = "LIST_HYDRATED";
 
     @Override
     public ProgressEvent<ResourceModel, software.amazon.ec2.capacityreservationfleet.CallbackContext> handleRequest(
@@ -23,17 +29,24 @@ public class ListHandler extends BaseHandlerStd {
         final ProxyClient<Ec2Client> proxyClient,
         final Logger logger) {
 
-        List<ResourceModel> models;
-        final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToListRequest(request.getNextToken());
-        String nextToken = null;
+        final List<ResourceModel> models = new ArrayList<>();
+        final boolean hydrated = HandlerSettings.getBoolean(LIST_HYDRATED, false);
+        final Ec2Calls ec2Calls = ec2Calls(proxy, request, callbackContext, proxyClient);
+        String nextToken = request.getNextToken();
 
         try {
-            DescribeCapacityReservationFleetsResponse response =
-                    proxy.injectCredentialsAndInvokeV2(describeCapacityReservationFleetsRequest, (proxyRequest) -> proxyClient.client().describeCapacityReservationFleets(proxyRequest));
-            nextToken = response.nextToken();
-            models = Translator.translateFromListRequest(response);
-        } catch (final SdkException e) {
-            logger.log(String.format("[INFO] EC2CapacityReservation ListHandler threw a sdk exception: %s", e));
+            // every page takes a read token and is retried like the other Describe calls. A page that tops up the
+            // models only asks for the space left, so that no more than LIST_MAX_RESULTS models are returned
+            do {
+                final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest =
+                        Translator.translateToListRequest(nextToken, Translator.LIST_MAX_RESULTS - models.size());
+                final DescribeCapacityReservationFleetsResponse page =
+                        ec2Calls.joinRetrying(() -> ec2Calls.describeCapacityReservationFleets(describeCapacityReservationFleetsRequest));
+                models.addAll(Translator.translateFromListRequest(page, hydrated));
+                nextToken = page.nextToken();
+            } while (nextToken != null && models.size() < Translator.LIST_MAX_RESULTS);
+        } catch (final SdkException | Ec2CircuitBreaker.OpenException | Ec2RateLimiter.WaitExceededException e) {
+            HandlerLogger.of(logger).warn(() -> String.format("EC2CapacityReservation ListHandler threw a sdk exception: %s", e));
             return Translator.translateToFailure(e);
         }
 
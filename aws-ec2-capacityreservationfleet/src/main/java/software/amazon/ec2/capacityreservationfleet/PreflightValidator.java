@@ -0,0 +1,112 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Checks a create request locally, before CreateCapacityReservationFleet is called. Without it an invalid template
+ * is only rejected by EC2, or only fails after the fleet was created and polled, and then rolls back.
+ *
+ * Only what aws-ec2-capacityreservationfleet.json declares, or what can't succeed at EC2, is rejected:
+ *  - at most MAX_INSTANCE_TYPE_SPECIFICATIONS instance type specifications, each with at most one of
+ *    AvailabilityZone and AvailabilityZoneId, a Priority from MIN_PRIORITY to MAX_PRIORITY and a positive Weight,
+ *    and no two of them for the same instance type and Availability Zone
+ *  - a TotalTargetCapacity from MIN_TOTAL_TARGET_CAPACITY to MAX_TOTAL_TARGET_CAPACITY
+ *  - the InstanceMatchCriteria and Tenancy values of the schema enums
+ *  - an ISO-8601 EndDate
+ *  - the tags, as merged by {@link TagMerger} for the create request anyway
+ *
+ * Properties the schema doesn't require, such as InstancePlatform, are left to EC2.
+ */
+final class PreflightValidator {
+  static final int MAX_INSTANCE_TYPE_SPECIFICATIONS = 50;
+  static final int MIN_TOTAL_TARGET_CAPACITY = 1;
+  static final int MAX_TOTAL_TARGET_CAPACITY = 25000;
+  static final int MIN_PRIORITY = 0;
+  static final int MAX_PRIORITY = 999;
+  static final String INSTANCE_MATCH_CRITERIA = "open";
+  static final String TENANCY = "default";
+  private static final String CR_FLEET_TAG_RESOURCE_TYPE = "capacity-reservation-fleet";
+
+  private PreflightValidator() {
+  }
+
+  /**
+   * @param request create request with the desired state
+   * @throws CfnInvalidRequestException listing every violation of the model, or the first violation of the tags
+   */
+  static void validateCreate(final ResourceHandlerRequest<ResourceModel> request) {
+    final ResourceModel model = request.getDesiredResourceState();
+    final List<String> violations = new ArrayList<>();
+
+    validateInstanceTypeSpecifications(model.getInstanceTypeSpecifications(), violations);
+
+    final Integer totalTargetCapacity = model.getTotalTargetCapacity();
+    if (totalTargetCapacity != null && (totalTargetCapacity < MIN_TOTAL_TARGET_CAPACITY || totalTargetCapacity > MAX_TOTAL_TARGET_CAPACITY)) {
+      violations.add(String.format("TotalTargetCapacity %d must be from %d to %d.",
+              totalTargetCapacity, MIN_TOTAL_TARGET_CAPACITY, MAX_TOTAL_TARGET_CAPACITY));
+    }
+
+    validateValue("InstanceMatchCriteria", model.getInstanceMatchCriteria(), INSTANCE_MATCH_CRITERIA, violations);
+    validateValue("Tenancy", model.getTenancy(), TENANCY, violations);
+
+    if (model.getEndDate() != null) {
+      try {
+        Instant.parse(model.getEndDate());
+      } catch (final DateTimeParseException e) {
+        violations.add(String.format("EndDate %s must be an ISO-8601 timestamp such as 2030-01-01T00:00:00Z.", model.getEndDate()));
+      }
+    }
+
+    if (!violations.isEmpty()) {
+      throw new CfnInvalidRequestException(String.join(" ", violations));
+    }
+
+    TagMerger.merge(request.getSystemTags(), model.getTagSpecifications(), request.getDesiredResourceTags(), CR_FLEET_TAG_RESOURCE_TYPE);
+  }
+
+  private static void validateInstanceTypeSpecifications(final Set<InstanceTypeSpecification> specifications, final List<String> violations) {
+    if (specifications == null) {
+      return;
+    }
+    if (specifications.size() > MAX_INSTANCE_TYPE_SPECIFICATIONS) {
+      violations.add(String.format("InstanceTypeSpecifications has %d specifications, at most %d are allowed.",
+              specifications.size(), MAX_INSTANCE_TYPE_SPECIFICATIONS));
+    }
+
+    final Set<String> instanceTypeZones = new HashSet<>();
+    for (final InstanceTypeSpecification specification : specifications) {
+      final String instanceType = specification.getInstanceType();
+      if (specification.getAvailabilityZone() != null && specification.getAvailabilityZoneId() != null) {
+        violations.add(String.format("Instance type %s has both AvailabilityZone and AvailabilityZoneId, only one of them can be given.", instanceType));
+      }
+
+      final Integer priority = specification.getPriority();
+      if (priority != null && (priority < MIN_PRIORITY || priority > MAX_PRIORITY)) {
+        violations.add(String.format("Priority %d of instance type %s must be from %d to %d.", priority, instanceType, MIN_PRIORITY, MAX_PRIORITY));
+      }
+      final Double weight = specification.getWeight();
+      if (weight != null && !(weight > 0)) {
+        violations.add(String.format("Weight %s of instance type %s must be positive.", weight, instanceType));
+      }
+
+      final String zone = specification.getAvailabilityZone() != null ? specification.getAvailabilityZone() : specification.getAvailabilityZoneId();
+      if (!instanceTypeZones.add(instanceType + "/" + zone)) {
+        violations.add(String.format("Instance type %s is specified more than once for Availability Zone %s.", instanceType, zone));
+      }
+    }
+  }
+
+  private static void validateValue(final String property, final String value, final String supported, final List<String> violations) {
+    if (value != null && !supported.equals(value)) {
+      violations.add(String.format("%s %s is not supported, the only value is %s.", property, value, supported));
+    }
+  }
+}
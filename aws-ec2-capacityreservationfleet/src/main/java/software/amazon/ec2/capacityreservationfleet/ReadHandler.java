@@ -17,12 +17,15 @@ public class ReadHandler extends BaseHandlerStd {
         final ProxyClient<Ec2Client> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
+        final HandlerLogger log = HandlerLogger.of(logger);
+        this.logger = log;
+        final Ec2Calls ec2Calls = ec2Calls(proxy, request, callbackContext, proxyClient);
+        final String callGraph = CALL_GRAPH_PREFIX + "Read";
 
-        return proxy.initiate("AWS-EC2-CapacityReservationFleet::Read", proxyClient, request.getDesiredResourceState(), callbackContext)
-                .translateToServiceRequest(model -> Translator.translateToReadRequest(model, logger))
-                .makeServiceCall((describeRequest, ec2ClientProxyClient) -> describeCapacityReservationFleets(describeRequest, ec2ClientProxyClient, logger))
-                .handleError((awsRequest, exception, client, model, context) -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context))
-                .done(awsResponse -> ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(awsResponse, logger, request.getDesiredResourceState(), true)));
+        return proxy.initiate(callGraph, proxyClient, request.getDesiredResourceState(), callbackContext)
+                .translateToServiceRequest(model -> traced(callGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToReadRequest(model, log)))
+                .makeServiceCall((describeRequest, ec2ClientProxyClient) -> traced(callGraph, HandlerTracing.SERVICE_CALL, () -> describeCapacityReservationFleets(describeRequest, ec2Calls, log)))
+                .handleError((awsRequest, exception, client, model, context) -> traced(callGraph, HandlerTracing.ERROR_HANDLING, () -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context)))
+                .done(awsResponse -> ProgressEvent.defaultSuccessHandler(traced(callGraph, HandlerTracing.TRANSLATE, () -> Translator.translateFromReadResponse(awsResponse, log, request.getDesiredResourceState(), true))));
     }
 }
@@ -0,0 +1,108 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import software.amazon.cloudformation.proxy.Delay;
+
+/**
+ * Backoff policy between the DescribeCapacityReservationFleets polls of the stabilize step in the
+ * Create, Update and Delete handlers.
+ *
+ *  - the first delay grows with TotalTargetCapacity and the number of instance type specifications,
+ *    since EC2 needs longer to place a large fleet
+ *  - every following delay grows exponentially up to maxDelay
+ *  - delays are jittered so that fleets of the same stack do not poll in lockstep
+ *
+ * The attempt count is kept in the CallbackContext rather than taken from the framework, so the backoff
+ * keeps growing when the handler is re-invoked with a callback.
+ */
+@lombok.Builder
+@lombok.Getter
+public class StabilizationBackoff {
+  public static final StabilizationBackoff DEFAULT = StabilizationBackoff.builder().build();
+
+  private static final Duration MIN_DELAY = Duration.ofMillis(100);
+
+  @lombok.Builder.Default
+  private final Duration baseDelay = Duration.ofSeconds(2);
+
+  @lombok.Builder.Default
+  private final Duration delayPerSpecification = Duration.ofMillis(100);
+
+  @lombok.Builder.Default
+  private final Duration maxDelay = Duration.ofSeconds(60);
+
+  @lombok.Builder.Default
+  private final double multiplier = 1.5;
+
+  /**
+   * Fraction of each delay that is randomized, 0 disables jitter.
+   */
+  @lombok.Builder.Default
+  private final double jitter = 0.5;
+
+  @lombok.Builder.Default
+  private final int maxAttempts = 60;
+
+  /**
+   * Delay for the stabilize step of the given fleet. Returning {@link Duration#ZERO} tells the framework that
+   * the attempts are exhausted, which fails the operation with NotStabilized.
+   *
+   * @param model fleet being stabilized
+   * @param context callback context holding the attempt count
+   * @return delay to pass to backoffDelay of the call chain
+   */
+  public Delay delayFor(final ResourceModel model, final CallbackContext context) {
+    final Duration initialDelay = initialDelay(model);
+
+    return attempt -> {
+      final int stabilizationAttempt = context.getStabilizationAttempts();
+      if (stabilizationAttempt >= maxAttempts) {
+        return Duration.ZERO;
+      }
+
+      context.setStabilizationAttempts(stabilizationAttempt + 1);
+      return jittered(cappedDelay(initialDelay, stabilizationAttempt));
+    };
+  }
+
+  /**
+   * Delay before the next poll without jitter and without counting an attempt, for handing the stabilization back
+   * to CloudFormation with a callback delay instead of waiting in the invocation.
+   *
+   * @param model fleet being stabilized
+   * @param context callback context holding the attempt count
+   * @return delay until the next poll, {@link Duration#ZERO} if the attempts are exhausted
+   */
+  public Duration nextDelay(final ResourceModel model, final CallbackContext context) {
+    if (context.getStabilizationAttempts() >= maxAttempts) {
+      return Duration.ZERO;
+    }
+    return cappedDelay(initialDelay(model), context.getStabilizationAttempts());
+  }
+
+  /**
+   * baseDelay * (1 + log10(TotalTargetCapacity)) + delayPerSpecification * number of specifications, capped at maxDelay.
+   */
+  Duration initialDelay(final ResourceModel model) {
+    final int capacity = model.getTotalTargetCapacity() == null ? 1 : Math.max(1, model.getTotalTargetCapacity());
+    final int specifications = model.getInstanceTypeSpecifications() == null ? 0 : model.getInstanceTypeSpecifications().size();
+    final double millis = baseDelay.toMillis() * (1 + Math.log10(capacity)) + (double) delayPerSpecification.toMillis() * specifications;
+
+    return Duration.ofMillis((long) Math.min(millis, maxDelay.toMillis()));
+  }
+
+  Duration cappedDelay(final Duration initialDelay, final int attempt) {
+    final double millis = initialDelay.toMillis() * Math.pow(multiplier, attempt);
+    return Duration.ofMillis((long) Math.min(millis, maxDelay.toMillis()));
+  }
+
+  private Duration jittered(final Duration delay) {
+    final long millis = delay.toMillis();
+    final long fixedMillis = (long) (millis * (1 - Math.min(1, Math.max(0, jitter))));
+    final long jitteredMillis = fixedMillis + ThreadLocalRandom.current().nextLong(millis - fixedMillis + 1);
+
+    return Duration.ofMillis(Math.max(MIN_DELAY.toMillis(), jitteredMillis));
+  }
+}
@@ -0,0 +1,152 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+/**
+ * Merges the tags of a CreateCapacityReservationFleet request and validates them against the EC2 tag rules before
+ * the call, so that a bad tag fails the handler right away instead of after the round trip and rollback.
+ *
+ * The fleet gets the CloudFormation system tags, the resource tags of the capacity-reservation-fleet tag
+ * specifications and the stack-level tags. When the same key comes from more than one source the value is taken
+ * from the first of system, resource, stack. Resource tags repeating a key with the same value are collapsed, with a
+ * different value they are rejected. The merged tags keep that order, so the same input gives the same request.
+ *
+ * All tags but the system tags are checked for the reserved aws: prefix, a key of 1 to MAX_KEY_LENGTH characters, a
+ * value of at most MAX_VALUE_LENGTH characters and at most MAX_TAGS tags per resource.
+ */
+final class TagMerger {
+  static final String RESERVED_PREFIX = "aws:";
+  static final int MAX_KEY_LENGTH = 128;
+  static final int MAX_VALUE_LENGTH = 256;
+  static final int MAX_TAGS = 50;
+
+  private final String resourceType;
+  private final Map<String, String> tags;
+  private int systemTagCount;
+
+  private TagMerger(final String resourceType, final int expectedSize) {
+    this.resourceType = resourceType;
+    this.tags = new LinkedHashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+  }
+
+  /**
+   * @param systemTags CloudFormation system tags, may be null
+   * @param tagSpecifications tag specifications of the model, may be null
+   * @param stackTags stack-level tags, may be null
+   * @param resourceType resource type the system and stack tags are added to
+   * @return tag specifications of the request, those of other resource types in model order followed by the one of
+   *         resourceType unless it has no tags
+   * @throws CfnInvalidRequestException if a tag breaks the EC2 tag rules
+   */
+  static List<software.amazon.awssdk.services.ec2.model.TagSpecification> merge(
+          final Map<String, String> systemTags,
+          final List<TagSpecification> tagSpecifications,
+          final Map<String, String> stackTags,
+          final String resourceType) {
+    final List<software.amazon.awssdk.services.ec2.model.TagSpecification> merged = new ArrayList<>();
+    final TagMerger resourceTags = new TagMerger(resourceType, size(systemTags) + MAX_TAGS);
+
+    resourceTags.putSystemTags(systemTags);
+    if (tagSpecifications != null) {
+      for (final TagSpecification tagSpecification : tagSpecifications) {
+        if (resourceType.equalsIgnoreCase(tagSpecification.getResourceType())) {
+          resourceTags.putResourceTags(tagSpecification.getTags());
+        } else {
+          final TagMerger otherTags = new TagMerger(tagSpecification.getResourceType(), size(tagSpecification.getTags()));
+          otherTags.putResourceTags(tagSpecification.getTags());
+          merged.add(otherTags.toTagSpecification());
+        }
+      }
+    }
+    resourceTags.putStackTags(stackTags);
+
+    if (!resourceTags.tags.isEmpty()) {
+      merged.add(resourceTags.toTagSpecification());
+    }
+    return merged;
+  }
+
+  private void putSystemTags(final Map<String, String> systemTags) {
+    if (systemTags == null) {
+      return;
+    }
+    for (final Map.Entry<String, String> tag : systemTags.entrySet()) {
+      if (tags.putIfAbsent(tag.getKey(), tag.getValue()) == null) {
+        systemTagCount++;
+      }
+    }
+  }
+
+  private void putResourceTags(final List<Tag> resourceTags) {
+    if (resourceTags == null) {
+      return;
+    }
+    for (final Tag tag : resourceTags) {
+      validate(tag.getKey(), tag.getValue());
+      // system tags carry the aws: prefix rejected by validate, so a key already present is a repeated resource tag
+      final String previous = tags.putIfAbsent(tag.getKey(), tag.getValue());
+      if (previous != null && !previous.equals(tag.getValue())) {
+        throw new CfnInvalidRequestException(String.format("Tag key %s is given more than once for %s with different values.",
+                tag.getKey(), resourceType));
+      }
+      checkCount();
+    }
+  }
+
+  private void putStackTags(final Map<String, String> stackTags) {
+    if (stackTags == null) {
+      return;
+    }
+    for (final Map.Entry<String, String> tag : stackTags.entrySet()) {
+      validate(tag.getKey(), tag.getValue());
+      tags.putIfAbsent(tag.getKey(), tag.getValue());
+      checkCount();
+    }
+  }
+
+  private void validate(final String key, final String value) {
+    if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+      throw new CfnInvalidRequestException(String.format("Tag key %s of %s must be 1 to %d characters long.",
+              key, resourceType, MAX_KEY_LENGTH));
+    }
+    if (key.regionMatches(true, 0, RESERVED_PREFIX, 0, RESERVED_PREFIX.length())) {
+      throw new CfnInvalidRequestException(String.format("Tag key %s of %s uses the reserved prefix %s.",
+              key, resourceType, RESERVED_PREFIX));
+    }
+    if (value != null && value.length() > MAX_VALUE_LENGTH) {
+      throw new CfnInvalidRequestException(String.format("Value of tag key %s of %s must be at most %d characters long.",
+              key, resourceType, MAX_VALUE_LENGTH));
+    }
+  }
+
+  private void checkCount() {
+    if (tags.size() - systemTagCount > MAX_TAGS) {
+      throw new CfnInvalidRequestException(String.format("%s can have at most %d tags.", resourceType, MAX_TAGS));
+    }
+  }
+
+  private software.amazon.awssdk.services.ec2.model.TagSpecification toTagSpecification() {
+    final List<software.amazon.awssdk.services.ec2.model.Tag> sdkTags = new ArrayList<>(tags.size());
+    for (final Map.Entry<String, String> tag : tags.entrySet()) {
+      sdkTags.add(software.amazon.awssdk.services.ec2.model.Tag.builder().key(tag.getKey()).value(tag.getValue()).build());
+    }
+    return software.amazon.awssdk.services.ec2.model.TagSpecification.builder()
+            .resourceType(resourceType)
+            .tags(sdkTags)
+            .build();
+  }
+
+  private static int size(final Map<String, String> tags) {
+    return tags == null ? 0 : tags.size();
+  }
+
+  private static int size(final Collection<Tag> tags) {
+    return tags == null ? 0 : tags.size();
+  }
+}
@@ -1,6 +1,7 @@
 package software.amazon.ec2.capacityreservationfleet;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkException;
@@ -9,6 +10,8 @@ import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
 import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.FleetCapacityReservation;
 import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
 import software.amazon.awssdk.services.ec2.model.ReservationFleetInstanceSpecification;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
@@ -27,9 +30,13 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -48,6 +55,14 @@ public class Translator {
   public static final String INVALID_CR_FLEET_ID_MALFORMED = "InvalidCapacityReservationFleetId.Malformed";
   public static final String INVALID_CR_FLEET_STATE_TRANSITION = "InvalidCapacityReservationFleetStateTransition";
   public static final String UNAUTHORIZED_CODE = "UnauthorizedOperation";
+  public static final int LIST_MAX_RESULTS = 100;
+  public static final int DESCRIBE_MAX_IDS = 100;
+  public static final int CANCEL_MAX_IDS = 100;
+  private static final String STATE_FILTER_NAME = "state";
+  private static final List<String> LISTED_STATES = Arrays.asList(
+          CapacityReservationFleetState.ACTIVE.toString(),
+          CapacityReservationFleetState.PARTIALLY_FULFILLED.toString(),
+          CapacityReservationFleetState.FAILED.toString());
 
   /**
    * Request to create a resource
@@ -58,7 +73,8 @@ public class Translator {
   public static CreateCapacityReservationFleetRequest translateToCreateRequest(final ResourceModel model,
                                                     final ResourceHandlerRequest<ResourceModel> handlerRequest,
                                                     final Logger logger) {
-    logger.log(String.format("[INFO] translateToCreateRequest: %s", model));
+    final HandlerLogger log = HandlerLogger.of(logger);
+    log.debug(() -> String.format("translateToCreateRequest: %s", model));
     final CreateCapacityReservationFleetRequest.Builder requestBuilder = CreateCapacityReservationFleetRequest.builder();
       final List<ReservationFleetInstanceSpecification> reservationFleetInstanceSpecifications = new ArrayList<>();
       model.getInstanceTypeSpecifications().stream().forEach(spec -> {
@@ -74,13 +90,13 @@ public class Translator {
       });
 
       requestBuilder.allocationStrategy(model.getAllocationStrategy());
-      requestBuilder.endDate(getEndDate(model.getEndDate(), logger));
+      requestBuilder.endDate(getEndDate(model.getEndDate(), log));
       requestBuilder.instanceMatchCriteria(model.getInstanceMatchCriteria());
       requestBuilder.tenancy(model.getTenancy());
       requestBuilder.totalTargetCapacity(model.getTotalTargetCapacity());
       requestBuilder.instanceTypeSpecifications(reservationFleetInstanceSpecifications);
 
-      List<software.amazon.awssdk.services.ec2.model.TagSpecification> tags = getTags(handlerRequest, model, logger);
+      List<software.amazon.awssdk.services.ec2.model.TagSpecification> tags = getTags(handlerRequest, model, log);
 
       if (tags != null && tags.size() > 0) {
         requestBuilder.tagSpecifications(tags);
@@ -102,7 +118,7 @@ public class Translator {
    * @return awsRequest the aws service request to describe a resource
    */
   public static DescribeCapacityReservationFleetsRequest translateToReadRequest(final ResourceModel model, final Logger logger) {
-    logger.log(String.format("[INFO] translateToReadRequest : %s", model));
+    HandlerLogger.of(logger).debug(() -> String.format("translateToReadRequest : %s", model));
     final String crFleetId = model.getCapacityReservationFleetId();
     if (crFleetId == null) {
       throw new CfnNotFoundException(ResourceModel.TYPE_NAME, null);
@@ -128,28 +144,37 @@ public class Translator {
                                                           final Logger logger,
                                                           final ResourceModel desiredResourceState,
                                                           final boolean validateModifyingState) {
+    final HandlerLogger log = HandlerLogger.of(logger);
     if (desiredResourceState == null) {
-      logger.log("[ERROR] desiredResourceState is null");
+      log.error("desiredResourceState is null");
       throw new CfnServiceInternalErrorException("Resource is not in a desired state.");
     }
 
-    validateReadResponse(response, logger, validateModifyingState);
-    final ResourceModel.ResourceModelBuilder builder = ResourceModel.builder();
-    final CapacityReservationFleet crFleet = response.capacityReservationFleets().get(0);
-    final List<Tag> tags = crFleet.tags().stream().map((tag) -> Tag.builder().key(tag.key()).value(tag.value()).build()).collect(Collectors.toList());
-    List<TagSpecification> tagSpecifications = null;
+    validateReadResponse(response, log, validateModifyingState);
+    log.info("Mapping DescribeCapacityReservationFleets response to ResourceModel");
 
-    if (desiredResourceState.getTagSpecifications() != null) {
-      tagSpecifications = desiredResourceState.getTagSpecifications();
-    } else if (!CollectionUtils.isEmpty(tags)) {
-      tagSpecifications = Arrays.asList(TagSpecification.builder().resourceType(CR_FLEET_TAG_RESOURCE_TYPE).tags(tags).build());
-    }
-
-    final Set<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>();
+    final ResourceModel model = translateFromFleet(response.capacityReservationFleets().get(0), desiredResourceState.getTagSpecifications());
+    log.debug(() -> "Mapped ResourceModel: " + model);
 
-    logger.log("[INFO] Mapping DescribeCapacityReservationFleets response to ResourceModel");
+    return model;
+  }
 
-    crFleet.instanceTypeSpecifications().stream().forEach(specification -> {
+  /**
+   * Maps a single fleet of a describe response to a resource model.
+   *
+   * @param crFleet fleet from the aws service describe response
+   * @param desiredTagSpecifications tag specifications of the desired state, which take precedence over the fleet tags
+   * @return model resource model
+   */
+  static ResourceModel translateFromFleet(final CapacityReservationFleet crFleet, final List<TagSpecification> desiredTagSpecifications) {
+    // the fleet tags are only materialized when the desired state doesn't carry tag specifications
+    final List<TagSpecification> tagSpecifications = desiredTagSpecifications != null
+            ? desiredTagSpecifications
+            : translateFromFleetTags(crFleet.tags());
+
+    final List<FleetCapacityReservation> specifications = crFleet.instanceTypeSpecifications();
+    final Set<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>(hashCapacity(specifications.size()));
+    for (final FleetCapacityReservation specification : specifications) {
       instanceTypeSpecifications.add(InstanceTypeSpecification.builder()
               .instanceType(specification.instanceTypeAsString())
               .instancePlatform(specification.instancePlatformAsString())
@@ -159,9 +184,10 @@ public class Translator {
               .priority(specification.priority())
               .weight(specification.weight())
               .build());
-    });
+    }
 
-    builder.capacityReservationFleetId(crFleet.capacityReservationFleetId())
+    return ResourceModel.builder()
+            .capacityReservationFleetId(crFleet.capacityReservationFleetId())
             .allocationStrategy(crFleet.allocationStrategy())
             .tenancy(crFleet.tenancyAsString())
             .totalTargetCapacity(crFleet.totalTargetCapacity())
@@ -170,11 +196,80 @@ public class Translator {
             .instanceMatchCriteria(crFleet.instanceMatchCriteria().toString())
             .endDate(crFleet.endDate() != null ? String.valueOf(crFleet.endDate()) : null)
             .build();
+  }
 
-    final ResourceModel model = builder.build();
-    logger.log("[INFO] Mapped ResourceModel: " + model);
+  /**
+   * @param fleetTags tags of the fleet in the describe response
+   * @return a single capacity-reservation-fleet tag specification, null if the fleet has no tags
+   */
+  private static List<TagSpecification> translateFromFleetTags(final List<software.amazon.awssdk.services.ec2.model.Tag> fleetTags) {
+    if (fleetTags.isEmpty()) {
+      return null;
+    }
 
-    return model;
+    final List<Tag> tags = new ArrayList<>(fleetTags.size());
+    for (final software.amazon.awssdk.services.ec2.model.Tag tag : fleetTags) {
+      tags.add(Tag.builder().key(tag.key()).value(tag.value()).build());
+    }
+    return Collections.singletonList(TagSpecification.builder().resourceType(CR_FLEET_TAG_RESOURCE_TYPE).tags(tags).build());
+  }
+
+  /**
+   * @return initial capacity of a HashSet that holds the given number of elements without rehashing
+   */
+  private static int hashCapacity(final int size) {
+    return Math.max(16, (int) (size / 0.75f) + 1);
+  }
+
+  /**
+   * Request to read many resources at once
+   *
+   * @param crFleetIds at most DESCRIBE_MAX_IDS fleet ids
+   * @param nextToken token of the next page, null for the first page
+   * @return awsRequest the aws service request to describe the resources
+   */
+  public static DescribeCapacityReservationFleetsRequest translateToBatchReadRequest(final Collection<String> crFleetIds, final String nextToken) {
+    return DescribeCapacityReservationFleetsRequest.builder()
+            .capacityReservationFleetIds(crFleetIds)
+            .nextToken(nextToken)
+            .build();
+  }
+
+  /**
+   * Translates the fleets of a batched describe into resource models keyed by fleet id. Fleets that a Read would
+   * report as NotFound (failed, cancelled or expired) are left out.
+   *
+   * @param crFleets fleets of the aws service describe resources responses
+   * @return resource models by fleet id
+   */
+  public static Map<String, ResourceModel> translateFromBatchReadResponse(final Collection<CapacityReservationFleet> crFleets) {
+    final Map<String, ResourceModel> models = new LinkedHashMap<>();
+    streamOfOrEmpty(crFleets)
+            .filter(fleet -> !CapacityReservationFleetState.FAILED.equals(fleet.state()) &&
+                    !CapacityReservationFleetState.CANCELLED.equals(fleet.state()) &&
+                    !CapacityReservationFleetState.EXPIRED.equals(fleet.state()))
+            .forEach(fleet -> models.put(fleet.capacityReservationFleetId(), translateFromFleet(fleet, null)));
+    return models;
+  }
+
+  /**
+   * @param ex exception of an EC2 call
+   * @return true if EC2 rejected a fleet id as unknown or malformed
+   */
+  public static boolean isFleetNotFound(final AwsServiceException ex) {
+    if (ex.awsErrorDetails() == null || ex.awsErrorDetails().errorCode() == null) {
+      return false;
+    }
+    final String errorCode = ex.awsErrorDetails().errorCode();
+    return errorCode.equalsIgnoreCase(INVALID_CR_FLEET_ID_MALFORMED) || errorCode.equalsIgnoreCase(INVALID_CR_FLEET_ID_NOT_FOUND);
+  }
+
+  /**
+   * @param ex exception of an EC2 call
+   * @return true if EC2 throttled the call or failed with a server error, the errors that open the circuit breaker
+   */
+  public static boolean isServiceDegraded(final AwsServiceException ex) {
+    return ex.isThrottlingException() || 500 <= ex.statusCode();
   }
 
   public static ProgressEvent<ResourceModel, software.amazon.ec2.capacityreservationfleet.CallbackContext> translateToResourceFoundProgress(
@@ -184,7 +279,7 @@ public class Translator {
           final ResourceModel model,
           final boolean validateModifyingState) {
     try {
-      validateReadResponse(response, logger, validateModifyingState);
+      validateReadResponse(response, HandlerLogger.of(logger), validateModifyingState);
       return ProgressEvent.defaultInProgressHandler(context, 0, model);
     } catch (final BaseHandlerException ex) {
       return ProgressEvent.defaultFailureHandler(ex, ex.getErrorCode());
@@ -198,10 +293,20 @@ public class Translator {
    * @return awsRequest the aws service request to delete a resource
    */
   public static CancelCapacityReservationFleetsRequest translateToDeleteRequest(final ResourceModel model, final Logger logger) {
-    logger.log(String.format("[INFO] translateToDeleteRequest : %s", model));
+    HandlerLogger.of(logger).debug(() -> String.format("translateToDeleteRequest : %s", model));
     return CancelCapacityReservationFleetsRequest.builder().capacityReservationFleetIds(model.getCapacityReservationFleetId()).build();
   }
 
+  /**
+   * Request to cancel many resources at once
+   *
+   * @param crFleetIds at most CANCEL_MAX_IDS fleet ids
+   * @return awsRequest the aws service request to cancel the resources
+   */
+  public static CancelCapacityReservationFleetsRequest translateToBatchDeleteRequest(final Collection<String> crFleetIds) {
+    return CancelCapacityReservationFleetsRequest.builder().capacityReservationFleetIds(crFleetIds).build();
+  }
+
   /**
    * Request to update properties of a previously created resource
    *
@@ -214,17 +319,33 @@ public class Translator {
    * @return awsRequest the aws service request to modify a resource
    */
   public static ModifyCapacityReservationFleetRequest translateToUpdateRequest(final ResourceModel model, final Logger logger) {
+    return translateToUpdateRequest(null, model, logger);
+  }
+
+  /**
+   * Request to update only the properties that differ from the previous state.
+   *
+   * @param previousModel previous resource model, null to send every mutable property of model
+   * @param model resource model
+   * @return awsRequest the aws service request to modify a resource
+   */
+  public static ModifyCapacityReservationFleetRequest translateToUpdateRequest(final ResourceModel previousModel,
+                                                                               final ResourceModel model,
+                                                                               final Logger logger) {
     final String crFleetId = model.getCapacityReservationFleetId();
     final ModifyCapacityReservationFleetRequest.Builder builder = ModifyCapacityReservationFleetRequest.builder();
     builder.capacityReservationFleetId(crFleetId);
 
-    if (model.getTotalTargetCapacity() != null) {
+    if (model.getTotalTargetCapacity() != null
+            && (previousModel == null || !model.getTotalTargetCapacity().equals(previousModel.getTotalTargetCapacity()))) {
       builder.totalTargetCapacity(model.getTotalTargetCapacity());
     }
 
     if (model.getNoRemoveEndDate() != null && model.getRemoveEndDate() != null) {
-      logger.log(String.format("[INFO] caller specified both NoRemoveEndDate and RemoveEndDate in modifyCapacityReservationFleet request. crFleetId: %s", crFleetId));
+      HandlerLogger.of(logger).warn(() -> String.format("caller specified both NoRemoveEndDate and RemoveEndDate in modifyCapacityReservationFleet request. crFleetId: %s", crFleetId));
       throw new CfnInvalidRequestException("ModifyCapacityReservationFleet request cannot have both NoRemoveEndDate and RemoveEndDate.");
+    } else if (previousModel != null && !isEndDateChanged(previousModel, model)) {
+      HandlerLogger.of(logger).debug(() -> String.format("End date of crFleet %s is unchanged, not sending it.", crFleetId));
     } else if(model.getRemoveEndDate() != null) {
       builder.removeEndDate(model.getRemoveEndDate());
     } else if(model.getNoRemoveEndDate() != null && !StringUtils.isBlank(model.getEndDate())) {
@@ -234,14 +355,50 @@ public class Translator {
     return builder.build();
   }
 
+  /**
+   * @param previousModel previous resource model, null if unknown
+   * @param model desired resource model
+   * @return true if a property ModifyCapacityReservationFleet can change differs, or if there is no previous model
+   */
+  public static boolean hasMutableChanges(final ResourceModel previousModel, final ResourceModel model) {
+    if (previousModel == null) {
+      return true;
+    }
+    return !Objects.equals(previousModel.getTotalTargetCapacity(), model.getTotalTargetCapacity())
+            || isEndDateChanged(previousModel, model);
+  }
+
+  private static boolean isEndDateChanged(final ResourceModel previousModel, final ResourceModel model) {
+    return !Objects.equals(previousModel.getRemoveEndDate(), model.getRemoveEndDate())
+            || !Objects.equals(previousModel.getNoRemoveEndDate(), model.getNoRemoveEndDate())
+            || !Objects.equals(previousModel.getEndDate(), model.getEndDate());
+  }
+
   /**
    * Request to list resources
+   * Only fleets in a listed state are requested, so that EC2 filters cancelled, expired, cancelling and submitted
+   * fleets on the server side instead of returning them in the page.
    *
    * @param nextToken token passed to the aws service list resources request
    * @return awsRequest the aws service request to list resources within aws account
    */
   public static DescribeCapacityReservationFleetsRequest translateToListRequest(final String nextToken) {
-    return DescribeCapacityReservationFleetsRequest.builder().nextToken(nextToken).build();
+    return translateToListRequest(nextToken, LIST_MAX_RESULTS);
+  }
+
+  /**
+   * Request for a following page of a list, sized to the space left in the page of resource models.
+   *
+   * @param nextToken token passed to the aws service list resources request
+   * @param maxResults fleets to request, at most LIST_MAX_RESULTS
+   * @return awsRequest the aws service request to list resources within aws account
+   */
+  public static DescribeCapacityReservationFleetsRequest translateToListRequest(final String nextToken, final int maxResults) {
+    return DescribeCapacityReservationFleetsRequest.builder()
+            .filters(Filter.builder().name(STATE_FILTER_NAME).values(LISTED_STATES).build())
+            .maxResults(Math.max(1, Math.min(maxResults, LIST_MAX_RESULTS)))
+            .nextToken(nextToken)
+            .build();
   }
 
   /**
@@ -252,89 +409,60 @@ public class Translator {
    * @return list of resource models
    */
   public static List<ResourceModel> translateFromListRequest(final DescribeCapacityReservationFleetsResponse response) {
+    return translateFromListRequest(response, false);
+  }
+
+  /**
+   * Translates resource objects from sdk into resource models, either with the primary identifier only or fully
+   * hydrated from the same page with the mapping of {@link #translateFromReadResponse}, which saves a Read per fleet
+   * at no extra API call.
+   *
+   * @param response the aws service describe resource response
+   * @param hydrated true to map every property of the fleet
+   * @return list of resource models
+   */
+  public static List<ResourceModel> translateFromListRequest(final DescribeCapacityReservationFleetsResponse response, final boolean hydrated) {
     return streamOfOrEmpty(response.capacityReservationFleets())
             .filter(fleet ->
                     fleet.state() != null &&
                             (fleet.state().equals(CapacityReservationFleetState.ACTIVE) ||
                             fleet.state().equals(CapacityReservationFleetState.PARTIALLY_FULFILLED) ||
                             fleet.state().equals(CapacityReservationFleetState.FAILED)))
-            .map(fleet -> ResourceModel.builder()
-                    .capacityReservationFleetId(fleet.capacityReservationFleetId())
-                    .build())
+            .map(fleet -> hydrated
+                    ? translateFromFleet(fleet, null)
+                    : ResourceModel.builder()
+                            .capacityReservationFleetId(fleet.capacityReservationFleetId())
+                            .build())
             .collect(Collectors.toList());
   }
 
   /**
    * Inject tag specifications into request object.
+   * System, resource and stack-level tags are merged and validated by {@link TagMerger}.
    *
    * @param handlerRequest
    * @param model
    * @return
    */
-  private static List<software.amazon.awssdk.services.ec2.model.TagSpecification> getTags(
+  static List<software.amazon.awssdk.services.ec2.model.TagSpecification> getTags(
           final ResourceHandlerRequest<ResourceModel> handlerRequest, final ResourceModel model, final Logger logger) {
-    final List<software.amazon.awssdk.services.ec2.model.Tag> tags = new ArrayList<>();
-    final List<software.amazon.awssdk.services.ec2.model.TagSpecification> fleetTagSpecifications = new ArrayList<>();
-
-    // Get stack-level tags from CFN
-    if (handlerRequest.getDesiredResourceTags() != null) {
-      handlerRequest.getDesiredResourceTags().forEach((key, value) -> {
-        software.amazon.awssdk.services.ec2.model.Tag tag = software.amazon.awssdk.services.ec2.model.Tag.builder()
-                .key(key)
-                .value(value)
-                .build();
-        tags.add(tag);
-      });
-    }
+    final HandlerLogger log = HandlerLogger.of(logger);
 
     /* Get CFN system tags https://docs.aws.amazon.com/AWSCloudFormation/latest/UserGuide/aws-properties-resource-tags.html
       aws:cloudformation:logical-id
       aws:cloudformation:stack-id
       aws:cloudformation:stack-name
      */
-    if (handlerRequest.getSystemTags() != null) {
-      handlerRequest.getSystemTags().forEach((key, value) -> {
-        software.amazon.awssdk.services.ec2.model.Tag tag = software.amazon.awssdk.services.ec2.model.Tag.builder()
-                .key(key)
-                .value(value)
-                .build();
-        tags.add(tag);
-      });
+    if (MapUtils.isEmpty(handlerRequest.getSystemTags()) && MapUtils.isEmpty(handlerRequest.getDesiredResourceTags())) {
+      log.info("No stack-level tags and system tags for CFN");
     }
 
-    if (tags.isEmpty()) {
-      logger.log("No stack-level tags and system tags for CFN");
-    }
-
-    // Get user-provided tags
-    if (model.getTagSpecifications() != null && model.getTagSpecifications().size() > 0) {
-      for (TagSpecification tagSpecification : model.getTagSpecifications()) {
-        if (tagSpecification.getResourceType().equalsIgnoreCase(CR_FLEET_TAG_RESOURCE_TYPE)) {
-          tags.addAll(tagSpecification.getTags().stream().map(tag -> software.amazon.awssdk.services.ec2.model.Tag.builder()
-                  .key(tag.getKey())
-                  .value(tag.getValue())
-                  .build()).collect(Collectors.toList()));
-        } else {
-          fleetTagSpecifications.add(software.amazon.awssdk.services.ec2.model.TagSpecification.builder()
-                  .resourceType(tagSpecification.getResourceType())
-                  .tags(tagSpecification.getTags().stream().map(tag -> software.amazon.awssdk.services.ec2.model.Tag.builder()
-                          .key(tag.getKey())
-                          .value(tag.getValue())
-                          .build()).collect(Collectors.toList()))
-                  .build());
-        }
-      }
-    }
-
-    if (tags.isEmpty()) {
-      return fleetTagSpecifications;
-    }
-
-    logger.log("TagSpecifications to add : " + fleetTagSpecifications);
-    fleetTagSpecifications.add(software.amazon.awssdk.services.ec2.model.TagSpecification.builder()
-            .resourceType(CR_FLEET_TAG_RESOURCE_TYPE)
-            .tags(tags)
-            .build());
+    final List<software.amazon.awssdk.services.ec2.model.TagSpecification> fleetTagSpecifications = TagMerger.merge(
+            handlerRequest.getSystemTags(),
+            model.getTagSpecifications(),
+            handlerRequest.getDesiredResourceTags(),
+            CR_FLEET_TAG_RESOURCE_TYPE);
+    log.debug(() -> "TagSpecifications to add : " + fleetTagSpecifications);
     return fleetTagSpecifications;
   }
 
@@ -345,7 +473,7 @@ public class Translator {
       return ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.ServiceInternalError);
     } else if (ex.awsErrorDetails() != null) {
       final String errorCode = ex.awsErrorDetails().errorCode();
-      if (errorCode.equalsIgnoreCase(INVALID_CR_FLEET_ID_MALFORMED) || errorCode.equalsIgnoreCase(INVALID_CR_FLEET_ID_NOT_FOUND)) {
+      if (isFleetNotFound(ex)) {
         return ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.NotFound);
       } else if (errorCode.equalsIgnoreCase(INVALID_CR_FLEET_STATE_TRANSITION)) { // when customer tries to modify a cr fleet in unstable status (i.e.,modifying)
         return ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.NotStabilized);
@@ -366,11 +494,17 @@ public class Translator {
   }
 
   public static ProgressEvent<ResourceModel, CallbackContext> translateToFailure(final Exception ex) {
+    final ProgressEvent<ResourceModel, CallbackContext> failure;
     if (ex instanceof SdkException) {
-      return translateSdkExceptionToFailure((SdkException)ex);
+      failure = translateSdkExceptionToFailure((SdkException)ex);
+    } else if (ex instanceof Ec2CircuitBreaker.OpenException || ex instanceof Ec2RateLimiter.WaitExceededException) {
+      failure = ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.Throttling);
+    } else {
+      failure = ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.ServiceInternalError);
     }
 
-    return ProgressEvent.defaultFailureHandler(ex, HandlerErrorCode.ServiceInternalError);
+    HandlerMetrics.current().failure(failure.getErrorCode());
+    return failure;
   }
 
   private static <T> Stream<T> streamOfOrEmpty(final Collection<T> collection) {
@@ -392,37 +526,37 @@ public class Translator {
    */
   private static void validateReadResponse(
           final DescribeCapacityReservationFleetsResponse response,
-          final Logger logger,
+          final HandlerLogger logger,
           final boolean validateModifyingState) {
-    logger.log(String.format("[INFO] Validating DescribeCapacityReservationFleetsResponse: %s", response));
+    logger.debug(() -> String.format("Validating DescribeCapacityReservationFleetsResponse: %s", response));
 
     if (response == null || !response.hasCapacityReservationFleets() || (response.capacityReservationFleets() == null || response.capacityReservationFleets().size() == 0)) {
       final String requestId = response != null && response.responseMetadata() != null ?
               response.responseMetadata().requestId() : null;
       final String message = String.format("Failed to describe capacity reservation fleet. DescribeCapacityReservationFleets requestId: %s", requestId);
-      logger.log(String.format("[WARN] %s", message));
+      logger.warn(message);
 
       throw new CfnServiceInternalErrorException(message);
     }
 
     response.capacityReservationFleets().forEach(fleet -> {
-      logger.log(String.format("[INFO] checking fleet status: %s", fleet.state()));
+      logger.debug(() -> String.format("checking fleet status: %s", fleet.state()));
       if (CapacityReservationFleetState.FAILED.equals(fleet.state()) ||
               CapacityReservationFleetState.CANCELLED.equals(fleet.state()) ||
               CapacityReservationFleetState.EXPIRED.equals(fleet.state())) {
-        logger.log(String.format("[INFO] CRFleet %s is not in an active state.", fleet.capacityReservationFleetId()));
+        logger.info(() -> String.format("CRFleet %s is not in an active state.", fleet.capacityReservationFleetId()));
         throw new CfnNotFoundException(ResourceModel.TYPE_NAME, fleet.capacityReservationFleetId());
       } else if (CapacityReservationFleetState.SUBMITTED.equals(fleet.state()) ||
               CapacityReservationFleetState.CANCELLING.equals(fleet.state()) ||
               CapacityReservationFleetState.EXPIRING.equals(fleet.state()) ||
               (validateModifyingState && CapacityReservationFleetState.MODIFYING.equals(fleet.state()))) {
-        logger.log(String.format("[INFO] CRFleet %s is in a in_progress state. state: %s. Throwing NotStabilizedException.",
+        logger.info(() -> String.format("CRFleet %s is in a in_progress state. state: %s. Throwing NotStabilizedException.",
                 fleet.capacityReservationFleetId(), fleet.state()));
 
         throw new CfnNotStabilizedException(ResourceModel.TYPE_NAME, fleet.capacityReservationFleetId());
       }
     });
 
-    logger.log(String.format("[INFO] Validation done for DescribeCapacityReservationFleetsResponse: %s", response));
+    logger.debug(() -> String.format("Validation done for DescribeCapacityReservationFleetsResponse: %s", response));
   }
 }
@@ -4,7 +4,6 @@ import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
-import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
 import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetResponse;
@@ -23,63 +22,79 @@ public class UpdateHandler extends BaseHandlerStd {
         final CallbackContext callbackContext,
         final ProxyClient<Ec2Client> proxyClient,
         final Logger logger) {
-        this.logger = logger;
+        final HandlerLogger log = HandlerLogger.of(logger);
+        this.logger = log;
+        final Ec2Calls ec2Calls = ec2Calls(proxy, request, callbackContext, proxyClient);
+        final String existCallGraph = CALL_GRAPH_PREFIX + "Update-exist";
+        final String updateCallGraph = CALL_GRAPH_PREFIX + "Update-update";
 
-        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
-            .then(progress ->
-                proxy.initiate("AWS-EC2-CapacityReservationFleet::Update-exist", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                        .translateToServiceRequest((model) -> Translator.translateToReadRequest(model, logger))
-                        .makeServiceCall((describeRequest, ec2ClientProxyClient) -> describeCapacityReservationFleets(describeRequest, ec2ClientProxyClient, logger))
-                        .handleError((awsRequest, exception, client, model, context) -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context))
+        if (!Translator.hasMutableChanges(request.getPreviousResourceState(), request.getDesiredResourceState())) {
+            log.info("TotalTargetCapacity and the end date are unchanged, skipping ModifyCapacityReservationFleet.");
+            return new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, log);
+        }
+
+        return resumable(request.getDesiredResourceState(), callbackContext, () -> ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+            // a re-invocation after a stabilization yield resumes at the stabilize step of the update chain
+            .then(progress -> isResumingStabilization(progress.getCallbackContext(), updateCallGraph) ? progress :
+                proxy.initiate(existCallGraph, proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                        .translateToServiceRequest((model) -> traced(existCallGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToReadRequest(model, log)))
+                        .makeServiceCall((describeRequest, ec2ClientProxyClient) -> traced(existCallGraph, HandlerTracing.SERVICE_CALL, () -> describeCapacityReservationFleets(describeRequest, ec2Calls, log)))
+                        .handleError((awsRequest, exception, client, model, context) -> traced(existCallGraph, HandlerTracing.ERROR_HANDLING, () -> handleDescribeCapacityReservationFleetsError(awsRequest, exception, proxyClient, model, context)))
                         .done((describeFleetsRequest, describeFleetsResponse, client, model, context) ->
-                                Translator.translateToResourceFoundProgress(describeFleetsResponse, logger, context, model, true)))
+                                Translator.translateToResourceFoundProgress(describeFleetsResponse, log, context, model, true)))
             .then(progress ->
-                proxy.initiate("AWS-EC2-CapacityReservationFleet::Update-update", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                        .translateToServiceRequest((model) -> Translator.translateToUpdateRequest(model, logger))
-                        .makeServiceCall((awsRequest, ec2ClientProxyClient) -> {
+                proxy.initiate(updateCallGraph, proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                        .translateToServiceRequest((model) -> traced(updateCallGraph, HandlerTracing.TRANSLATE, () -> Translator.translateToUpdateRequest(request.getPreviousResourceState(), model, log)))
+                        .backoffDelay(stabilizationDelay(progress.getResourceModel(), progress.getCallbackContext()))
+                        .makeServiceCall((awsRequest, ec2ClientProxyClient) -> traced(updateCallGraph, HandlerTracing.SERVICE_CALL, () -> {
                             ModifyCapacityReservationFleetResponse response = null;
                             try {
-                                logger.log(String.format("[INFO] Calling modifyCapacityReservationFleet for update with request: %s", request));
-                                response = ec2ClientProxyClient.injectCredentialsAndInvokeV2(awsRequest, ec2ClientProxyClient.client()::modifyCapacityReservationFleet);
-                                logger.log(String.format("[INFO] modifyCapacityReservationFleet response: %s", response));
+                                log.debug(() -> String.format("Calling modifyCapacityReservationFleet for update with request: %s", request));
+                                response = Ec2Calls.join(ec2Calls.modifyCapacityReservationFleet(awsRequest));
+                                final ModifyCapacityReservationFleetResponse modifyResponse = response;
+                                log.debug(() -> String.format("modifyCapacityReservationFleet response: %s", modifyResponse));
 
                                 if (!response.returnValue()) {
-                                    logger.log(String.format("[ERROR] ModifyCapacityReservationFleet request failed. crFleetId: %s", awsRequest.capacityReservationFleetId()));
+                                    log.error(() -> String.format("ModifyCapacityReservationFleet request failed. crFleetId: %s", awsRequest.capacityReservationFleetId()));
                                     throw AwsServiceException.builder().awsErrorDetails(AwsErrorDetails.builder()
                                             .errorMessage("ModifyCapacityReservationFleet failed.").build()).statusCode(500).build();
                                 }
 
                                 return response;
                             } catch (final AwsServiceException e) {
-                                logger.log(String.format("[INFO] Exception thrown while modifying fleet request: %s", e));
+                                log.warn(() -> String.format("Exception thrown while modifying fleet request: %s", e));
                                 throw e;
                             }
-                        })
-                        .stabilize((awsRequest, awsResponse, client, model, context) -> {
+                        }))
+                        .stabilize((awsRequest, awsResponse, client, model, context) -> traced(updateCallGraph, HandlerTracing.STABILIZE_POLL, () -> {
                             boolean stabilized = false;
                             try {
-                                final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, logger);
-                                final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, proxyClient, logger);
+                                final DescribeCapacityReservationFleetsRequest describeCapacityReservationFleetsRequest = Translator.translateToReadRequest(model, log);
+                                final DescribeCapacityReservationFleetsResponse describeCapacityReservationFleetsResponse = describeCapacityReservationFleets(describeCapacityReservationFleetsRequest, ec2Calls, log);
 
                                 if (describeCapacityReservationFleetsResponse.hasCapacityReservationFleets()) {
                                     final CapacityReservationFleet crFleet = describeCapacityReservationFleetsResponse.capacityReservationFleets().get(0);
-                                    stabilized = (CapacityReservationFleetState.ACTIVE.equals(crFleet.state()) || CapacityReservationFleetState.PARTIALLY_FULFILLED.equals(crFleet.state()));
-                                    logger.log(String.format("[INFO] Modified cr fleet is in %s state. Stabilized: ", crFleet.state(), stabilized));
+                                    stabilized = fulfillmentThreshold().isStabilized(crFleet, context, System.currentTimeMillis(), log);
+                                    log.info(String.format("Modified cr fleet is in %s state with %s of %s capacity fulfilled. Stabilized: %s", crFleet.state(), crFleet.totalFulfilledCapacity(), crFleet.totalTargetCapacity(), stabilized));
+                                }
+
+                                if (stabilized) {
+                                    context.setStabilizedDescribeResponse(describeCapacityReservationFleetsResponse);
                                 }
 
-                                return stabilized;
+                                return endStabilizationPoll(updateCallGraph, stabilized, model, context);
                             } catch (final AwsServiceException ex) {
-                                logger.log(String.format("[ERROR] A exception occurred during stabilization: %s", ex));
+                                log.error(() -> String.format("A exception occurred during stabilization: %s", ex));
 
                                 if (isUnauthorizedException(ex)) {
-                                    logger.log(String.format("[INFO] User is missing permissions for DescribeCapacityReservationFleets during Update."));
+                                    log.warn("User is missing permissions for DescribeCapacityReservationFleets during Update.");
                                 }
 
                                 throw ex;
                             }
-                        })
-                        .handleError((awsRequest, exception, client, model, context) -> Translator.translateToFailure(exception))
+                        }))
+                        .handleError((awsRequest, exception, client, model, context) -> traced(updateCallGraph, HandlerTracing.ERROR_HANDLING, () -> handleServiceCallError(exception, model, context)))
                         .progress())
-            .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+            .then(progress -> readAfterStabilization(proxy, request, progress.getCallbackContext(), proxyClient, log)));
     }
 }
@@ -1,5 +1,6 @@
 package software.amazon.ec2.capacityreservationfleet;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -8,11 +9,13 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import software.amazon.awssdk.awscore.AwsRequest;
 import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
@@ -21,6 +24,7 @@ import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Credentials;
 import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.resource.Serializer;
 
 public class AbstractTestBase {
   protected static final Credentials MOCK_CREDENTIALS;
@@ -44,7 +48,7 @@ public class AbstractTestBase {
       public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
       CompletableFuture<ResponseT>
       injectCredentialsAndInvokeV2Async(RequestT request, Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
-        throw new UnsupportedOperationException();
+        return proxy.injectCredentialsAndInvokeV2Async(request, requestFunction);
       }
 
       @Override
@@ -73,6 +77,59 @@ public class AbstractTestBase {
     };
   }
 
+  static ProxyClient<Ec2AsyncClient> MOCK_ASYNC_PROXY(
+    final AmazonWebServicesClientProxy proxy,
+    final Ec2AsyncClient ec2AsyncClient) {
+    return new ProxyClient<Ec2AsyncClient>() {
+      @Override
+      public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT
+      injectCredentialsAndInvokeV2(RequestT request, Function<RequestT, ResponseT> requestFunction) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+      CompletableFuture<ResponseT>
+      injectCredentialsAndInvokeV2Async(RequestT request, Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+        return proxy.injectCredentialsAndInvokeV2Async(request, requestFunction);
+      }
+
+      @Override
+      public <RequestT extends AwsRequest, ResponseT extends AwsResponse, IterableT extends SdkIterable<ResponseT>>
+      IterableT
+      injectCredentialsAndInvokeIterableV2(RequestT request, Function<RequestT, IterableT> requestFunction) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseInputStream<ResponseT>
+      injectCredentialsAndInvokeV2InputStream(RequestT requestT, Function<RequestT, ResponseInputStream<ResponseT>> function) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseBytes<ResponseT>
+      injectCredentialsAndInvokeV2Bytes(RequestT requestT, Function<RequestT, ResponseBytes<ResponseT>> function) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Ec2AsyncClient client() {
+        return ec2AsyncClient;
+      }
+    };
+  }
+
+  /**
+   * Serializes and deserializes a callback context the way CloudFormation hands it back on a re-invocation.
+   */
+  static CallbackContext roundTrip(final CallbackContext context) throws IOException {
+    final Serializer serializer = new Serializer();
+    final CallbackContext deserialized = serializer.deserialize(serializer.serialize(context), new TypeReference<CallbackContext>() { });
+    deserialized.setInvocationStartNanos(System.nanoTime());
+    return deserialized;
+  }
+
   public static DescribeCapacityReservationFleetsResponse translateToDescribeCapacityReservationFleetsResponse(final ResourceModel model) {
     final DescribeCapacityReservationFleetsResponse.Builder builder = DescribeCapacityReservationFleetsResponse.builder();
     final List<FleetCapacityReservation> instanceTypeSpecifications = new ArrayList<>();
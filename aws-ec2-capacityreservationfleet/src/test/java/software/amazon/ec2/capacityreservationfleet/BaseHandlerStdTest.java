@@ -0,0 +1,113 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BaseHandlerStdTest extends AbstractTestBase {
+
+    private AmazonWebServicesClientProxy proxy;
+    private ProxyClient<Ec2Client> proxyClient;
+    private Ec2Client ec2Client;
+    private final ReadHandler handler = new ReadHandler();
+
+    @BeforeEach
+    public void setup() {
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        ec2Client = mock(Ec2Client.class);
+        proxyClient = MOCK_PROXY(proxy, ec2Client);
+    }
+
+    private static List<String> fleetIds(final int count) {
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("crf-%04d", i));
+        }
+        return ids;
+    }
+
+    private void describeAnswers(final String... missingIds) {
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenAnswer(invocation -> {
+            final DescribeCapacityReservationFleetsRequest request = invocation.getArgument(0);
+            if (request.capacityReservationFleetIds().stream().anyMatch(Arrays.asList(missingIds)::contains)) {
+                throw AwsServiceException.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode(Translator.INVALID_CR_FLEET_ID_NOT_FOUND).build())
+                        .statusCode(400)
+                        .build();
+            }
+            return DescribeCapacityReservationFleetsResponse.builder()
+                    .capacityReservationFleets(request.capacityReservationFleetIds().stream()
+                            .map(id -> CapacityReservationFleet.builder()
+                                    .capacityReservationFleetId(id)
+                                    .state(id.endsWith("9") ? CapacityReservationFleetState.CANCELLED : CapacityReservationFleetState.ACTIVE)
+                                    .instanceMatchCriteria("open")
+                                    .build())
+                            .collect(Collectors.toList()))
+                    .build();
+        });
+    }
+
+    @Test
+    public void describeCapacityReservationFleets_describesOneHundredIdsPerCall() {
+        describeAnswers();
+        final List<String> ids = fleetIds(250);
+
+        final Map<String, ResourceModel> models = handler.describeCapacityReservationFleets(ids, Ec2Calls.sync(proxyClient), logger);
+
+        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        // cancelled fleets are reported like a Read reports them, as not found
+        assertThat(models).hasSize(225);
+        assertThat(models.keySet()).containsExactlyElementsOf(ids.stream().filter(id -> !id.endsWith("9")).collect(Collectors.toList()));
+        assertThat(models.get("crf-0000").getCapacityReservationFleetId()).isEqualTo("crf-0000");
+    }
+
+    @Test
+    public void describeCapacityReservationFleets_isolatesUnknownIds() {
+        describeAnswers("crf-0002");
+        final List<String> ids = fleetIds(8);
+
+        final Map<String, ResourceModel> models = handler.describeCapacityReservationFleets(ids, Ec2Calls.sync(proxyClient), logger);
+
+        // 8 -> 4 + 4 -> 2 + 2 -> 1 + 1
+        verify(ec2Client, times(7)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(models.keySet()).containsExactly("crf-0000", "crf-0001", "crf-0003", "crf-0004", "crf-0005", "crf-0006", "crf-0007");
+    }
+
+    @Test
+    public void describeCapacityReservationFleets_rethrowsOtherErrors() {
+        final AwsServiceException throttled = AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("RequestLimitExceeded").build())
+                .statusCode(503)
+                .build();
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenThrow(throttled);
+
+        assertThatThrownBy(() -> handler.describeCapacityReservationFleets(fleetIds(3), Ec2Calls.sync(proxyClient), logger))
+                .isSameAs(throttled);
+    }
+}
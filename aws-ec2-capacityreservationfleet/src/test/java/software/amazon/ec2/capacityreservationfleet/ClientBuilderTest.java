@@ -0,0 +1,40 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientBuilderTest {
+
+    @Test
+    public void getClient_isCachedPerRegion() {
+        final Ec2Client usEast1 = ClientBuilder.getClient("us-east-1");
+
+        assertThat(ClientBuilder.getClient("us-east-1")).isSameAs(usEast1);
+        assertThat(ClientBuilder.getClient("eu-west-1")).isNotSameAs(usEast1);
+    }
+
+    @Test
+    public void overrideConfiguration_setsTimeoutsAndRetries() {
+        final ClientOverrideConfiguration configuration = ClientBuilder.overrideConfiguration();
+
+        assertThat(configuration.apiCallAttemptTimeout()).contains(Duration.ofSeconds(10));
+        assertThat(configuration.apiCallTimeout()).contains(Duration.ofSeconds(30));
+        assertThat(configuration.retryPolicy()).hasValueSatisfying(retryPolicy ->
+                assertThat(retryPolicy.numRetries()).isEqualTo(5));
+    }
+
+    @Test
+    public void overrideConfiguration_readsSettings() {
+        System.setProperty("crfleet.api.call.timeout.ms", "45000");
+        try {
+            assertThat(ClientBuilder.overrideConfiguration().apiCallTimeout()).contains(Duration.ofSeconds(45));
+        } finally {
+            System.clearProperty("crfleet.api.call.timeout.ms");
+        }
+    }
+}
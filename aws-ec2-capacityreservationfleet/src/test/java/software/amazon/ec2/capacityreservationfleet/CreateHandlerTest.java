@@ -1,13 +1,17 @@
 package software.amazon.ec2.capacityreservationfleet;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.assertj.core.api.Assertions;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
 import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
@@ -146,6 +150,66 @@ public class CreateHandlerTest extends AbstractTestBase {
         assertThat(result.getErrorCode()).isNull();
     }
 
+    @Test
+    public void handleRequest_SimpleSuccess_withAsyncClient() {
+        final Ec2AsyncClient ec2AsyncClient = mock(Ec2AsyncClient.class);
+        final CreateHandler handler = asyncCreateHandler(ec2AsyncClient);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        final CreateCapacityReservationFleetResponse response = CreateCapacityReservationFleetResponse.builder()
+                .capacityReservationFleetId(crFleetId).state(CapacityReservationFleetState.SUBMITTED).build();
+        when(ec2AsyncClient.createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class))).thenReturn(CompletableFuture.completedFuture(response));
+        when(ec2AsyncClient.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId)));
+
+        final ProgressEvent<ResourceModel, CallbackContext> result = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        // the blocking client only serves the call chain, all EC2 calls go through the async client
+        verify(ec2AsyncClient).createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class));
+        verify(ec2AsyncClient).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(result.getResourceModel()).isEqualTo(request.getDesiredResourceState());
+        assertThat(result.getErrorCode()).isNull();
+    }
+
+    @Test
+    public void handleRequest_handleError_WhenAsyncCreateCRFleetFails() {
+        final Ec2AsyncClient ec2AsyncClient = mock(Ec2AsyncClient.class);
+        final CreateHandler handler = asyncCreateHandler(ec2AsyncClient);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        final CompletableFuture<CreateCapacityReservationFleetResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(AwsServiceException.builder().message("serviceException").build());
+        when(ec2AsyncClient.createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class))).thenReturn(failed);
+
+        final ProgressEvent<ResourceModel, CallbackContext> result = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(result).isNotNull();
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(result.getMessage()).containsIgnoringCase("serviceException");
+        assertThat(result.getErrorCode()).isEqualTo(HandlerErrorCode.GeneralServiceException);
+    }
+
+    private CreateHandler asyncCreateHandler(final Ec2AsyncClient ec2AsyncClient) {
+        return new CreateHandler() {
+            @Override
+            protected boolean isAsyncClientEnabled() {
+                return true;
+            }
+
+            @Override
+            protected ProxyClient<Ec2AsyncClient> newAsyncProxyClient(final AmazonWebServicesClientProxy proxy, final String region) {
+                return MOCK_ASYNC_PROXY(proxy, ec2AsyncClient);
+            }
+        };
+    }
+
     @Test
     public void handleRequest_handleError_WhenCreateCRFleetThrowsException() {
         final CreateHandler handler = new CreateHandler();
@@ -231,7 +295,7 @@ public class CreateHandlerTest extends AbstractTestBase {
         final ProgressEvent<ResourceModel, CallbackContext> result = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
 
         verify(ec2Client, atLeastOnce()).createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class));
-        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -261,7 +325,7 @@ public class CreateHandlerTest extends AbstractTestBase {
         final ProgressEvent<ResourceModel, CallbackContext> result = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
 
         verify(ec2Client, atLeastOnce()).createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class));
-        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -272,6 +336,50 @@ public class CreateHandlerTest extends AbstractTestBase {
         assertThat(result.getErrorCode()).isNull();
     }
 
+    @Test
+    public void handleRequest_yieldsAfterStabilizationBudgetAndResumesWithoutCreatingAgain() throws IOException {
+        final CreateHandler handler = new CreateHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        final CreateCapacityReservationFleetResponse response = CreateCapacityReservationFleetResponse.builder()
+                .capacityReservationFleetId(crFleetId).state(CapacityReservationFleetState.SUBMITTED).build();
+        when(ec2Client.createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class))).thenReturn(response);
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(createDescribeResponse(CapacityReservationFleetState.SUBMITTED, crFleetId))
+                .thenReturn(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId));
+
+        final CallbackContext context = new CallbackContext();
+        context.setInvocationStartNanos(System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+        final ProgressEvent<ResourceModel, CallbackContext> yielded;
+        System.setProperty("crfleet.stabilization.budget.seconds", "1");
+        try {
+            yielded = handler.handleRequest(proxy, request, context, proxyClient, logger);
+        } finally {
+            System.clearProperty("crfleet.stabilization.budget.seconds");
+        }
+
+        assertThat(yielded.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(yielded.getCallbackDelaySeconds()).isPositive();
+        assertThat(yielded.getCallbackContext().getStabilizingCallGraph()).isEqualTo(BaseHandlerStd.CALL_GRAPH_PREFIX + "Create");
+        final int yieldedAttempts = yielded.getCallbackContext().getStabilizationAttempts();
+        assertThat(yieldedAttempts).isPositive();
+
+        final CallbackContext resumedContext = roundTrip(yielded.getCallbackContext());
+        assertThat(resumedContext.getStabilizationAttempts()).isEqualTo(yieldedAttempts);
+        assertThat(resumedContext.getStabilizingCallGraph()).isEqualTo(BaseHandlerStd.CALL_GRAPH_PREFIX + "Create");
+
+        final ProgressEvent<ResourceModel, CallbackContext> result = handler.handleRequest(proxy, request, resumedContext, proxyClient, logger);
+
+        // the memoized Create response of the first invocation is reused, only the stabilize step polls again
+        verify(ec2Client, times(1)).createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class));
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(result.getCallbackContext().getStabilizationAttempts()).isGreaterThanOrEqualTo(yieldedAttempts);
+        assertThat(result.getCallbackContext().getStabilizingCallGraph()).isNull();
+    }
+
     @Test
     public void handleRequest_handleError_whenDescribeResponseFailByUnauthorizedException() {
         final CreateHandler handler = new CreateHandler();
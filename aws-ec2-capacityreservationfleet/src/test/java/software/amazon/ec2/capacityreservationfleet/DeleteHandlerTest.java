@@ -2,6 +2,7 @@ package software.amazon.ec2.capacityreservationfleet;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import org.assertj.core.api.Assertions;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
@@ -103,6 +104,45 @@ public class DeleteHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void handleRequest_yieldsAfterStabilizationBudgetAndResumesAtStabilize() {
+        final DeleteHandler handler = new DeleteHandler();
+        final ResourceModel model = ResourceModel.builder().capacityReservationFleetId(crFleetId).build();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder().capacityReservationFleets(Arrays.asList(CapacityReservationFleet.builder().capacityReservationFleetId(crFleetId).state(CapacityReservationFleetState.ACTIVE).build())).build())
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder().capacityReservationFleets(Arrays.asList(CapacityReservationFleet.builder().capacityReservationFleetId(crFleetId).state(CapacityReservationFleetState.CANCELLING).build())).build())
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder().capacityReservationFleets(Arrays.asList(CapacityReservationFleet.builder().capacityReservationFleetId(crFleetId).state(CapacityReservationFleetState.CANCELLED).build())).build());
+        when(ec2Client.cancelCapacityReservationFleets(any(CancelCapacityReservationFleetsRequest.class))).thenReturn(CancelCapacityReservationFleetsResponse.builder()
+                .successfulFleetCancellations(CapacityReservationFleetCancellationState.builder().capacityReservationFleetId(crFleetId).build()).build());
+
+        final CallbackContext context = new CallbackContext();
+        context.setInvocationStartNanos(System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+        final ProgressEvent<ResourceModel, CallbackContext> yielded;
+        System.setProperty("crfleet.stabilization.budget.seconds", "1");
+        try {
+            yielded = handler.handleRequest(proxy, request, context, proxyClient, logger);
+        } finally {
+            System.clearProperty("crfleet.stabilization.budget.seconds");
+        }
+
+        assertThat(yielded.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(yielded.getCallbackDelaySeconds()).isPositive();
+        assertThat(yielded.getCallbackContext().getStabilizingCallGraph()).isEqualTo(BaseHandlerStd.CALL_GRAPH_PREFIX + "Delete-delete");
+        assertThat(yielded.getCallbackContext().getStabilizationAttempts()).isEqualTo(2);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, yielded.getCallbackContext(), proxyClient, logger);
+
+        // existing-fleet check and the first poll, then only the resumed poll
+        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        verify(ec2Client, atLeastOnce()).cancelCapacityReservationFleets(any(CancelCapacityReservationFleetsRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getStabilizingCallGraph()).isNull();
+    }
+
     @Test
     public void handleRequest_handleError_WhenCancelCRFleetThrowsException() {
         final DeleteHandler handler = new DeleteHandler();
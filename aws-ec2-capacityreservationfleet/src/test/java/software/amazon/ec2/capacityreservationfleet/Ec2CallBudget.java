@@ -0,0 +1,96 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static software.amazon.ec2.capacityreservationfleet.Ec2CallAccounting.CANCEL;
+import static software.amazon.ec2.capacityreservationfleet.Ec2CallAccounting.CREATE;
+import static software.amazon.ec2.capacityreservationfleet.Ec2CallAccounting.DESCRIBE;
+import static software.amazon.ec2.capacityreservationfleet.Ec2CallAccounting.HANDLER_STAGE;
+import static software.amazon.ec2.capacityreservationfleet.Ec2CallAccounting.MODIFY;
+
+/**
+ * EC2 calls a handler action may make, per run of each call-graph stage, checked against the
+ * {@link Ec2CallAccounting} of an invocation. A call to an API in a stage without an allowance is over budget, so a
+ * new call fails the build until its budget is declared here.
+ *
+ * The stabilize polls are budgeted per poll, e.g. Create allows 1 Create plus 1 Describe per stabilize poll, and the
+ * final read is budgeted for the case the stabilization response can't be reused.
+ */
+final class Ec2CallBudget {
+    static final Ec2CallBudget CREATE_BUDGET = forAction("Create")
+            .allow("Create/" + HandlerTracing.SERVICE_CALL, CREATE, 1)
+            .allow("Create/" + HandlerTracing.STABILIZE_POLL, DESCRIBE, 1)
+            .allow("Read/" + HandlerTracing.SERVICE_CALL, DESCRIBE, 1);
+
+    static final Ec2CallBudget READ_BUDGET = forAction("Read")
+            .allow("Read/" + HandlerTracing.SERVICE_CALL, DESCRIBE, 1);
+
+    static final Ec2CallBudget UPDATE_BUDGET = forAction("Update")
+            .allow("Update-exist/" + HandlerTracing.SERVICE_CALL, DESCRIBE, 1)
+            .allow("Update-update/" + HandlerTracing.SERVICE_CALL, MODIFY, 1)
+            .allow("Update-update/" + HandlerTracing.STABILIZE_POLL, DESCRIBE, 1)
+            .allow("Read/" + HandlerTracing.SERVICE_CALL, DESCRIBE, 1);
+
+    static final Ec2CallBudget DELETE_BUDGET = forAction("Delete")
+            .allow("Delete-exist/" + HandlerTracing.SERVICE_CALL, DESCRIBE, 1)
+            .allow("Delete-delete/" + HandlerTracing.SERVICE_CALL, CANCEL, 1)
+            .allow("Delete-delete/" + HandlerTracing.STABILIZE_POLL, DESCRIBE, 1);
+
+    /**
+     * A page of LIST_MAX_RESULTS fleets normally takes one Describe, the second covers a short first page.
+     */
+    static final Ec2CallBudget LIST_BUDGET = forAction("List")
+            .allow("List/" + HANDLER_STAGE, DESCRIBE, 2);
+
+    private final String action;
+    private final Map<String, Map<String, Integer>> allowances = new LinkedHashMap<>();
+
+    private Ec2CallBudget(final String action) {
+        this.action = action;
+    }
+
+    static Ec2CallBudget forAction(final String action) {
+        return new Ec2CallBudget(action);
+    }
+
+    /**
+     * @param stage call graph without prefix and stage, e.g. Create/stabilize-poll
+     * @param api Describe, Create, Modify or Cancel
+     * @param callsPerRun calls allowed every time the stage runs, in total for the handler stage
+     * @return this budget
+     */
+    Ec2CallBudget allow(final String stage, final String api, final int callsPerRun) {
+        allowances.computeIfAbsent(stage, key -> new LinkedHashMap<>()).put(api, callsPerRun);
+        return this;
+    }
+
+    /**
+     * @param accounting calls of an invocation
+     * @return a description of every stage and API over budget, empty if the invocation is within the budget
+     */
+    List<String> violations(final Ec2CallAccounting accounting) {
+        final List<String> violations = new ArrayList<>();
+        accounting.callsByStage().forEach((stage, calls) -> calls.forEach((api, count) -> {
+            final int runs = Math.max(1, accounting.runs(stage));
+            final int allowed = allowances.getOrDefault(stage, new LinkedHashMap<>()).getOrDefault(api, 0) * runs;
+            if (count > allowed) {
+                violations.add(String.format("%s made %d %s calls in %s (%d runs), the budget is %d", action, count, api, stage, runs, allowed));
+            }
+        }));
+        return violations;
+    }
+
+    /**
+     * @param accounting calls of an invocation
+     * @throws AssertionError if the invocation is over budget
+     */
+    void check(final Ec2CallAccounting accounting) {
+        final List<String> violations = violations(accounting);
+        if (!violations.isEmpty()) {
+            throw new AssertionError(String.join("\n", violations) + "\nCalls: " + accounting);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class Ec2CallBudgetTest extends AbstractTestBase {
+
+    private AmazonWebServicesClientProxy proxy;
+    private SimulatedEc2Client simulator;
+    private ProgressEvent<ResourceModel, CallbackContext> event;
+
+    @BeforeEach
+    public void setup() {
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        simulator = new SimulatedEc2Client();
+    }
+
+    private static ResourceModel fleet() {
+        return ResourceModel.builder()
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(InstanceTypeSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .build())))
+                .totalTargetCapacity(10)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .build();
+    }
+
+    private String existingFleet() {
+        return simulator.createCapacityReservationFleet(CreateCapacityReservationFleetRequest.builder().totalTargetCapacity(10).build())
+                .capacityReservationFleetId();
+    }
+
+    private Ec2CallAccounting invoke(final BaseHandlerStd handler, final ResourceHandlerRequest<ResourceModel> request) {
+        final Ec2CallAccounting accounting = Ec2CallAccounting.open(handler.action());
+        try {
+            event = handler.handleRequest(proxy, request, new CallbackContext(), accounting.account(MOCK_PROXY(proxy, simulator)), logger);
+        } finally {
+            accounting.close();
+        }
+        return accounting;
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel model) {
+        return ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build();
+    }
+
+    @Test
+    public void create_staysWithinBudget() {
+        final Ec2CallAccounting accounting = invoke(new CreateHandler(), request(fleet()));
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        Ec2CallBudget.CREATE_BUDGET.check(accounting);
+        assertThat(accounting.calls(Ec2CallAccounting.CREATE)).isEqualTo(1);
+    }
+
+    @Test
+    public void create_budgetsDescribesPerStabilizationPoll() {
+        simulator = new SimulatedEc2Client(SimulatedEc2Client.Settings.builder().submittedTime(Duration.ofMillis(250)).build());
+        final CreateHandler handler = new CreateHandler() {
+            @Override
+            protected StabilizationBackoff stabilizationBackoff() {
+                return StabilizationBackoff.builder()
+                        .baseDelay(Duration.ofMillis(100))
+                        .delayPerSpecification(Duration.ZERO)
+                        .multiplier(1)
+                        .jitter(0)
+                        .build();
+            }
+        };
+
+        final Ec2CallAccounting accounting = invoke(handler, request(fleet()));
+
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        Ec2CallBudget.CREATE_BUDGET.check(accounting);
+        final String stabilizePoll = "Create/" + HandlerTracing.STABILIZE_POLL;
+        assertThat(accounting.runs(stabilizePoll)).isGreaterThan(1);
+        assertThat(accounting.calls(stabilizePoll, Ec2CallAccounting.DESCRIBE)).isEqualTo(accounting.runs(stabilizePoll));
+    }
+
+    @Test
+    public void read_update_delete_list_stayWithinBudget() {
+        final String fleetId = existingFleet();
+
+        Ec2CallBudget.READ_BUDGET.check(invoke(new ReadHandler(),
+                request(ResourceModel.builder().capacityReservationFleetId(fleetId).build())));
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+
+        final ResourceModel previous = fleet();
+        previous.setCapacityReservationFleetId(fleetId);
+        final ResourceModel desired = fleet();
+        desired.setCapacityReservationFleetId(fleetId);
+        desired.setTotalTargetCapacity(20);
+        Ec2CallBudget.UPDATE_BUDGET.check(invoke(new UpdateHandler(),
+                ResourceHandlerRequest.<ResourceModel>builder().previousResourceState(previous).desiredResourceState(desired).build()));
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+
+        Ec2CallBudget.LIST_BUDGET.check(invoke(new ListHandler(), request(ResourceModel.builder().build())));
+        assertThat(event.getResourceModels()).hasSize(1);
+
+        Ec2CallBudget.DELETE_BUDGET.check(invoke(new DeleteHandler(),
+                request(ResourceModel.builder().capacityReservationFleetId(fleetId).build())));
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+    }
+
+    @Test
+    public void list_hydratedInventoryOf1000Fleets_takesOneDescribePerPage() {
+        for (int i = 0; i < 1000; i++) {
+            existingFleet();
+        }
+
+        final List<ResourceModel> inventory = new ArrayList<>();
+        String nextToken = null;
+        System.setProperty("crfleet.list.hydrated", "true");
+        try {
+            do {
+                final ResourceHandlerRequest<ResourceModel> request = request(ResourceModel.builder().build());
+                request.setNextToken(nextToken);
+                Ec2CallBudget.LIST_BUDGET.check(invoke(new ListHandler(), request));
+                inventory.addAll(event.getResourceModels());
+                nextToken = event.getNextToken();
+            } while (nextToken != null);
+        } finally {
+            System.clearProperty("crfleet.list.hydrated");
+        }
+
+        assertThat(inventory).hasSize(1000).allSatisfy(model -> assertThat(model.getTotalTargetCapacity()).isEqualTo(10));
+        assertThat(simulator.callCount(SimulatedEc2Client.DESCRIBE)).isEqualTo(1000 / Translator.LIST_MAX_RESULTS);
+    }
+
+    @Test
+    public void check_failsOnCallsOverBudget() {
+        final Ec2CallAccounting accounting = Ec2CallAccounting.open("Create");
+        try {
+            final ProxyClient<Ec2Client> proxyClient = accounting.account(MOCK_PROXY(proxy, simulator));
+            Ec2CallAccounting.stage(BaseHandlerStd.CALL_GRAPH_PREFIX + "Create", HandlerTracing.SERVICE_CALL, () -> {
+                proxyClient.injectCredentialsAndInvokeV2(fleetRequest(), proxyClient.client()::createCapacityReservationFleet);
+                return proxyClient.injectCredentialsAndInvokeV2(fleetRequest(), proxyClient.client()::createCapacityReservationFleet);
+            });
+            proxyClient.injectCredentialsAndInvokeV2(fleetRequest(), proxyClient.client()::createCapacityReservationFleet);
+        } finally {
+            accounting.close();
+        }
+
+        assertThat(accounting.calls(Ec2CallAccounting.CREATE)).isEqualTo(3);
+        assertThat(accounting.runs("Create/" + HandlerTracing.SERVICE_CALL)).isEqualTo(1);
+        assertThat(Ec2CallBudget.CREATE_BUDGET.violations(accounting)).hasSize(2);
+        assertThatThrownBy(() -> Ec2CallBudget.CREATE_BUDGET.check(accounting))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("2 Create calls in Create/" + HandlerTracing.SERVICE_CALL)
+                .hasMessageContaining("Create/" + Ec2CallAccounting.HANDLER_STAGE);
+    }
+
+    private static CreateCapacityReservationFleetRequest fleetRequest() {
+        return CreateCapacityReservationFleetRequest.builder().totalTargetCapacity(10).build();
+    }
+}
@@ -0,0 +1,133 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class Ec2CircuitBreakerTest extends AbstractTestBase {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+    private final Ec2CircuitBreaker.Listener listener = (from, to) -> transitions.add(from + "->" + to);
+    private Ec2CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setup() {
+        breaker = new Ec2CircuitBreaker(3, Duration.ofSeconds(30), 2, clock::get);
+    }
+
+    private static AwsServiceException serviceException(final String errorCode, final int statusCode) {
+        return AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).build())
+                .statusCode(statusCode)
+                .build();
+    }
+
+    private void call(final Throwable error) {
+        breaker.record(breaker.acquire(listener), error, listener);
+    }
+
+    @Test
+    public void opensAfterRunOfDegradedResponses() {
+        call(serviceException("InternalError", 500));
+        call(serviceException("RequestLimitExceeded", 400));
+        // client errors are answers of a healthy service and reset the run
+        call(serviceException(Translator.INVALID_CR_FLEET_ID_NOT_FOUND, 400));
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.CLOSED);
+
+        call(serviceException("Unavailable", 503));
+        call(serviceException("Unavailable", 503));
+        call(serviceException("Unavailable", 503));
+
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.OPEN);
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThatThrownBy(() -> breaker.acquire(listener))
+                .isInstanceOfSatisfying(Ec2CircuitBreaker.OpenException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(20)));
+    }
+
+    @Test
+    public void halfOpenProbesCloseOrReopen() {
+        for (int i = 0; i < 3; i++) {
+            call(serviceException("Unavailable", 503));
+        }
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        final boolean firstProbe = breaker.acquire(listener);
+        final boolean secondProbe = breaker.acquire(listener);
+        assertThat(firstProbe).isTrue();
+        assertThat(secondProbe).isTrue();
+        // only two probes at a time
+        assertThatThrownBy(() -> breaker.acquire(listener)).isInstanceOf(Ec2CircuitBreaker.OpenException.class);
+
+        breaker.record(firstProbe, null, listener);
+        breaker.record(secondProbe, serviceException("Unavailable", 503), listener);
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.OPEN);
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        call(null);
+        call(null);
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    public void circuitBroken_failsWithoutCallingEc2WhileOpen() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2Client ec2Client = mock(Ec2Client.class);
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenThrow(serviceException("RequestLimitExceeded", 400));
+        final Ec2Calls calls = Ec2Calls.circuitBroken(Ec2Calls.sync(MOCK_PROXY(proxy, ec2Client)), breaker);
+
+        final List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final CompletableFuture<DescribeCapacityReservationFleetsResponse> future =
+                    calls.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build());
+            try {
+                Ec2Calls.join(future);
+            } catch (final RuntimeException e) {
+                errors.add(e);
+            }
+        }
+
+        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(errors.subList(3, 5)).allMatch(e -> e instanceof Ec2CircuitBreaker.OpenException);
+    }
+
+    @Test
+    public void openBreaker_isReportedInProgressByMutatingChainsAndThrottlingByTranslator() {
+        final ResourceModel model = ResourceModel.builder().capacityReservationFleetId("crf-1234").build();
+        final CallbackContext context = new CallbackContext();
+        final Ec2CircuitBreaker.OpenException open = new Ec2CircuitBreaker.OpenException(Duration.ofSeconds(20));
+
+        final ProgressEvent<ResourceModel, CallbackContext> progress = new CreateHandler().handleServiceCallError(open, model, context);
+
+        assertThat(progress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(progress.getCallbackDelaySeconds()).isEqualTo(21);
+        assertThat(progress.getCallbackContext()).isSameAs(context);
+        assertThat(Translator.translateToFailure(open).getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+    }
+}
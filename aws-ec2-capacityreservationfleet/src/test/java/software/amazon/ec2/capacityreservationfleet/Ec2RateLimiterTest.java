@@ -0,0 +1,167 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class Ec2RateLimiterTest extends AbstractTestBase {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final Duration UNBOUNDED = Duration.ofDays(1);
+
+    @Test
+    public void reserve_waitsForRefillOnceBurstIsUsed() {
+        final Ec2RateLimiter.TokenBucket bucket = new Ec2RateLimiter.TokenBucket(2, 2, UNBOUNDED, 0);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isEqualTo(SECOND / 2);
+        assertThat(bucket.reserve(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    public void reserve_refillsUpToBurst() {
+        final Ec2RateLimiter.TokenBucket bucket = new Ec2RateLimiter.TokenBucket(2, 2, UNBOUNDED, 0);
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        // an idle minute refills the bucket to its burst, not to 120 tokens
+        assertThat(bucket.reserve(60 * SECOND)).isZero();
+        assertThat(bucket.reserve(60 * SECOND)).isZero();
+        assertThat(bucket.reserve(60 * SECOND)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    public void reserve_rejectsWaitBeyondMaxWaitWithoutTakingTheToken() {
+        final Ec2RateLimiter.TokenBucket bucket = new Ec2RateLimiter.TokenBucket(2, 1, Duration.ofSeconds(1), 0);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isEqualTo(SECOND / 2);
+        assertThat(bucket.reserve(0)).isEqualTo(SECOND);
+        assertThatThrownBy(() -> bucket.reserve(0))
+                .isInstanceOfSatisfying(Ec2RateLimiter.WaitExceededException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMillis(500)));
+
+        // the rejected call didn't borrow, so the backlog stays within maxWait
+        assertThat(bucket.reserve(SECOND / 2)).isEqualTo(SECOND);
+    }
+
+    @Test
+    public void rateLimited_failsCallWithoutCallingEc2WhenTheTokenIsTooFarAway() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2Client ec2Client = mock(Ec2Client.class);
+        final Ec2RateLimiter.TokenBucket reads = new Ec2RateLimiter.TokenBucket(0.001, 1, Duration.ofSeconds(1));
+        reads.reserve(System.nanoTime());
+        final Ec2RateLimiter.TokenBucket mutations = new Ec2RateLimiter.TokenBucket(0.001, 1, Duration.ofSeconds(1));
+        final Ec2CircuitBreaker breaker = new Ec2CircuitBreaker(2, Duration.ofSeconds(30), 1, System::nanoTime);
+        final Ec2CircuitBreaker.Listener listener = (from, to) -> { };
+        final AwsServiceException unavailable = AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("Unavailable").build())
+                .statusCode(503)
+                .build();
+        final Ec2Calls calls = Ec2Calls.circuitBroken(
+                Ec2Calls.rateLimited(Ec2Calls.sync(MOCK_PROXY(proxy, ec2Client)), new Ec2RateLimiter(reads, mutations)), breaker);
+
+        breaker.record(breaker.acquire(listener), unavailable, listener);
+        assertThatThrownBy(() -> Ec2Calls.join(calls.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build())))
+                .isInstanceOf(Ec2RateLimiter.WaitExceededException.class);
+        verify(ec2Client, never()).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+
+        // the call that wasn't made neither counts as a failure nor resets the run of failures
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.CLOSED);
+        breaker.record(breaker.acquire(listener), unavailable, listener);
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void rateLimited_failsCallWithoutCallingEc2WhenTheWaitIsInterrupted() throws InterruptedException {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2Client ec2Client = mock(Ec2Client.class);
+        final Ec2RateLimiter.TokenBucket reads = new Ec2RateLimiter.TokenBucket(0.001, 1, UNBOUNDED);
+        reads.reserve(System.nanoTime());
+        final Ec2RateLimiter.TokenBucket mutations = new Ec2RateLimiter.TokenBucket(0.001, 1, UNBOUNDED);
+        final Ec2Calls calls = Ec2Calls.rateLimited(Ec2Calls.sync(MOCK_PROXY(proxy, ec2Client)), new Ec2RateLimiter(reads, mutations));
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicBoolean interruptedAfterwards = new AtomicBoolean();
+
+        final Thread caller = new Thread(() -> {
+            try {
+                Ec2Calls.join(calls.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build()));
+            } catch (final RuntimeException e) {
+                failure.set(e);
+            }
+            interruptedAfterwards.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        // the empty bucket makes the caller wait about 1000 s for its token
+        final long deadline = System.nanoTime() + 10 * SECOND;
+        while (caller.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(failure.get()).isInstanceOf(Ec2RateLimiter.WaitExceededException.class);
+        assertThat(interruptedAfterwards.get()).isTrue();
+        verify(ec2Client, never()).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+    }
+
+    @Test
+    public void waitExceeded_isReportedInProgressByMutatingChainsAndThrottlingByTranslator() {
+        final ResourceModel model = ResourceModel.builder().capacityReservationFleetId("crf-1234").build();
+        final CallbackContext context = new CallbackContext();
+        final Ec2RateLimiter.WaitExceededException exceeded = new Ec2RateLimiter.WaitExceededException(Duration.ofMillis(1500));
+
+        final ProgressEvent<ResourceModel, CallbackContext> progress = new UpdateHandler().handleServiceCallError(exceeded, model, context);
+
+        assertThat(progress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(progress.getCallbackDelaySeconds()).isEqualTo(2);
+        assertThat(Translator.translateToFailure(exceeded).getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+    }
+
+    @Test
+    public void rateLimited_drawsDescribeFromReadBudget() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2Client ec2Client = mock(Ec2Client.class);
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder().build());
+        final Ec2RateLimiter.TokenBucket reads = new Ec2RateLimiter.TokenBucket(0.001, 2, UNBOUNDED);
+        final Ec2RateLimiter.TokenBucket mutations = new Ec2RateLimiter.TokenBucket(0.001, 2, UNBOUNDED);
+        final Ec2Calls calls = Ec2Calls.rateLimited(Ec2Calls.sync(MOCK_PROXY(proxy, ec2Client)), new Ec2RateLimiter(reads, mutations));
+
+        Ec2Calls.join(calls.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build()));
+        Ec2Calls.join(calls.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build()));
+
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(reads.reserve(System.nanoTime())).isPositive();
+        assertThat(mutations.reserve(System.nanoTime())).isZero();
+    }
+
+    @Test
+    public void of_sharesLimiterPerAccountAndRegion() {
+        assertThat(Ec2RateLimiter.of("123456789012", "us-east-1")).isSameAs(Ec2RateLimiter.of("123456789012", "us-east-1"));
+        assertThat(Ec2RateLimiter.of("123456789012", "us-east-1")).isNotSameAs(Ec2RateLimiter.of("123456789012", "us-west-2"));
+    }
+}
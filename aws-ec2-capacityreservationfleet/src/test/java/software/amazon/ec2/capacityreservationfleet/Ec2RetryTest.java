@@ -0,0 +1,269 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class Ec2RetryTest extends AbstractTestBase {
+
+    private final List<Long> sleeps = new ArrayList<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void setup() {
+        System.setProperty("crfleet.circuit.breaker", "false");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty("crfleet.circuit.breaker");
+        System.clearProperty("crfleet.retry");
+        System.clearProperty("crfleet.retry.base.delay.ms");
+        System.clearProperty("crfleet.retry.max.delay.ms");
+    }
+
+    private Ec2Retry retry(final int maxAttempts, final Duration budget, final double random) {
+        return new Ec2Retry(maxAttempts, Duration.ofMillis(100), Duration.ofSeconds(1), budget, sleeps::add, () -> random);
+    }
+
+    private static AwsServiceException serviceException(final String errorCode, final int statusCode) {
+        return AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).build())
+                .statusCode(statusCode)
+                .build();
+    }
+
+    private static <T> CompletableFuture<T> failed(final Throwable error) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Call that is throttled the given number of times, then answers "ok".
+     */
+    private static Supplier<CompletableFuture<String>> throttledCall(final int throttles, final AtomicInteger calls) {
+        return () -> calls.incrementAndGet() <= throttles
+                ? failed(serviceException("RequestLimitExceeded", 503))
+                : CompletableFuture.completedFuture("ok");
+    }
+
+    private Map<String, Object> emitted() throws IOException {
+        final String document = new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+        return new ObjectMapper().readValue(document, new TypeReference<Map<String, Object>>() { });
+    }
+
+    @Test
+    public void nextDelay_isDecorrelatedBetweenBaseAndThreeTimesThePreviousDelay() {
+        assertThat(retry(4, Duration.ofSeconds(10), 0).nextDelayMillis(300)).isEqualTo(100);
+        assertThat(retry(4, Duration.ofSeconds(10), 1).nextDelayMillis(100)).isEqualTo(300);
+        assertThat(retry(4, Duration.ofSeconds(10), 1).nextDelayMillis(300)).isEqualTo(900);
+        assertThat(retry(4, Duration.ofSeconds(10), 1).nextDelayMillis(900)).as("capped at maxDelay").isEqualTo(1000);
+        assertThat(retry(4, Duration.ofSeconds(10), 0.5).nextDelayMillis(100)).isEqualTo(200);
+    }
+
+    @Test
+    public void join_retriesThrottledCallUntilItSucceeds() throws IOException {
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<CompletableFuture<String>> call = throttledCall(2, calls);
+
+        final HandlerMetrics metrics = HandlerMetrics.open("Delete", new PrintStream(out, true));
+        try {
+            assertThat(retry(4, Duration.ofSeconds(10), 1).join(call.get(), call)).isEqualTo("ok");
+        } finally {
+            metrics.close(null);
+        }
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(sleeps).containsExactly(300L, 900L);
+        assertThat(emitted()).containsEntry("Retries", 2.0).containsEntry("RetryWait", 1200.0).doesNotContainKey("RetriesExhausted");
+    }
+
+    @Test
+    public void join_surfacesOtherErrorsRightAway() {
+        final AwsServiceException notFound = serviceException(Translator.INVALID_CR_FLEET_ID_NOT_FOUND, 400);
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry(4, Duration.ofSeconds(10), 1).join(failed(notFound), () -> {
+            calls.incrementAndGet();
+            return failed(notFound);
+        })).isSameAs(notFound);
+        assertThat(calls.get()).isZero();
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void join_givesUpAfterMaxAttempts() throws IOException {
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<CompletableFuture<String>> call = throttledCall(10, calls);
+
+        final HandlerMetrics metrics = HandlerMetrics.open("Delete", new PrintStream(out, true));
+        try {
+            assertThatThrownBy(() -> retry(3, Duration.ofSeconds(10), 0).join(call.get(), call))
+                    .isInstanceOf(AwsServiceException.class)
+                    .matches(e -> ((AwsServiceException) e).isThrottlingException());
+        } finally {
+            metrics.close(null);
+        }
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(emitted()).containsEntry("Retries", 2.0).containsEntry("RetriesExhausted", 1.0);
+    }
+
+    @Test
+    public void join_sharesTheBudgetAcrossTheCallsOfTheInvocation() {
+        final Ec2Retry retry = retry(4, Duration.ofMillis(250), 0);
+
+        final AtomicInteger first = new AtomicInteger();
+        final Supplier<CompletableFuture<String>> firstCall = throttledCall(2, first);
+        assertThat(retry.join(firstCall.get(), firstCall)).isEqualTo("ok");
+        assertThat(retry.getRemainingBudgetMillis()).isEqualTo(50);
+
+        // the next retry of 100 ms doesn't fit in the 50 ms left
+        final AtomicInteger second = new AtomicInteger();
+        final Supplier<CompletableFuture<String>> secondCall = throttledCall(1, second);
+        assertThatThrownBy(() -> retry.join(secondCall.get(), secondCall)).isInstanceOf(AwsServiceException.class);
+        assertThat(second.get()).isEqualTo(1);
+        assertThat(sleeps).containsExactly(100L, 100L);
+    }
+
+    @Test
+    public void none_neverRetries() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<CompletableFuture<String>> call = throttledCall(1, calls);
+
+        assertThatThrownBy(() -> Ec2Retry.NONE.join(call.get(), call)).isInstanceOf(AwsServiceException.class);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void retried_countsARetriedCallOnceInTheCircuitBreaker() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2CircuitBreaker breaker = new Ec2CircuitBreaker(2, Duration.ofSeconds(30), 1, System::nanoTime);
+        final Ec2Calls calls = Ec2Calls.retried(
+                Ec2Calls.circuitBroken(Ec2Calls.sync(MOCK_PROXY(proxy, throttlingDescribes(new SimulatedEc2Client(), 3))), breaker),
+                retry(4, Duration.ofSeconds(10), 0));
+        final DescribeCapacityReservationFleetsRequest request = DescribeCapacityReservationFleetsRequest.builder().build();
+
+        // three throttled attempts would open a breaker of two failures if every attempt counted
+        assertThat(calls.joinRetrying(() -> calls.describeCapacityReservationFleets(request))).isNotNull();
+        assertThat(sleeps).hasSize(3);
+        assertThat(breaker.getState()).isEqualTo(Ec2CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void ec2Calls_shareTheRetryOfTheInvocationWithTheNestedReadHandler() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(ResourceModel.builder().build()).build();
+        final CallbackContext context = new CallbackContext();
+
+        final Ec2Calls create = new CreateHandler().ec2Calls(proxy, request, context, MOCK_PROXY(proxy, new SimulatedEc2Client()));
+        final Ec2Calls read = new ReadHandler().ec2Calls(proxy, request, context, MOCK_PROXY(proxy, new SimulatedEc2Client()));
+
+        assertThat(create.retry()).isNotSameAs(Ec2Retry.NONE).isSameAs(context.getEc2Retry());
+        assertThat(read.retry()).isSameAs(create.retry());
+    }
+
+    /**
+     * Simulated EC2 whose first Describe calls are throttled.
+     */
+    private static Ec2Client throttlingDescribes(final SimulatedEc2Client simulator, final int throttles) {
+        final AtomicInteger describes = new AtomicInteger();
+        return new Ec2Client() {
+            @Override
+            public String serviceName() {
+                return simulator.serviceName();
+            }
+
+            @Override
+            public void close() {
+                simulator.close();
+            }
+
+            @Override
+            public CreateCapacityReservationFleetResponse createCapacityReservationFleet(final CreateCapacityReservationFleetRequest request) {
+                return simulator.createCapacityReservationFleet(request);
+            }
+
+            @Override
+            public DescribeCapacityReservationFleetsResponse describeCapacityReservationFleets(final DescribeCapacityReservationFleetsRequest request) {
+                if (describes.incrementAndGet() <= throttles) {
+                    throw serviceException("RequestLimitExceeded", 503);
+                }
+                return simulator.describeCapacityReservationFleets(request);
+            }
+        };
+    }
+
+    private ProgressEvent<ResourceModel, CallbackContext> create(final Ec2Client client) {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final ResourceModel model = ResourceModel.builder()
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(InstanceTypeSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .build())))
+                .totalTargetCapacity(10)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .build();
+
+        return new CreateHandler().handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(),
+                new CallbackContext(), MOCK_PROXY(proxy, client), logger);
+    }
+
+    @Test
+    public void create_throttledStabilizationDescribe_isRetriedInsteadOfFailing() {
+        System.setProperty("crfleet.retry.base.delay.ms", "1");
+        System.setProperty("crfleet.retry.max.delay.ms", "5");
+        final SimulatedEc2Client simulator = new SimulatedEc2Client();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = create(throttlingDescribes(simulator, 2));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getCapacityReservationFleetId()).isNotNull();
+        assertThat(simulator.callCount(SimulatedEc2Client.CREATE)).isEqualTo(1);
+    }
+
+    @Test
+    public void create_throttledStabilizationDescribe_failsWithRetryDisabled() {
+        System.setProperty("crfleet.retry", "false");
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = create(throttlingDescribes(new SimulatedEc2Client(), 1));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.Throttling);
+    }
+}
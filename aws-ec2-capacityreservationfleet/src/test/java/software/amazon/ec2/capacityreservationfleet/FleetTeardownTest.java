@@ -0,0 +1,136 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetError;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetCancellationState;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.FailedCapacityReservationFleetCancellationResult;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FleetTeardownTest extends AbstractTestBase {
+
+    private ProxyClient<Ec2Client> proxyClient;
+    private Ec2Client ec2Client;
+    private final List<Duration> sleeps = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        ec2Client = mock(Ec2Client.class);
+        proxyClient = MOCK_PROXY(proxy, ec2Client);
+    }
+
+    private FleetTeardown teardown(final int maxPolls) {
+        return FleetTeardown.builder()
+                .ec2Calls(Ec2Calls.sync(proxyClient))
+                .logger(logger)
+                .backoff(StabilizationBackoff.builder().jitter(0).maxAttempts(maxPolls).build())
+                .sleeper(sleeps::add)
+                .build();
+    }
+
+    private static List<String> fleetIds(final int count) {
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("crf-%04d", i));
+        }
+        return ids;
+    }
+
+    private static DescribeCapacityReservationFleetsResponse describeResponse(final List<String> ids, final CapacityReservationFleetState state) {
+        return DescribeCapacityReservationFleetsResponse.builder()
+                .capacityReservationFleets(ids.stream()
+                        .map(id -> CapacityReservationFleet.builder().capacityReservationFleetId(id).state(state).build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    @Test
+    public void teardown_cancelsAndPollsInBatches() throws InterruptedException {
+        when(ec2Client.cancelCapacityReservationFleets(any(CancelCapacityReservationFleetsRequest.class))).thenAnswer(invocation -> {
+            final CancelCapacityReservationFleetsRequest request = invocation.getArgument(0);
+            return CancelCapacityReservationFleetsResponse.builder()
+                    .successfulFleetCancellations(request.capacityReservationFleetIds().stream()
+                            .map(id -> CapacityReservationFleetCancellationState.builder().capacityReservationFleetId(id).build())
+                            .collect(Collectors.toList()))
+                    .build();
+        });
+        final List<Integer> describeCalls = new ArrayList<>();
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenAnswer(invocation -> {
+            final DescribeCapacityReservationFleetsRequest request = invocation.getArgument(0);
+            describeCalls.add(request.capacityReservationFleetIds().size());
+            // cancelling on the first poll, cancelled on the second
+            return describeResponse(request.capacityReservationFleetIds(),
+                    describeCalls.size() <= 2 ? CapacityReservationFleetState.CANCELLING : CapacityReservationFleetState.CANCELLED);
+        });
+
+        final Map<String, FleetTeardown.Result> results = teardown(10).teardown(fleetIds(200));
+
+        verify(ec2Client, times(2)).cancelCapacityReservationFleets(any(CancelCapacityReservationFleetsRequest.class));
+        assertThat(describeCalls).containsExactly(100, 100, 100, 100);
+        assertThat(sleeps).hasSize(2);
+        assertThat(results).hasSize(200);
+        assertThat(results.values()).allMatch(result -> result.getOutcome() == FleetTeardown.Outcome.CANCELLED);
+    }
+
+    @Test
+    public void teardown_reportsPerFleetOutcomes() throws InterruptedException {
+        when(ec2Client.cancelCapacityReservationFleets(any(CancelCapacityReservationFleetsRequest.class))).thenReturn(CancelCapacityReservationFleetsResponse.builder()
+                .successfulFleetCancellations(
+                        CapacityReservationFleetCancellationState.builder().capacityReservationFleetId("crf-0000").build(),
+                        CapacityReservationFleetCancellationState.builder().capacityReservationFleetId("crf-0001").build())
+                .failedFleetCancellations(
+                        FailedCapacityReservationFleetCancellationResult.builder()
+                                .capacityReservationFleetId("crf-0002")
+                                .cancelCapacityReservationFleetError(CancelCapacityReservationFleetError.builder()
+                                        .code(Translator.INVALID_CR_FLEET_ID_NOT_FOUND).message("not found").build())
+                                .build(),
+                        FailedCapacityReservationFleetCancellationResult.builder()
+                                .capacityReservationFleetId("crf-0003")
+                                .cancelCapacityReservationFleetError(CancelCapacityReservationFleetError.builder()
+                                        .code(Translator.INVALID_CR_FLEET_STATE_TRANSITION).message("expired").build())
+                                .build())
+                .build());
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenReturn(DescribeCapacityReservationFleetsResponse.builder()
+                .capacityReservationFleets(
+                        CapacityReservationFleet.builder().capacityReservationFleetId("crf-0000").state(CapacityReservationFleetState.CANCELLED).build(),
+                        CapacityReservationFleet.builder().capacityReservationFleetId("crf-0001").state(CapacityReservationFleetState.CANCELLING).build())
+                .build());
+
+        final Map<String, FleetTeardown.Result> results = teardown(3).teardown(fleetIds(4));
+
+        assertThat(results.keySet()).containsExactly("crf-0000", "crf-0001", "crf-0002", "crf-0003");
+        assertThat(results.get("crf-0000").getOutcome()).isEqualTo(FleetTeardown.Outcome.CANCELLED);
+        assertThat(results.get("crf-0001").getOutcome()).isEqualTo(FleetTeardown.Outcome.TIMED_OUT);
+        assertThat(results.get("crf-0001").getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(results.get("crf-0002").getOutcome()).isEqualTo(FleetTeardown.Outcome.NOT_FOUND);
+        assertThat(results.get("crf-0003").getOutcome()).isEqualTo(FleetTeardown.Outcome.FAILED);
+        assertThat(results.get("crf-0003").getErrorCode()).isEqualTo(HandlerErrorCode.NotStabilized);
+        assertThat(sleeps).hasSize(3);
+    }
+}
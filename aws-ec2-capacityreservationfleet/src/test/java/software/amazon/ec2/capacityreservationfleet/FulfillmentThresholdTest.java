@@ -0,0 +1,162 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FulfillmentThresholdTest extends AbstractTestBase {
+
+    private AmazonWebServicesClientProxy proxy;
+    private HandlerLogger log;
+
+    @BeforeEach
+    public void setup() {
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        log = HandlerLogger.of(logger);
+    }
+
+    private static CapacityReservationFleet fleet(final CapacityReservationFleetState state, final double fulfilled, final int target) {
+        return CapacityReservationFleet.builder()
+                .capacityReservationFleetId("crf-1234")
+                .state(state)
+                .totalFulfilledCapacity(fulfilled)
+                .totalTargetCapacity(target)
+                .build();
+    }
+
+    @Test
+    public void none_stabilizesOnActiveOrPartiallyFulfilledWhateverTheCapacity() {
+        final CallbackContext context = new CallbackContext();
+
+        assertThat(FulfillmentThreshold.NONE.isEnabled()).isFalse();
+        assertThat(FulfillmentThreshold.NONE.isStabilized(fleet(CapacityReservationFleetState.ACTIVE, 10, 10), context, 0, log)).isTrue();
+        assertThat(FulfillmentThreshold.NONE.isStabilized(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 0, 10), context, 0, log)).isTrue();
+        assertThat(FulfillmentThreshold.NONE.isStabilized(fleet(CapacityReservationFleetState.SUBMITTED, 10, 10), context, 0, log)).isFalse();
+        assertThat(FulfillmentThreshold.NONE.isStabilized(fleet(CapacityReservationFleetState.MODIFYING, 10, 10), context, 0, log)).isFalse();
+    }
+
+    @Test
+    public void isReached_percentAndCapacity() {
+        final FulfillmentThreshold percent = FulfillmentThreshold.builder().percent(80).build();
+        assertThat(percent.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 7, 10))).isFalse();
+        assertThat(percent.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 8, 10))).isTrue();
+
+        final FulfillmentThreshold capacity = FulfillmentThreshold.builder().capacity(16).build();
+        assertThat(capacity.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 15, 20))).isFalse();
+        assertThat(capacity.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 16, 20))).isTrue();
+        assertThat(capacity.isReached(fleet(CapacityReservationFleetState.ACTIVE, 10, 10))).as("capped at the target").isTrue();
+
+        final FulfillmentThreshold both = FulfillmentThreshold.builder().percent(50).capacity(8).build();
+        assertThat(both.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 6, 10))).isFalse();
+        assertThat(both.isReached(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 8, 10))).isTrue();
+    }
+
+    @Test
+    public void isStabilized_waitsForTheThresholdUpToMaxWait() {
+        final FulfillmentThreshold threshold = FulfillmentThreshold.builder().percent(100).maxWait(Duration.ofSeconds(60)).build();
+        final CallbackContext context = new CallbackContext();
+        final CapacityReservationFleet partial = fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 5, 10);
+
+        assertThat(threshold.isStabilized(partial, context, 1_000, log)).isFalse();
+        assertThat(context.getFulfillmentWaitStartMillis()).isEqualTo(1_000);
+        assertThat(threshold.isStabilized(partial, context, 60_999, log)).isFalse();
+        assertThat(context.getFulfillmentWaitStartMillis()).isEqualTo(1_000);
+
+        assertThat(threshold.isStabilized(partial, context, 61_000, log)).isTrue();
+        assertThat(context.getFulfillmentWaitStartMillis()).isZero();
+    }
+
+    @Test
+    public void isStabilized_onceReached_resetsTheWait() {
+        final FulfillmentThreshold threshold = FulfillmentThreshold.builder().percent(100).build();
+        final CallbackContext context = new CallbackContext();
+
+        assertThat(threshold.isStabilized(fleet(CapacityReservationFleetState.PARTIALLY_FULFILLED, 5, 10), context, 1_000, log)).isFalse();
+        assertThat(threshold.isStabilized(fleet(CapacityReservationFleetState.ACTIVE, 10, 10), context, 2_000, log)).isTrue();
+        assertThat(context.getFulfillmentWaitStartMillis()).isZero();
+    }
+
+    @Test
+    public void fromSettings_offUnlessAThresholdIsSet() {
+        assertThat(FulfillmentThreshold.fromSettings()).isSameAs(FulfillmentThreshold.NONE);
+
+        System.setProperty("crfleet.fulfillment.threshold.percent", "90");
+        System.setProperty("crfleet.fulfillment.max.wait.seconds", "600");
+        try {
+            final FulfillmentThreshold threshold = FulfillmentThreshold.fromSettings();
+            assertThat(threshold.isEnabled()).isTrue();
+            assertThat(threshold.getPercent()).isEqualTo(90);
+            assertThat(threshold.getCapacity()).isZero();
+            assertThat(threshold.getMaxWait()).isEqualTo(Duration.ofSeconds(600));
+        } finally {
+            System.clearProperty("crfleet.fulfillment.threshold.percent");
+            System.clearProperty("crfleet.fulfillment.max.wait.seconds");
+        }
+    }
+
+    private ProgressEvent<ResourceModel, CallbackContext> create(final SimulatedEc2Client simulator, final FulfillmentThreshold threshold) {
+        final CreateHandler handler = new CreateHandler() {
+            @Override
+            protected StabilizationBackoff stabilizationBackoff() {
+                return StabilizationBackoff.builder()
+                        .baseDelay(Duration.ofMillis(100))
+                        .delayPerSpecification(Duration.ZERO)
+                        .multiplier(1)
+                        .jitter(0)
+                        .build();
+            }
+
+            @Override
+            protected FulfillmentThreshold fulfillmentThreshold() {
+                return threshold;
+            }
+        };
+        final ResourceModel model = ResourceModel.builder()
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(InstanceTypeSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .build())))
+                .totalTargetCapacity(10)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .build();
+
+        return handler.handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(),
+                new CallbackContext(), MOCK_PROXY(proxy, simulator), logger);
+    }
+
+    @Test
+    public void create_partiallyFulfilledAboveThreshold_stabilizesOnFirstPoll() {
+        final SimulatedEc2Client simulator = new SimulatedEc2Client(SimulatedEc2Client.Settings.builder().partiallyFulfilledRate(1).build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = create(simulator, FulfillmentThreshold.builder().percent(50).build());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(simulator.callCount(SimulatedEc2Client.DESCRIBE)).isEqualTo(1);
+    }
+
+    @Test
+    public void create_partiallyFulfilledBelowThreshold_pollsUntilMaxWait() {
+        final SimulatedEc2Client simulator = new SimulatedEc2Client(SimulatedEc2Client.Settings.builder().partiallyFulfilledRate(1).build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = create(simulator,
+                FulfillmentThreshold.builder().percent(100).maxWait(Duration.ofMillis(300)).build());
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getTotalTargetCapacity()).isEqualTo(10);
+        assertThat(simulator.callCount(SimulatedEc2Client.DESCRIBE)).isGreaterThan(2);
+    }
+}
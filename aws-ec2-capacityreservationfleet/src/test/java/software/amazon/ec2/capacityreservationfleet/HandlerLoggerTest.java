@@ -0,0 +1,65 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.proxy.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HandlerLoggerTest {
+
+    private final List<String> lines = new ArrayList<>();
+    private final Logger delegate = lines::add;
+
+    @Test
+    public void suppliersBelowThreshold_areNotInvoked() {
+        final HandlerLogger logger = new HandlerLogger(delegate, HandlerLogger.Level.INFO);
+
+        logger.debug(() -> {
+            throw new AssertionError("debug message must not be built at INFO");
+        });
+
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    public void messagesAtOrAboveThreshold_arePrefixedWithLevel() {
+        final HandlerLogger logger = new HandlerLogger(delegate, HandlerLogger.Level.DEBUG);
+
+        logger.debug(() -> "request");
+        logger.info("fleet is active");
+        logger.warn(() -> "throttled");
+        logger.error("failed");
+
+        assertThat(lines).containsExactly("[DEBUG] request", "[INFO] fleet is active", "[WARN] throttled", "[ERROR] failed");
+    }
+
+    @Test
+    public void log_isTreatedAsInfo() {
+        new HandlerLogger(delegate, HandlerLogger.Level.INFO).log("plain");
+        new HandlerLogger(delegate, HandlerLogger.Level.WARN).log("dropped");
+
+        assertThat(lines).containsExactly("plain");
+    }
+
+    @Test
+    public void of_doesNotWrapTwice() {
+        final HandlerLogger logger = HandlerLogger.of(delegate);
+
+        assertThat(HandlerLogger.of(logger)).isSameAs(logger);
+    }
+
+    @Test
+    public void logLevel_defaultsToInfo() {
+        System.setProperty("crfleet.log.level", "verbose");
+        try {
+            assertThat(HandlerSettings.logLevel()).isEqualTo(HandlerLogger.Level.INFO);
+            System.setProperty("crfleet.log.level", "debug");
+            assertThat(HandlerSettings.logLevel()).isEqualTo(HandlerLogger.Level.DEBUG);
+        } finally {
+            System.clearProperty("crfleet.log.level");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HandlerMetricsTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty("crfleet.metrics");
+    }
+
+    private HandlerMetrics open() {
+        return HandlerMetrics.open("Create", new PrintStream(out, true));
+    }
+
+    private Map<String, Object> emitted() throws IOException {
+        final String document = new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+        return new ObjectMapper().readValue(document, new TypeReference<Map<String, Object>>() { });
+    }
+
+    @Test
+    public void close_writesEmfDocument() throws IOException {
+        final HandlerMetrics metrics = open();
+        assertThat(HandlerMetrics.current()).isSameAs(metrics);
+
+        final AwsServiceException throttled = AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("RequestLimitExceeded").build())
+                .statusCode(503)
+                .build();
+        metrics.ec2Call("Create", System.nanoTime(), null);
+        metrics.ec2Call("Describe", System.nanoTime(), throttled);
+        metrics.ec2Call("Describe", System.nanoTime(), null);
+        metrics.fleetState("submitted");
+        metrics.fleetState("active");
+        metrics.stabilizationAttempts(2);
+        metrics.close(ProgressEvent.defaultSuccessHandler(ResourceModel.builder().build()));
+
+        assertThat(HandlerMetrics.current()).isNotSameAs(metrics);
+
+        final Map<String, Object> document = emitted();
+        assertThat(document).containsEntry("Action", "Create")
+                .containsEntry("CreateCalls", 1.0)
+                .containsEntry("Throttles", 1.0)
+                .containsEntry("StabilizationAttempts", 2.0)
+                .containsEntry("OperationStatus", "SUCCESS")
+                .containsKeys("Latency", "ColdStart", "CreateLatency", "TimeInState.submitted", "TimeInState.active");
+        assertThat((List<?>) document.get("DescribeCalls")).hasSize(2);
+        assertThat((List<?>) document.get("DescribeLatency")).hasSize(2);
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> directive = ((List<Map<String, Object>>) ((Map<String, Object>) document.get("_aws")).get("CloudWatchMetrics")).get(0);
+        assertThat(directive).containsEntry("Namespace", HandlerMetrics.DEFAULT_NAMESPACE);
+        @SuppressWarnings("unchecked")
+        final List<String> names = ((List<Map<String, String>>) directive.get("Metrics")).stream()
+                .map(metric -> metric.get("Name"))
+                .collect(Collectors.toList());
+        assertThat(names).contains("Latency", "DescribeLatency", "Throttles", "TimeInState.active");
+    }
+
+    @Test
+    public void translateToFailure_recordsErrorCode() throws IOException {
+        final HandlerMetrics metrics = open();
+
+        Translator.translateToFailure(new IllegalStateException("boom"));
+        metrics.close(null);
+
+        assertThat(emitted()).containsEntry("Failures.ServiceInternalError", 1.0)
+                .containsEntry("ErrorCode", HandlerErrorCode.ServiceInternalError.name())
+                .containsEntry("OperationStatus", "EXCEPTION");
+    }
+
+    @Test
+    public void disabled_writesNothing() {
+        System.setProperty("crfleet.metrics", "false");
+        final HandlerMetrics metrics = open();
+
+        metrics.ec2Call("Describe", System.nanoTime(), null);
+        metrics.close(null);
+
+        assertThat(out.size()).isZero();
+        assertThat(HandlerMetrics.current()).isSameAs(metrics);
+    }
+
+    @Test
+    public void action_isNamedAfterTheHandler() {
+        assertThat(new CreateHandler().action()).isEqualTo("Create");
+        assertThat(new ReadHandler() { }.action()).isEqualTo("Read");
+    }
+}
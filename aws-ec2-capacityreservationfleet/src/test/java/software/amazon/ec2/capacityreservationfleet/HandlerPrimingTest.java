@@ -0,0 +1,33 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HandlerPrimingTest {
+
+    @Test
+    public void offlineClient_answersWithCannedResponses() {
+        final Ec2Client client = HandlerPriming.offlineClient();
+
+        final DescribeCapacityReservationFleetsResponse response =
+                client.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build());
+
+        assertThat(response.capacityReservationFleets()).hasSize(1);
+        assertThat(response.capacityReservationFleets().get(0).state()).isEqualTo(CapacityReservationFleetState.ACTIVE);
+        assertThat(client.modifyCapacityReservationFleet(ModifyCapacityReservationFleetRequest.builder().build()).returnValue()).isTrue();
+    }
+
+    @Test
+    public void prime_runsOncePerJvm() {
+        // loading any handler has already primed this JVM
+        new ReadHandler();
+
+        assertThat(HandlerPriming.prime()).isFalse();
+    }
+}
@@ -0,0 +1,130 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HandlerTracingTest extends AbstractTestBase {
+
+    private static final String READ = BaseHandlerStd.CALL_GRAPH_PREFIX + "Read";
+
+    private final List<List<HandlerTracing.Span>> exported = new ArrayList<>();
+    private AmazonWebServicesClientProxy proxy;
+    private ProxyClient<Ec2Client> proxyClient;
+    private Ec2Client ec2Client;
+
+    @BeforeEach
+    public void setup() {
+        HandlerTracing.exporter(exported::add);
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        ec2Client = mock(Ec2Client.class);
+        proxyClient = MOCK_PROXY(proxy, ec2Client);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        HandlerTracing.exporter(null);
+    }
+
+    @Test
+    public void readInvocation_recordsStageSpans() {
+        final ResourceModel model = ResourceModel.builder()
+                .capacityReservationFleetId("crf-1234")
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(InstanceTypeSpecification.builder()
+                        .instanceType("m4.xlarge")
+                        .availabilityZone("us-east-1")
+                        .instancePlatform("linux")
+                        .ebsOptimized(true)
+                        .build())))
+                .totalTargetCapacity(1)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .build();
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(translateToDescribeCapacityReservationFleetsResponse(model));
+
+        final HandlerTracing.Span root = HandlerTracing.start(READ);
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ReadHandler().handleRequest(proxy,
+                ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(), new CallbackContext(), proxyClient, logger);
+        HandlerTracing.end(root, null);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(exported).hasSize(1);
+        final List<HandlerTracing.Span> spans = exported.get(0);
+        assertThat(spans.stream().map(HandlerTracing.Span::getName).collect(Collectors.toList())).containsExactly(
+                READ + "/" + HandlerTracing.TRANSLATE,
+                READ + "/" + HandlerTracing.SERVICE_CALL,
+                READ + "/" + HandlerTracing.TRANSLATE,
+                READ);
+        assertThat(spans).allMatch(span -> span.getTraceId().equals(root.getTraceId()));
+        assertThat(spans.subList(0, 3)).allMatch(span -> root.getSpanId().equals(span.getParentSpanId()));
+        assertThat(spans).allMatch(span -> span.getEndEpochNanos() >= span.getStartEpochNanos());
+    }
+
+    @Test
+    public void span_recordsFailureAndRethrows() {
+        final HandlerTracing.Span root = HandlerTracing.start(READ);
+        final IllegalStateException failure = new IllegalStateException("boom");
+
+        assertThatThrownBy(() -> HandlerTracing.span(READ, HandlerTracing.SERVICE_CALL, () -> {
+            throw failure;
+        })).isSameAs(failure);
+        HandlerTracing.end(root, failure);
+
+        assertThat(exported.get(0)).allMatch(span -> "IllegalStateException: boom".equals(span.getError()));
+    }
+
+    @Test
+    public void span_withoutTrace_onlyRunsBody() {
+        assertThat(HandlerTracing.span(READ, HandlerTracing.TRANSLATE, () -> "translated")).isEqualTo("translated");
+        assertThat(exported).isEmpty();
+    }
+
+    @Test
+    public void stdoutExporter_writesOtlpJson() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HandlerTracing.exporter(HandlerTracing.stdoutExporter(new PrintStream(out, true)));
+
+        final HandlerTracing.Span root = HandlerTracing.start(READ);
+        HandlerTracing.span(READ, HandlerTracing.STABILIZE_POLL, () -> Boolean.TRUE);
+        HandlerTracing.end(root, null);
+
+        final JsonNode document = new ObjectMapper().readTree(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        final JsonNode spans = document.path("resourceSpans").path(0).path("scopeSpans").path(0).path("spans");
+        assertThat(spans.size()).isEqualTo(2);
+        assertThat(spans.path(0).path("name").asText()).isEqualTo(READ + "/" + HandlerTracing.STABILIZE_POLL);
+        assertThat(spans.path(0).path("parentSpanId").asText()).isEqualTo(root.getSpanId());
+        assertThat(spans.path(0).path("traceId").asText()).hasSize(32);
+        assertThat(spans.path(0).path("attributes").path(1).path("value").path("stringValue").asText()).isEqualTo(HandlerTracing.STABILIZE_POLL);
+        assertThat(spans.path(1).path("status").path("code").asInt()).isEqualTo(1);
+    }
+}
@@ -1,44 +1,57 @@
 package software.amazon.ec2.capacityreservationfleet;
 
 import org.assertj.core.api.Assertions;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
 import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.Filter;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
-import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.ec2.capacityreservationfleet.ListHandler;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
-public class ListHandlerTest {
+public class ListHandlerTest extends AbstractTestBase {
 
     @Mock
     private AmazonWebServicesClientProxy proxy;
 
     @Mock
-    private Logger logger;
+    private ProxyClient<Ec2Client> proxyClient;
+
+    @Mock
+    Ec2Client ec2Client;
 
     @BeforeEach
     public void setup() {
-        proxy = mock(AmazonWebServicesClientProxy.class);
-        logger = mock(Logger.class);
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        ec2Client = mock(Ec2Client.class);
+        proxyClient = MOCK_PROXY(proxy, ec2Client);
     }
 
     @Test
@@ -54,9 +67,9 @@ public class ListHandlerTest {
         final DescribeCapacityReservationFleetsResponse describeCRFleetsResponse = DescribeCapacityReservationFleetsResponse.builder()
                 .capacityReservationFleets(Arrays.asList(fleet1, fleet2)).build();
 
-        when(proxy.injectCredentialsAndInvokeV2(any(), any())).thenReturn(describeCRFleetsResponse);
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenReturn(describeCRFleetsResponse);
 
-        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, null, logger);
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, null, proxyClient, logger);
 
         final ResourceModel model1 = ResourceModel.builder().capacityReservationFleetId("crf-1").build();
         final ResourceModel model2 = ResourceModel.builder().capacityReservationFleetId("crf-2").build();
@@ -72,6 +85,137 @@ public class ListHandlerTest {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void handleRequest_filtersStatesOnServerSide() {
+        final ListHandler handler = new ListHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().build())
+                .nextToken("token")
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder().build());
+
+        handler.handleRequest(proxy, request, null, proxyClient, logger);
+
+        final ArgumentCaptor<DescribeCapacityReservationFleetsRequest> captor = ArgumentCaptor.forClass(DescribeCapacityReservationFleetsRequest.class);
+        verify(ec2Client).describeCapacityReservationFleets(captor.capture());
+        final DescribeCapacityReservationFleetsRequest describeRequest = captor.getValue();
+
+        assertThat(describeRequest.nextToken()).isEqualTo("token");
+        assertThat(describeRequest.maxResults()).isEqualTo(Translator.LIST_MAX_RESULTS);
+        Assertions.assertThat(describeRequest.filters()).containsExactly(Filter.builder()
+                .name("state")
+                .values("active", "partially_fulfilled", "failed")
+                .build());
+    }
+
+    @Test
+    public void handleRequest_fillsPageFromFollowingPages() {
+        final ListHandler handler = new ListHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().build())
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder()
+                        .capacityReservationFleets(CapacityReservationFleet.builder().capacityReservationFleetId("crf-1").state(CapacityReservationFleetState.ACTIVE).build())
+                        .nextToken("page-2")
+                        .build())
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder()
+                        .capacityReservationFleets(CapacityReservationFleet.builder().capacityReservationFleetId("crf-2").state(CapacityReservationFleetState.FAILED).build())
+                        .build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, null, proxyClient, logger);
+
+        final ArgumentCaptor<DescribeCapacityReservationFleetsRequest> captor = ArgumentCaptor.forClass(DescribeCapacityReservationFleetsRequest.class);
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(captor.capture());
+        // the second page only asks for the space left in the page of models
+        assertThat(captor.getAllValues().get(1).nextToken()).isEqualTo("page-2");
+        assertThat(captor.getAllValues().get(1).maxResults()).isEqualTo(Translator.LIST_MAX_RESULTS - 1);
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isNull();
+        Assertions.assertThat(response.getResourceModels()).containsExactly(
+                ResourceModel.builder().capacityReservationFleetId("crf-1").build(),
+                ResourceModel.builder().capacityReservationFleetId("crf-2").build());
+    }
+
+    @Test
+    public void handleRequest_throttledPage_isRetriedLikeOtherDescribeCalls() {
+        final ListHandler handler = new ListHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().build())
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenThrow(AwsServiceException.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("RequestLimitExceeded").build())
+                        .statusCode(503)
+                        .build())
+                .thenReturn(DescribeCapacityReservationFleetsResponse.builder()
+                        .capacityReservationFleets(CapacityReservationFleet.builder().capacityReservationFleetId("crf-1").state(CapacityReservationFleetState.ACTIVE).build())
+                        .build());
+
+        System.setProperty("crfleet.circuit.breaker", "false");
+        System.setProperty("crfleet.retry.base.delay.ms", "1");
+        System.setProperty("crfleet.retry.max.delay.ms", "5");
+        final ProgressEvent<ResourceModel, CallbackContext> response;
+        try {
+            response = handler.handleRequest(proxy, request, null, proxyClient, logger);
+        } finally {
+            System.clearProperty("crfleet.circuit.breaker");
+            System.clearProperty("crfleet.retry.base.delay.ms");
+            System.clearProperty("crfleet.retry.max.delay.ms");
+        }
+
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        Assertions.assertThat(response.getResourceModels()).containsExactly(ResourceModel.builder().capacityReservationFleetId("crf-1").build());
+    }
+
+    @Test
+    public void handleRequest_hydrated_mapsEveryPropertyFromThePage() {
+        final ListHandler handler = new ListHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().build())
+                .build();
+        final ResourceModel model = ResourceModel.builder()
+                .capacityReservationFleetId("crf-1")
+                .totalTargetCapacity(10)
+                .tenancy("default")
+                .instanceMatchCriteria("open")
+                .allocationStrategy("prioritized")
+                .instanceTypeSpecifications(Collections.singleton(InstanceTypeSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .priority(1)
+                        .weight(1.0)
+                        .build()))
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(translateToDescribeCapacityReservationFleetsResponse(model));
+
+        System.setProperty("crfleet.list.hydrated", "true");
+        final ProgressEvent<ResourceModel, CallbackContext> response;
+        try {
+            response = handler.handleRequest(proxy, request, null, proxyClient, logger);
+        } finally {
+            System.clearProperty("crfleet.list.hydrated");
+        }
+
+        verify(ec2Client, times(1)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        Assertions.assertThat(response.getResourceModels()).hasSize(1);
+        final ResourceModel listed = response.getResourceModels().get(0);
+        assertThat(listed.getCapacityReservationFleetId()).isEqualTo("crf-1");
+        assertThat(listed.getTotalTargetCapacity()).isEqualTo(10);
+        assertThat(listed.getTenancy()).isEqualTo("default");
+        assertThat(listed.getInstanceMatchCriteria()).isEqualTo("open");
+        Assertions.assertThat(listed.getInstanceTypeSpecifications()).isEqualTo(model.getInstanceTypeSpecifications());
+    }
+
     @Test
     public void handleRequest_sdkException_returnsFailed() {
         final ListHandler handler = new ListHandler();
@@ -82,10 +226,10 @@ public class ListHandlerTest {
 
         final SdkException ex = AwsServiceException.builder().message("exceptionMessage").build();
 
-        when(proxy.injectCredentialsAndInvokeV2(any(), any())).thenThrow(ex);
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenThrow(ex);
 
         final ProgressEvent<ResourceModel, CallbackContext> response =
-                handler.handleRequest(proxy, request, null, logger);
+                handler.handleRequest(proxy, request, null, proxyClient, logger);
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
@@ -0,0 +1,498 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetResponse;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+/**
+ * Runs the Create, Read, Update, Delete and List handlers concurrently against {@link SimulatedEc2Client}, the way
+ * CloudFormation does during a large stack deployment, and reports per operation the p50/p95/p99 latency, the EC2
+ * calls per operation, the failures (throttling separately) and the throughput.
+ *
+ * An operation is a handler invocation followed by its re-invocations while it is in progress, with the callback
+ * context and model of the previous event, so its latency is what CloudFormation waits for. Read, Update and Delete
+ * pick a fleet of a pool seeded before the run, Create adds its fleet to the pool and Delete takes its fleet out.
+ *
+ * Options are name=value arguments, see {@link Options} for the names and defaults:
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=software.amazon.ec2.capacityreservationfleet.LoadDriver \
+ *       -Dexec.args="concurrency=64 operations=5000 mix=create:2,read:4,update:2,delete:1,list:1 specCount=50 throttleRate=0.05"
+ *
+ * It lives next to the simulator in the test tree of the handler module. Handler settings (crfleet.* system
+ * properties) such as the rate limiter or circuit breaker apply as in Lambda.
+ */
+public final class LoadDriver {
+    private static final String UNKNOWN_FLEET_ID = "crf-0123456789abcdef0";
+    private static final String[] INSTANCE_TYPES = {"m5.large", "m5.xlarge", "c5.large", "c5.xlarge", "r5.large"};
+    private static final String[] AVAILABILITY_ZONES = {"us-east-1a", "us-east-1b", "us-east-1c", "us-east-1d", "us-east-1e", "us-east-1f"};
+
+    enum Operation {
+        CREATE, READ, UPDATE, DELETE, LIST
+    }
+
+    /**
+     * Options of a run, each given as name=value.
+     */
+    static final class Options {
+        /** Operations running at the same time. */
+        int concurrency = 16;
+        /** Operations in the run. */
+        int operations = 2000;
+        /** Relative weight of every operation, as operation:weight pairs. */
+        Map<Operation, Integer> mix = parseMix("create:2,read:4,update:2,delete:1,list:1");
+        /** Fleets created in the simulator before the run. */
+        int seedFleets = 200;
+        /** InstanceTypeSpecifications per fleet. */
+        int specCount = 10;
+        /** Tags per tag source of a fleet. */
+        int tagCount = 5;
+        /** Median latency of an EC2 call, log-normally distributed. */
+        long latencyMillis = 20;
+        /** Fraction of EC2 calls failing with RequestLimitExceeded. */
+        double throttleRate = 0;
+        /** Fraction of EC2 calls failing with InternalError. */
+        double serverErrorRate = 0;
+        /** Time a fleet spends in every transitional state. */
+        long transitionMillis = 0;
+        /** Seed of the simulator. */
+        long seed = 0;
+
+        static Options parse(final String[] args) {
+            final Options options = new Options();
+            for (final String arg : args) {
+                final int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException(String.format("Option %s must be given as name=value", arg));
+                }
+                final String value = arg.substring(separator + 1);
+                switch (arg.substring(0, separator)) {
+                    case "concurrency":
+                        options.concurrency = Integer.parseInt(value);
+                        break;
+                    case "operations":
+                        options.operations = Integer.parseInt(value);
+                        break;
+                    case "mix":
+                        options.mix = parseMix(value);
+                        break;
+                    case "seedFleets":
+                        options.seedFleets = Integer.parseInt(value);
+                        break;
+                    case "specCount":
+                        options.specCount = Integer.parseInt(value);
+                        break;
+                    case "tagCount":
+                        options.tagCount = Integer.parseInt(value);
+                        break;
+                    case "latencyMillis":
+                        options.latencyMillis = Long.parseLong(value);
+                        break;
+                    case "throttleRate":
+                        options.throttleRate = Double.parseDouble(value);
+                        break;
+                    case "serverErrorRate":
+                        options.serverErrorRate = Double.parseDouble(value);
+                        break;
+                    case "transitionMillis":
+                        options.transitionMillis = Long.parseLong(value);
+                        break;
+                    case "seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown option %s", arg));
+                }
+            }
+            return options;
+        }
+
+        private static Map<Operation, Integer> parseMix(final String mix) {
+            final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (final String entry : mix.split(",")) {
+                final String[] operationWeight = entry.split(":");
+                weights.put(Operation.valueOf(operationWeight[0].trim().toUpperCase()), Integer.parseInt(operationWeight[1].trim()));
+            }
+            return weights;
+        }
+    }
+
+    private final Options options;
+    private final SimulatedEc2Client simulator;
+    private final AmazonWebServicesClientProxy proxy;
+    private final LoggerProxy logger = new LoggerProxy();
+    private final FleetPool pool = new FleetPool();
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+
+    LoadDriver(final Options options) {
+        this.options = options;
+        this.simulator = new SimulatedEc2Client(SimulatedEc2Client.Settings.builder()
+                .latency(SimulatedEc2Client.LatencyDistribution.logNormal(Duration.ofMillis(options.latencyMillis), 0.5))
+                .throttleRate(options.throttleRate)
+                .serverErrorRate(options.serverErrorRate)
+                .submittedTime(Duration.ofMillis(options.transitionMillis))
+                .modifyingTime(Duration.ofMillis(options.transitionMillis))
+                .cancellingTime(Duration.ofMillis(options.transitionMillis))
+                .seed(options.seed)
+                .build());
+        this.proxy = new AmazonWebServicesClientProxy(logger, new Credentials("accessKey", "secretKey", "token"),
+                () -> Duration.ofMinutes(15).toMillis());
+
+        final List<Operation> operations = new ArrayList<>();
+        for (final Map.Entry<Operation, Integer> weight : options.mix.entrySet()) {
+            stats.put(weight.getKey(), new OperationStats());
+            for (int i = 0; i < weight.getValue(); i++) {
+                operations.add(weight.getKey());
+            }
+        }
+        this.weightedOperations = operations.toArray(new Operation[0]);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadDriver driver = new LoadDriver(Options.parse(args));
+        driver.seed();
+        System.out.print(driver.run());
+    }
+
+    /**
+     * Creates the seedFleets fleets directly in the simulator, outside of the measurement.
+     */
+    void seed() {
+        for (int i = 0; i < options.seedFleets; i++) {
+            final ResourceModel model = newModel();
+            final CreateCapacityReservationFleetRequest request =
+                    Translator.translateToCreateRequest(model, handlerRequest(model, options.tagCount), logger);
+            pool.add(simulator.createCapacityReservationFleet(request).capacityReservationFleetId());
+        }
+    }
+
+    /**
+     * @return report of the run
+     */
+    String run() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(options.concurrency);
+        final long startNanos = System.nanoTime();
+        try {
+            final List<Future<?>> operations = new ArrayList<>(options.operations);
+            for (int i = 0; i < options.operations; i++) {
+                final Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+                operations.add(executor.submit(() -> execute(operation)));
+            }
+            for (final Future<?> operation : operations) {
+                operation.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return report(System.nanoTime() - startNanos);
+    }
+
+    private void execute(final Operation operation) {
+        final CountingEc2Client client = new CountingEc2Client(simulator);
+        final ResourceHandlerRequest<ResourceModel> request = request(operation);
+        final BaseHandlerStd handler = handler(operation);
+
+        final long startNanos = System.nanoTime();
+        ProgressEvent<ResourceModel, CallbackContext> event = null;
+        CallbackContext callbackContext = new CallbackContext();
+        RuntimeException exception = null;
+        try {
+            do {
+                if (event != null) {
+                    TimeUnit.SECONDS.sleep(event.getCallbackDelaySeconds());
+                    request.setDesiredResourceState(event.getResourceModel());
+                    callbackContext = event.getCallbackContext();
+                }
+                event = handler.handleRequest(proxy, request, callbackContext, proxy.newProxy(() -> client), logger);
+            } while (event.isInProgress());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (final RuntimeException e) {
+            exception = e;
+        }
+        final long latencyNanos = System.nanoTime() - startNanos;
+
+        if (event != null && event.isSuccess() && operation == Operation.CREATE) {
+            pool.add(event.getResourceModel().getCapacityReservationFleetId());
+        }
+        stats.get(operation).record(latencyNanos, client.calls.get(),
+                exception != null ? exception.getClass().getSimpleName() : event.isSuccess() ? null : String.valueOf(event.getErrorCode()));
+    }
+
+    private ResourceHandlerRequest<ResourceModel> request(final Operation operation) {
+        final ResourceModel model;
+        final ResourceModel previousModel;
+        switch (operation) {
+            case CREATE:
+                model = newModel();
+                previousModel = null;
+                break;
+            case UPDATE:
+                previousModel = newModel();
+                previousModel.setCapacityReservationFleetId(pool.pick());
+                model = newModel();
+                model.setCapacityReservationFleetId(previousModel.getCapacityReservationFleetId());
+                model.setTotalTargetCapacity(previousModel.getTotalTargetCapacity() + 1 + ThreadLocalRandom.current().nextInt(10));
+                break;
+            case DELETE:
+                model = ResourceModel.builder().capacityReservationFleetId(pool.take()).build();
+                previousModel = null;
+                break;
+            case READ:
+                model = ResourceModel.builder().capacityReservationFleetId(pool.pick()).build();
+                previousModel = null;
+                break;
+            default:
+                model = ResourceModel.builder().build();
+                previousModel = null;
+        }
+
+        final ResourceHandlerRequest<ResourceModel> request = handlerRequest(model, options.tagCount);
+        request.setPreviousResourceState(previousModel);
+        request.setClientRequestToken(UUID.randomUUID().toString());
+        return request;
+    }
+
+    private ResourceModel newModel() {
+        return fleetModel(options.specCount, options.tagCount);
+    }
+
+    /**
+     * Fleet with specCount distinct instance type specifications and tagCount fleet tags.
+     */
+    private static ResourceModel fleetModel(final int specCount, final int tagCount) {
+        final Set<InstanceTypeSpecification> specifications = new HashSet<>();
+        for (int i = 0; i < specCount; i++) {
+            specifications.add(InstanceTypeSpecification.builder()
+                    .instanceType(INSTANCE_TYPES[i % INSTANCE_TYPES.length])
+                    .availabilityZone(AVAILABILITY_ZONES[i / INSTANCE_TYPES.length % AVAILABILITY_ZONES.length])
+                    .instancePlatform("Linux/UNIX")
+                    .priority(i)
+                    .weight(1.0 + i)
+                    .build());
+        }
+
+        final List<Tag> tags = new ArrayList<>(tagCount);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(Tag.builder().key("user-key-" + i).value("user-value-" + i).build());
+        }
+
+        return ResourceModel.builder()
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .totalTargetCapacity(specCount * 10)
+                .instanceTypeSpecifications(specifications)
+                .tagSpecifications(Collections.singletonList(TagSpecification.builder()
+                        .resourceType("capacity-reservation-fleet")
+                        .tags(tags)
+                        .build()))
+                .build();
+    }
+
+    /**
+     * Request as CloudFormation sends it, with the system tags and tagCount stack tags.
+     */
+    private static ResourceHandlerRequest<ResourceModel> handlerRequest(final ResourceModel model, final int tagCount) {
+        final Map<String, String> systemTags = new LinkedHashMap<>();
+        systemTags.put("aws:cloudformation:logical-id", "CapacityReservationFleet");
+        systemTags.put("aws:cloudformation:stack-name", "load");
+        final Map<String, String> stackTags = new LinkedHashMap<>();
+        for (int i = 0; i < tagCount; i++) {
+            stackTags.put("user-key-" + i, "stack-value-" + i);
+        }
+
+        return ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .desiredResourceTags(stackTags)
+                .systemTags(systemTags)
+                .region("us-east-1")
+                .awsAccountId("123456789012")
+                .build();
+    }
+
+    private static BaseHandlerStd handler(final Operation operation) {
+        switch (operation) {
+            case CREATE:
+                return new CreateHandler();
+            case READ:
+                return new ReadHandler();
+            case UPDATE:
+                return new UpdateHandler();
+            case DELETE:
+                return new DeleteHandler();
+            default:
+                return new ListHandler();
+        }
+    }
+
+    private String report(final long elapsedNanos) {
+        final double elapsedSeconds = elapsedNanos / 1e9;
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("%d operations, concurrency %d, %.1f s, %.1f ops/s, %d EC2 calls (%d throttled, %d server errors)%n",
+                options.operations, options.concurrency, elapsedSeconds, options.operations / elapsedSeconds,
+                simulator.callCount(SimulatedEc2Client.CREATE) + simulator.callCount(SimulatedEc2Client.DESCRIBE)
+                        + simulator.callCount(SimulatedEc2Client.MODIFY) + simulator.callCount(SimulatedEc2Client.CANCEL),
+                simulator.callCount(SimulatedEc2Client.THROTTLED), simulator.callCount(SimulatedEc2Client.SERVER_ERRORS)));
+        report.append(String.format("%-8s %7s %8s %9s %9s %9s %10s %9s %9s  %s%n",
+                "op", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms", "calls/op", "failed", "throttled", "failures"));
+        for (final Map.Entry<Operation, OperationStats> operation : stats.entrySet()) {
+            report.append(operation.getValue().format(operation.getKey(), elapsedSeconds));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Results of one operation, shared by all threads running it.
+     */
+    private static final class OperationStats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final Map<String, Integer> failures = new TreeMap<>();
+        private long ec2Calls;
+
+        synchronized void record(final long latencyNanos, final int calls, final String failure) {
+            latencies.add(latencyNanos);
+            ec2Calls += calls;
+            if (failure != null) {
+                failures.merge(failure, 1, Integer::sum);
+            }
+        }
+
+        synchronized String format(final Operation operation, final double elapsedSeconds) {
+            final long[] sorted = new long[latencies.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+
+            int failed = 0;
+            for (final int count : failures.values()) {
+                failed += count;
+            }
+            final int throttled = failures.getOrDefault(HandlerErrorCode.Throttling.toString(), 0);
+            return String.format("%-8s %7d %8.1f %9.1f %9.1f %9.1f %10.2f %9d %9d  %s%n",
+                    operation, sorted.length, sorted.length / elapsedSeconds,
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95), percentileMillis(sorted, 0.99),
+                    sorted.length == 0 ? 0.0 : (double) ec2Calls / sorted.length, failed, throttled, failures);
+        }
+
+        private static double percentileMillis(final long[] sorted, final double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1e6;
+        }
+    }
+
+    /**
+     * Fleets Read, Update and Delete can run on.
+     */
+    private static final class FleetPool {
+        private final List<String> fleetIds = new ArrayList<>();
+        private final Random random = new Random();
+
+        synchronized void add(final String fleetId) {
+            fleetIds.add(fleetId);
+        }
+
+        /**
+         * @return a fleet that stays in the pool, or an id EC2 doesn't know once the pool is empty
+         */
+        synchronized String pick() {
+            return fleetIds.isEmpty() ? UNKNOWN_FLEET_ID : fleetIds.get(random.nextInt(fleetIds.size()));
+        }
+
+        /**
+         * @return a fleet removed from the pool, or an id EC2 doesn't know once the pool is empty
+         */
+        synchronized String take() {
+            if (fleetIds.isEmpty()) {
+                return UNKNOWN_FLEET_ID;
+            }
+            final int index = random.nextInt(fleetIds.size());
+            final String fleetId = fleetIds.get(index);
+            fleetIds.set(index, fleetIds.get(fleetIds.size() - 1));
+            fleetIds.remove(fleetIds.size() - 1);
+            return fleetId;
+        }
+    }
+
+    /**
+     * Counts the EC2 calls of one operation on the shared simulator.
+     */
+    private static final class CountingEc2Client implements Ec2Client {
+        private final Ec2Client delegate;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingEc2Client(final Ec2Client delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public CreateCapacityReservationFleetResponse createCapacityReservationFleet(final CreateCapacityReservationFleetRequest request) {
+            calls.incrementAndGet();
+            return delegate.createCapacityReservationFleet(request);
+        }
+
+        @Override
+        public DescribeCapacityReservationFleetsResponse describeCapacityReservationFleets(final DescribeCapacityReservationFleetsRequest request) {
+            calls.incrementAndGet();
+            return delegate.describeCapacityReservationFleets(request);
+        }
+
+        @Override
+        public ModifyCapacityReservationFleetResponse modifyCapacityReservationFleet(final ModifyCapacityReservationFleetRequest request) {
+            calls.incrementAndGet();
+            return delegate.modifyCapacityReservationFleet(request);
+        }
+
+        @Override
+        public CancelCapacityReservationFleetsResponse cancelCapacityReservationFleets(final CancelCapacityReservationFleetsRequest request) {
+            calls.incrementAndGet();
+            return delegate.cancelCapacityReservationFleets(request);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class PreflightValidatorTest extends AbstractTestBase {
+
+    private ResourceModel model;
+
+    @BeforeEach
+    public void setup() {
+        model = ResourceModel.builder()
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(specification("m5.large", "us-east-1a"))))
+                .totalTargetCapacity(10)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .endDate("2030-01-01T00:00:00Z")
+                .build();
+    }
+
+    private static InstanceTypeSpecification specification(final String instanceType, final String availabilityZone) {
+        return InstanceTypeSpecification.builder()
+                .instanceType(instanceType)
+                .instancePlatform("Linux/UNIX")
+                .availabilityZone(availabilityZone)
+                .priority(1)
+                .weight(1.0)
+                .build();
+    }
+
+    private static ResourceHandlerRequest<ResourceModel> request(final ResourceModel model) {
+        return ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build();
+    }
+
+    @Test
+    public void validateCreate_acceptsValidModel() {
+        PreflightValidator.validateCreate(request(model));
+    }
+
+    @Test
+    public void validateCreate_reportsEveryViolationOfTheModel() {
+        final InstanceTypeSpecification bothZones = specification("c5.large", "us-east-1a");
+        bothZones.setAvailabilityZoneId("use1-az1");
+        final InstanceTypeSpecification outOfRange = specification("r5.large", "us-east-1a");
+        outOfRange.setPriority(1000);
+        outOfRange.setWeight(0.0);
+        final InstanceTypeSpecification duplicate = specification("m5.large", "us-east-1a");
+        duplicate.setPriority(2);
+        model.setInstanceTypeSpecifications(new HashSet<>(Arrays.asList(specification("m5.large", "us-east-1a"), bothZones, outOfRange, duplicate)));
+        model.setTotalTargetCapacity(0);
+        model.setEndDate("2030-01-01");
+
+        assertThatThrownBy(() -> PreflightValidator.validateCreate(request(model)))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining("AvailabilityZone and AvailabilityZoneId")
+                .hasMessageContaining("Priority 1000")
+                .hasMessageContaining("Weight 0.0")
+                .hasMessageContaining("m5.large is specified more than once")
+                .hasMessageContaining("TotalTargetCapacity 0")
+                .hasMessageContaining("EndDate 2030-01-01");
+    }
+
+    @Test
+    public void validateCreate_leavesWhatTheSchemaDoesNotRequireToEc2() {
+        final InstanceTypeSpecification withoutPlatform = specification("m5.large", "us-east-1a");
+        withoutPlatform.setInstancePlatform(null);
+        model.setInstanceTypeSpecifications(new HashSet<>(Collections.singletonList(withoutPlatform)));
+        model.setAllocationStrategy("lowest-price");
+        PreflightValidator.validateCreate(request(model));
+
+        model.setInstanceTypeSpecifications(null);
+        model.setTotalTargetCapacity(null);
+        PreflightValidator.validateCreate(request(model));
+    }
+
+    @Test
+    public void validateCreate_rejectsUnsupportedEnumValues() {
+        model.setTenancy("dedicated");
+
+        assertThatThrownBy(() -> PreflightValidator.validateCreate(request(model)))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining("Tenancy dedicated");
+    }
+
+    @Test
+    public void validateCreate_rejectsInvalidTags() {
+        model.setTagSpecifications(Collections.singletonList(TagSpecification.builder()
+                .resourceType("capacity-reservation-fleet")
+                .tags(Collections.singletonList(Tag.builder().key("aws:owner").value("me").build()))
+                .build()));
+
+        assertThatThrownBy(() -> PreflightValidator.validateCreate(request(model)))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining(TagMerger.RESERVED_PREFIX);
+    }
+
+    @Test
+    public void createHandler_failsInvalidRequestWithoutCallingEc2() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final Ec2Client ec2Client = mock(Ec2Client.class);
+        model.setTotalTargetCapacity(25001);
+
+        final ProgressEvent<ResourceModel, CallbackContext> result =
+                new CreateHandler().handleRequest(proxy, request(model), new CallbackContext(), MOCK_PROXY(proxy, ec2Client), logger);
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(result.getErrorCode()).isEqualTo(HandlerErrorCode.InvalidRequest);
+        assertThat(result.getMessage()).contains("TotalTargetCapacity 25001");
+        verify(ec2Client, never()).createCapacityReservationFleet(any(CreateCapacityReservationFleetRequest.class));
+    }
+}
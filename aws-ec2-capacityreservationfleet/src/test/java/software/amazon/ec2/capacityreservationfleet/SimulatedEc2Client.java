@@ -0,0 +1,548 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetError;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetCancellationState;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.Ec2Exception;
+import software.amazon.awssdk.services.ec2.model.FailedCapacityReservationFleetCancellationResult;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.FleetCapacityReservation;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetResponse;
+import software.amazon.awssdk.services.ec2.model.ReservationFleetInstanceSpecification;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.ec2.model.TagSpecification;
+
+/**
+ * In-memory EC2 for the capacity reservation fleet APIs, to drive the real handlers through whole fleet lifecycles
+ * instead of mocking every call. Plugs into the handlers like the mocks, e.g. MOCK_PROXY(proxy, simulator) or
+ * MOCK_ASYNC_PROXY(proxy, simulator.async()).
+ *
+ * Fleets move through the EC2 state machine as time passes, observed on every call:
+ *  - SUBMITTED for submittedTime, then ACTIVE, PARTIALLY_FULFILLED (partiallyFulfilledRate) or FAILED (failedRate)
+ *  - MODIFYING for modifyingTime after a Modify, then back to ACTIVE
+ *  - CANCELLING for cancellingTime after a Cancel, then CANCELLED
+ *  - EXPIRED once the end date has passed
+ *
+ * Every call first waits a latency sampled from the latency distribution, then fails with RequestLimitExceeded at
+ * throttleRate and with InternalError at serverErrorRate. Describe supports fleet ids, the state, tenancy,
+ * instance-match-criteria and allocation-strategy filters, and paging with MaxResults and NextToken. Unknown fleet
+ * ids fail with InvalidCapacityReservationFleetId.NotFound like EC2.
+ */
+public class SimulatedEc2Client implements Ec2Client {
+    static final String DESCRIBE = "Describe";
+    static final String CREATE = "Create";
+    static final String MODIFY = "Modify";
+    static final String CANCEL = "Cancel";
+    static final String THROTTLED = "Throttled";
+    static final String SERVER_ERRORS = "ServerErrors";
+
+    private static final String CR_FLEET_TAG_RESOURCE_TYPE = "capacity-reservation-fleet";
+    private static final int DEFAULT_MAX_RESULTS = 100;
+
+    /**
+     * Latency of a simulated call.
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+        Duration sample(Random random);
+
+        static LatencyDistribution fixed(final Duration latency) {
+            return random -> latency;
+        }
+
+        static LatencyDistribution uniform(final Duration min, final Duration max) {
+            return random -> min.plusMillis((long) (random.nextDouble() * (max.toMillis() - min.toMillis())));
+        }
+
+        /**
+         * Long-tailed latency around the median, sigma 0.5 gives a p99 of about 3.2 times the median.
+         */
+        static LatencyDistribution logNormal(final Duration median, final double sigma) {
+            return random -> Duration.ofMillis((long) (median.toMillis() * Math.exp(sigma * random.nextGaussian())));
+        }
+    }
+
+    @lombok.Builder
+    @lombok.Getter
+    public static class Settings {
+        @lombok.Builder.Default
+        private final Duration submittedTime = Duration.ZERO;
+
+        @lombok.Builder.Default
+        private final Duration modifyingTime = Duration.ZERO;
+
+        @lombok.Builder.Default
+        private final Duration cancellingTime = Duration.ZERO;
+
+        /**
+         * Fraction of the fleets that end up PARTIALLY_FULFILLED instead of ACTIVE.
+         */
+        @lombok.Builder.Default
+        private final double partiallyFulfilledRate = 0;
+
+        /**
+         * Fraction of the fleets that end up FAILED instead of ACTIVE.
+         */
+        @lombok.Builder.Default
+        private final double failedRate = 0;
+
+        @lombok.Builder.Default
+        private final LatencyDistribution latency = LatencyDistribution.fixed(Duration.ZERO);
+
+        @lombok.Builder.Default
+        private final double throttleRate = 0;
+
+        @lombok.Builder.Default
+        private final double serverErrorRate = 0;
+
+        @lombok.Builder.Default
+        private final long seed = 0;
+
+        /**
+         * Current time in milliseconds, replace to move the fleets through their states without waiting.
+         */
+        @lombok.Builder.Default
+        private final LongSupplier clockMillis = System::currentTimeMillis;
+    }
+
+    private final Settings settings;
+    private final Random random;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ConcurrentSkipListMap<String, SimulatedFleet> fleets = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, String> clientTokens = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> callCounts = new ConcurrentHashMap<>();
+
+    public SimulatedEc2Client() {
+        this(Settings.builder().build());
+    }
+
+    public SimulatedEc2Client(final Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.getSeed());
+    }
+
+    /**
+     * @param name DESCRIBE, CREATE, MODIFY, CANCEL, THROTTLED or SERVER_ERRORS
+     * @return number of calls or injected errors so far
+     */
+    public long callCount(final String name) {
+        final LongAdder count = callCounts.get(name);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return state of every fleet by id, as Describe would return it now
+     */
+    public Map<String, CapacityReservationFleetState> fleetStates() {
+        final long now = settings.getClockMillis().getAsLong();
+        final Map<String, CapacityReservationFleetState> states = new ConcurrentSkipListMap<>();
+        fleets.forEach((id, fleet) -> states.put(id, fleet.state(now)));
+        return states;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CreateCapacityReservationFleetResponse createCapacityReservationFleet(final CreateCapacityReservationFleetRequest request) {
+        call(CREATE);
+        final long now = settings.getClockMillis().getAsLong();
+
+        final String previousId = request.clientToken() == null ? null : clientTokens.get(request.clientToken());
+        final SimulatedFleet fleet;
+        if (previousId != null) {
+            fleet = fleets.get(previousId);
+        } else {
+            fleet = new SimulatedFleet(String.format("crf-%017x", nextId.getAndIncrement()), request, finalState(), now);
+            fleets.put(fleet.id, fleet);
+            if (request.clientToken() != null) {
+                clientTokens.put(request.clientToken(), fleet.id);
+            }
+        }
+
+        final CapacityReservationFleet described = fleet.describe(now);
+        return CreateCapacityReservationFleetResponse.builder()
+                .capacityReservationFleetId(described.capacityReservationFleetId())
+                .state(described.state())
+                .totalTargetCapacity(described.totalTargetCapacity())
+                .totalFulfilledCapacity(described.totalFulfilledCapacity())
+                .instanceMatchCriteria(described.instanceMatchCriteria())
+                .allocationStrategy(described.allocationStrategy())
+                .createTime(described.createTime())
+                .endDate(described.endDate())
+                .tenancy(described.tenancy())
+                .fleetCapacityReservations(described.instanceTypeSpecifications())
+                .tags(described.tags())
+                .build();
+    }
+
+    @Override
+    public DescribeCapacityReservationFleetsResponse describeCapacityReservationFleets(final DescribeCapacityReservationFleetsRequest request) {
+        call(DESCRIBE);
+        final long now = settings.getClockMillis().getAsLong();
+
+        final List<CapacityReservationFleet> matching = new ArrayList<>();
+        if (request.hasCapacityReservationFleetIds() && !request.capacityReservationFleetIds().isEmpty()) {
+            for (final String id : request.capacityReservationFleetIds()) {
+                matching.add(fleet(id).describe(now));
+            }
+        } else {
+            for (final SimulatedFleet fleet : fleets.values()) {
+                matching.add(fleet.describe(now));
+            }
+        }
+        if (request.hasFilters()) {
+            for (final Filter filter : request.filters()) {
+                matching.removeIf(fleet -> !filter.values().contains(filterValue(filter.name(), fleet)));
+            }
+        }
+
+        final int from = startIndex(request.nextToken(), matching.size());
+        final int maxResults = request.maxResults() == null ? DEFAULT_MAX_RESULTS : request.maxResults();
+        final int to = Math.min(matching.size(), from + maxResults);
+        return DescribeCapacityReservationFleetsResponse.builder()
+                .capacityReservationFleets(new ArrayList<>(matching.subList(from, to)))
+                .nextToken(to < matching.size() ? String.valueOf(to) : null)
+                .build();
+    }
+
+    @Override
+    public ModifyCapacityReservationFleetResponse modifyCapacityReservationFleet(final ModifyCapacityReservationFleetRequest request) {
+        call(MODIFY);
+        fleet(request.capacityReservationFleetId()).modify(request, settings.getClockMillis().getAsLong());
+        return ModifyCapacityReservationFleetResponse.builder().returnValue(true).build();
+    }
+
+    @Override
+    public CancelCapacityReservationFleetsResponse cancelCapacityReservationFleets(final CancelCapacityReservationFleetsRequest request) {
+        call(CANCEL);
+        final long now = settings.getClockMillis().getAsLong();
+
+        final List<CapacityReservationFleetCancellationState> successful = new ArrayList<>();
+        final List<FailedCapacityReservationFleetCancellationResult> failed = new ArrayList<>();
+        for (final String id : request.capacityReservationFleetIds()) {
+            final SimulatedFleet fleet = fleets.get(id);
+            if (fleet == null) {
+                failed.add(FailedCapacityReservationFleetCancellationResult.builder()
+                        .capacityReservationFleetId(id)
+                        .cancelCapacityReservationFleetError(CancelCapacityReservationFleetError.builder()
+                                .code(Translator.INVALID_CR_FLEET_ID_NOT_FOUND)
+                                .message(String.format("The capacity reservation fleet ID '%s' does not exist", id))
+                                .build())
+                        .build());
+                continue;
+            }
+
+            final CapacityReservationFleetState previousState = fleet.cancel(now);
+            successful.add(CapacityReservationFleetCancellationState.builder()
+                    .capacityReservationFleetId(id)
+                    .previousFleetState(previousState)
+                    .currentFleetState(fleet.state(now))
+                    .build());
+        }
+
+        return CancelCapacityReservationFleetsResponse.builder()
+                .successfulFleetCancellations(successful)
+                .failedFleetCancellations(failed)
+                .build();
+    }
+
+    /**
+     * @return the simulator behind the async client interface, every call completes on the common pool
+     */
+    public Ec2AsyncClient async() {
+        final SimulatedEc2Client sync = this;
+        return new Ec2AsyncClient() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public CompletableFuture<CreateCapacityReservationFleetResponse> createCapacityReservationFleet(final CreateCapacityReservationFleetRequest request) {
+                return supplyAsync(() -> sync.createCapacityReservationFleet(request));
+            }
+
+            @Override
+            public CompletableFuture<DescribeCapacityReservationFleetsResponse> describeCapacityReservationFleets(final DescribeCapacityReservationFleetsRequest request) {
+                return supplyAsync(() -> sync.describeCapacityReservationFleets(request));
+            }
+
+            @Override
+            public CompletableFuture<ModifyCapacityReservationFleetResponse> modifyCapacityReservationFleet(final ModifyCapacityReservationFleetRequest request) {
+                return supplyAsync(() -> sync.modifyCapacityReservationFleet(request));
+            }
+
+            @Override
+            public CompletableFuture<CancelCapacityReservationFleetsResponse> cancelCapacityReservationFleets(final CancelCapacityReservationFleetsRequest request) {
+                return supplyAsync(() -> sync.cancelCapacityReservationFleets(request));
+            }
+        };
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(final Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call);
+    }
+
+    /**
+     * Counts the call, waits its latency and injects the configured errors.
+     */
+    private void call(final String api) {
+        count(api);
+
+        final Duration latency = settings.getLatency().sample(random);
+        if (!latency.isNegative() && !latency.isZero()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency.toMillis());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (random.nextDouble() < settings.getThrottleRate()) {
+            count(THROTTLED);
+            throw error("RequestLimitExceeded", "Request limit exceeded.", 503);
+        }
+        if (random.nextDouble() < settings.getServerErrorRate()) {
+            count(SERVER_ERRORS);
+            throw error("InternalError", "An internal error has occurred.", 500);
+        }
+    }
+
+    private void count(final String name) {
+        callCounts.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    private CapacityReservationFleetState finalState() {
+        final double outcome = random.nextDouble();
+        if (outcome < settings.getFailedRate()) {
+            return CapacityReservationFleetState.FAILED;
+        }
+        return outcome < settings.getFailedRate() + settings.getPartiallyFulfilledRate()
+                ? CapacityReservationFleetState.PARTIALLY_FULFILLED
+                : CapacityReservationFleetState.ACTIVE;
+    }
+
+    private SimulatedFleet fleet(final String id) {
+        final SimulatedFleet fleet = id == null ? null : fleets.get(id);
+        if (fleet == null) {
+            throw error(Translator.INVALID_CR_FLEET_ID_NOT_FOUND, String.format("The capacity reservation fleet ID '%s' does not exist", id), 400);
+        }
+        return fleet;
+    }
+
+    private static String filterValue(final String name, final CapacityReservationFleet fleet) {
+        switch (name) {
+            case "state":
+                return fleet.stateAsString();
+            case "tenancy":
+                return fleet.tenancyAsString();
+            case "instance-match-criteria":
+                return fleet.instanceMatchCriteriaAsString();
+            case "allocation-strategy":
+                return fleet.allocationStrategy();
+            default:
+                throw error("InvalidParameterValue", String.format("The filter '%s' is invalid", name), 400);
+        }
+    }
+
+    private static int startIndex(final String nextToken, final int size) {
+        if (nextToken == null) {
+            return 0;
+        }
+        try {
+            final int index = Integer.parseInt(nextToken);
+            if (index >= 0 && index <= size) {
+                return index;
+            }
+        } catch (final NumberFormatException e) {
+            // reported below like any other invalid token
+        }
+        throw error("InvalidParameterValue", String.format("Invalid NextToken %s", nextToken), 400);
+    }
+
+    private static Ec2Exception error(final String errorCode, final String message, final int statusCode) {
+        return Ec2Exception.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).errorMessage(message).serviceName(SERVICE_NAME).build())
+                .message(message)
+                .statusCode(statusCode)
+                .build();
+    }
+
+    /**
+     * A fleet and its lifecycle. The state is derived from the time of the last transition whenever it is read.
+     */
+    private final class SimulatedFleet {
+        private final String id;
+        private final CreateCapacityReservationFleetRequest created;
+        private final CapacityReservationFleetState provisionedState;
+        private final Instant createTime;
+
+        private CapacityReservationFleetState state = CapacityReservationFleetState.SUBMITTED;
+        private long stateSinceMillis;
+        private int totalTargetCapacity;
+        private Instant endDate;
+
+        SimulatedFleet(final String id,
+                       final CreateCapacityReservationFleetRequest created,
+                       final CapacityReservationFleetState provisionedState,
+                       final long nowMillis) {
+            this.id = id;
+            this.created = created;
+            this.provisionedState = provisionedState;
+            this.createTime = Instant.ofEpochMilli(nowMillis);
+            this.stateSinceMillis = nowMillis;
+            this.totalTargetCapacity = created.totalTargetCapacity() == null ? 0 : created.totalTargetCapacity();
+            this.endDate = created.endDate();
+        }
+
+        synchronized CapacityReservationFleetState state(final long nowMillis) {
+            advance(nowMillis);
+            return state;
+        }
+
+        synchronized void modify(final ModifyCapacityReservationFleetRequest request, final long nowMillis) {
+            advance(nowMillis);
+            if (state != CapacityReservationFleetState.ACTIVE && state != CapacityReservationFleetState.PARTIALLY_FULFILLED) {
+                throw error(Translator.INVALID_CR_FLEET_STATE_TRANSITION,
+                        String.format("The capacity reservation fleet %s is in the %s state and cannot be modified", id, state), 400);
+            }
+
+            if (request.totalTargetCapacity() != null) {
+                totalTargetCapacity = request.totalTargetCapacity();
+            }
+            if (Boolean.TRUE.equals(request.removeEndDate())) {
+                endDate = null;
+            } else if (request.endDate() != null) {
+                endDate = request.endDate();
+            }
+            transition(CapacityReservationFleetState.MODIFYING, nowMillis);
+        }
+
+        /**
+         * @return state before the cancel
+         */
+        synchronized CapacityReservationFleetState cancel(final long nowMillis) {
+            advance(nowMillis);
+            final CapacityReservationFleetState previousState = state;
+            if (state != CapacityReservationFleetState.CANCELLING && state != CapacityReservationFleetState.CANCELLED
+                    && state != CapacityReservationFleetState.EXPIRED && state != CapacityReservationFleetState.FAILED) {
+                transition(CapacityReservationFleetState.CANCELLING, nowMillis);
+                advance(nowMillis);
+            }
+            return previousState;
+        }
+
+        synchronized CapacityReservationFleet describe(final long nowMillis) {
+            advance(nowMillis);
+
+            final List<FleetCapacityReservation> reservations = new ArrayList<>();
+            if (created.hasInstanceTypeSpecifications()) {
+                for (final ReservationFleetInstanceSpecification specification : created.instanceTypeSpecifications()) {
+                    reservations.add(FleetCapacityReservation.builder()
+                            .instanceType(specification.instanceTypeAsString())
+                            .instancePlatform(specification.instancePlatformAsString())
+                            .availabilityZone(specification.availabilityZone())
+                            .availabilityZoneId(specification.availabilityZoneId())
+                            .ebsOptimized(specification.ebsOptimized())
+                            .priority(specification.priority())
+                            .weight(specification.weight())
+                            .build());
+                }
+            }
+
+            return CapacityReservationFleet.builder()
+                    .capacityReservationFleetId(id)
+                    .state(state)
+                    .totalTargetCapacity(totalTargetCapacity)
+                    .totalFulfilledCapacity(fulfilledCapacity())
+                    .tenancy(created.tenancyAsString())
+                    .instanceMatchCriteria(created.instanceMatchCriteriaAsString())
+                    .allocationStrategy(created.allocationStrategy())
+                    .createTime(createTime)
+                    .endDate(endDate)
+                    .instanceTypeSpecifications(reservations)
+                    .tags(tags())
+                    .build();
+        }
+
+        private void advance(final long nowMillis) {
+            final long elapsedMillis = nowMillis - stateSinceMillis;
+            if (state == CapacityReservationFleetState.SUBMITTED && elapsedMillis >= settings.getSubmittedTime().toMillis()) {
+                transition(provisionedState, stateSinceMillis + settings.getSubmittedTime().toMillis());
+            } else if (state == CapacityReservationFleetState.MODIFYING && elapsedMillis >= settings.getModifyingTime().toMillis()) {
+                transition(CapacityReservationFleetState.ACTIVE, stateSinceMillis + settings.getModifyingTime().toMillis());
+            } else if (state == CapacityReservationFleetState.CANCELLING && elapsedMillis >= settings.getCancellingTime().toMillis()) {
+                transition(CapacityReservationFleetState.CANCELLED, stateSinceMillis + settings.getCancellingTime().toMillis());
+            }
+
+            if (endDate != null && nowMillis >= endDate.toEpochMilli()
+                    && (state == CapacityReservationFleetState.ACTIVE || state == CapacityReservationFleetState.PARTIALLY_FULFILLED)) {
+                transition(CapacityReservationFleetState.EXPIRED, endDate.toEpochMilli());
+            }
+        }
+
+        private void transition(final CapacityReservationFleetState to, final long atMillis) {
+            state = to;
+            stateSinceMillis = atMillis;
+        }
+
+        private double fulfilledCapacity() {
+            if (state == CapacityReservationFleetState.ACTIVE || state == CapacityReservationFleetState.MODIFYING) {
+                return totalTargetCapacity;
+            }
+            return state == CapacityReservationFleetState.PARTIALLY_FULFILLED ? totalTargetCapacity / 2 : 0;
+        }
+
+        private List<Tag> tags() {
+            if (!created.hasTagSpecifications()) {
+                return Collections.emptyList();
+            }
+            final List<Tag> tags = new ArrayList<>();
+            for (final TagSpecification tagSpecification : created.tagSpecifications()) {
+                if (CR_FLEET_TAG_RESOURCE_TYPE.equals(tagSpecification.resourceTypeAsString())) {
+                    tags.addAll(tagSpecification.tags());
+                }
+            }
+            return tags;
+        }
+    }
+}
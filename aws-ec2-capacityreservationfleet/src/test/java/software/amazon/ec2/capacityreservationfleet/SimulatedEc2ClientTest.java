@@ -0,0 +1,187 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.CancelCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.CreateCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeCapacityReservationFleetsResponse;
+import software.amazon.awssdk.services.ec2.model.Ec2Exception;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.ModifyCapacityReservationFleetRequest;
+import software.amazon.awssdk.services.ec2.model.ReservationFleetInstanceSpecification;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SimulatedEc2ClientTest extends AbstractTestBase {
+
+    private final AtomicLong now = new AtomicLong(Instant.parse("2030-01-01T00:00:00Z").toEpochMilli());
+
+    private SimulatedEc2Client simulator(final SimulatedEc2Client.Settings.SettingsBuilder settings) {
+        return new SimulatedEc2Client(settings.clockMillis(now::get).build());
+    }
+
+    private static CreateCapacityReservationFleetRequest createRequest(final String clientToken) {
+        return CreateCapacityReservationFleetRequest.builder()
+                .clientToken(clientToken)
+                .totalTargetCapacity(10)
+                .tenancy("default")
+                .instanceMatchCriteria("open")
+                .allocationStrategy("prioritized")
+                .instanceTypeSpecifications(ReservationFleetInstanceSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .build())
+                .build();
+    }
+
+    private static DescribeCapacityReservationFleetsRequest describeRequest(final String fleetId) {
+        return DescribeCapacityReservationFleetsRequest.builder().capacityReservationFleetIds(fleetId).build();
+    }
+
+    private static CapacityReservationFleetState describedState(final SimulatedEc2Client simulator, final String fleetId) {
+        return simulator.describeCapacityReservationFleets(describeRequest(fleetId)).capacityReservationFleets().get(0).state();
+    }
+
+    @Test
+    public void fleet_movesThroughItsLifecycleAsTimePasses() {
+        final SimulatedEc2Client simulator = simulator(SimulatedEc2Client.Settings.builder()
+                .submittedTime(Duration.ofSeconds(30))
+                .modifyingTime(Duration.ofSeconds(20))
+                .cancellingTime(Duration.ofSeconds(10)));
+
+        final String fleetId = simulator.createCapacityReservationFleet(createRequest("token")).capacityReservationFleetId();
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.SUBMITTED);
+        assertThat(simulator.createCapacityReservationFleet(createRequest("token")).capacityReservationFleetId()).isEqualTo(fleetId);
+
+        now.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.ACTIVE);
+
+        simulator.modifyCapacityReservationFleet(ModifyCapacityReservationFleetRequest.builder()
+                .capacityReservationFleetId(fleetId)
+                .totalTargetCapacity(20)
+                .build());
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.MODIFYING);
+        assertThatThrownBy(() -> simulator.modifyCapacityReservationFleet(ModifyCapacityReservationFleetRequest.builder()
+                .capacityReservationFleetId(fleetId)
+                .totalTargetCapacity(30)
+                .build()))
+                .isInstanceOf(Ec2Exception.class)
+                .hasMessageContaining("cannot be modified");
+
+        now.addAndGet(Duration.ofSeconds(20).toMillis());
+        assertThat(simulator.describeCapacityReservationFleets(describeRequest(fleetId)).capacityReservationFleets().get(0).totalTargetCapacity())
+                .isEqualTo(20);
+
+        final CancelCapacityReservationFleetsResponse cancelResponse = simulator.cancelCapacityReservationFleets(
+                CancelCapacityReservationFleetsRequest.builder().capacityReservationFleetIds(fleetId, "crf-unknown").build());
+        assertThat(cancelResponse.successfulFleetCancellations().get(0).currentFleetState()).isEqualTo(CapacityReservationFleetState.CANCELLING);
+        assertThat(cancelResponse.failedFleetCancellations().get(0).capacityReservationFleetId()).isEqualTo("crf-unknown");
+
+        now.addAndGet(Duration.ofSeconds(10).toMillis());
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.CANCELLED);
+        assertThat(simulator.callCount(SimulatedEc2Client.CREATE)).isEqualTo(2);
+    }
+
+    @Test
+    public void fleet_expiresAtItsEndDate() {
+        final SimulatedEc2Client simulator = simulator(SimulatedEc2Client.Settings.builder());
+        final String fleetId = simulator.createCapacityReservationFleet(createRequest(null).toBuilder()
+                .endDate(Instant.ofEpochMilli(now.get()).plusSeconds(60))
+                .build()).capacityReservationFleetId();
+
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.ACTIVE);
+        now.addAndGet(Duration.ofSeconds(60).toMillis());
+        assertThat(describedState(simulator, fleetId)).isEqualTo(CapacityReservationFleetState.EXPIRED);
+    }
+
+    @Test
+    public void describe_pagesAndFilters() {
+        final SimulatedEc2Client simulator = simulator(SimulatedEc2Client.Settings.builder());
+        for (int i = 0; i < 5; i++) {
+            simulator.createCapacityReservationFleet(createRequest(null));
+        }
+        final String cancelledId = simulator.createCapacityReservationFleet(createRequest(null)).capacityReservationFleetId();
+        simulator.cancelCapacityReservationFleets(CancelCapacityReservationFleetsRequest.builder().capacityReservationFleetIds(cancelledId).build());
+
+        final DescribeCapacityReservationFleetsRequest active = DescribeCapacityReservationFleetsRequest.builder()
+                .filters(Filter.builder().name("state").values("active").build())
+                .maxResults(3)
+                .build();
+        final DescribeCapacityReservationFleetsResponse firstPage = simulator.describeCapacityReservationFleets(active);
+        final DescribeCapacityReservationFleetsResponse secondPage = simulator.describeCapacityReservationFleets(
+                active.toBuilder().nextToken(firstPage.nextToken()).build());
+
+        assertThat(firstPage.capacityReservationFleets()).hasSize(3);
+        assertThat(secondPage.capacityReservationFleets()).hasSize(2);
+        assertThat(secondPage.nextToken()).isNull();
+        assertThat(simulator.fleetStates()).hasSize(6).containsEntry(cancelledId, CapacityReservationFleetState.CANCELLED);
+        assertThatThrownBy(() -> simulator.describeCapacityReservationFleets(describeRequest("crf-unknown")))
+                .isInstanceOf(Ec2Exception.class)
+                .satisfies(e -> assertThat(((Ec2Exception) e).awsErrorDetails().errorCode()).isEqualTo(Translator.INVALID_CR_FLEET_ID_NOT_FOUND));
+    }
+
+    @Test
+    public void calls_failWithInjectedThrottlingAndServerErrors() {
+        final SimulatedEc2Client throttled = simulator(SimulatedEc2Client.Settings.builder().throttleRate(1));
+        final SimulatedEc2Client failing = simulator(SimulatedEc2Client.Settings.builder().serverErrorRate(1));
+
+        assertThatThrownBy(() -> throttled.createCapacityReservationFleet(createRequest(null)))
+                .isInstanceOf(Ec2Exception.class)
+                .satisfies(e -> assertThat(((Ec2Exception) e).isThrottlingException()).isTrue());
+        assertThatThrownBy(() -> failing.describeCapacityReservationFleets(DescribeCapacityReservationFleetsRequest.builder().build()))
+                .isInstanceOf(Ec2Exception.class)
+                .satisfies(e -> assertThat(((Ec2Exception) e).statusCode()).isEqualTo(500));
+        assertThat(throttled.callCount(SimulatedEc2Client.THROTTLED)).isEqualTo(1);
+        assertThat(failing.callCount(SimulatedEc2Client.SERVER_ERRORS)).isEqualTo(1);
+        assertThat(throttled.fleetStates()).isEmpty();
+    }
+
+    @Test
+    public void handlers_createAndDeleteFleetAgainstSimulator() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        final SimulatedEc2Client simulator = new SimulatedEc2Client();
+        final ResourceModel model = ResourceModel.builder()
+                .instanceTypeSpecifications(new HashSet<>(Collections.singletonList(InstanceTypeSpecification.builder()
+                        .instanceType("m5.large")
+                        .instancePlatform("Linux/UNIX")
+                        .availabilityZone("us-east-1a")
+                        .build())))
+                .totalTargetCapacity(10)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .tenancy("default")
+                .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> created = new CreateHandler().handleRequest(proxy,
+                ResourceHandlerRequest.<ResourceModel>builder().desiredResourceState(model).build(),
+                new CallbackContext(), MOCK_PROXY(proxy, simulator), logger);
+
+        assertThat(created.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        final String fleetId = created.getResourceModel().getCapacityReservationFleetId();
+        assertThat(simulator.fleetStates()).containsEntry(fleetId, CapacityReservationFleetState.ACTIVE);
+
+        final ProgressEvent<ResourceModel, CallbackContext> deleted = new DeleteHandler().handleRequest(proxy,
+                ResourceHandlerRequest.<ResourceModel>builder()
+                        .desiredResourceState(ResourceModel.builder().capacityReservationFleetId(fleetId).build())
+                        .build(),
+                new CallbackContext(), MOCK_PROXY(proxy, simulator), logger);
+
+        assertThat(deleted.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(simulator.fleetStates()).containsEntry(fleetId, CapacityReservationFleetState.CANCELLED);
+        assertThat(simulator.callCount(SimulatedEc2Client.CANCEL)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,103 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.proxy.Delay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StabilizationBackoffTest {
+
+    private static ResourceModel fleet(final int totalTargetCapacity, final int specifications) {
+        final HashSet<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>();
+        for (int i = 0; i < specifications; i++) {
+            instanceTypeSpecifications.add(InstanceTypeSpecification.builder().instanceType("m5.large").priority(i).build());
+        }
+        return ResourceModel.builder()
+                .totalTargetCapacity(totalTargetCapacity)
+                .instanceTypeSpecifications(instanceTypeSpecifications)
+                .build();
+    }
+
+    @Test
+    public void initialDelay_scalesWithCapacityAndSpecifications() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder().build();
+
+        final Duration small = backoff.initialDelay(fleet(1, 1));
+        final Duration large = backoff.initialDelay(fleet(25000, 50));
+
+        assertThat(small).isEqualTo(Duration.ofMillis(2100));
+        assertThat(large).isGreaterThan(small);
+        assertThat(large).isLessThanOrEqualTo(backoff.getMaxDelay());
+    }
+
+    @Test
+    public void initialDelay_withoutCapacityOrSpecifications() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder().build();
+
+        assertThat(backoff.initialDelay(ResourceModel.builder().capacityReservationFleetId("crf-1234").build()))
+                .isEqualTo(backoff.getBaseDelay());
+    }
+
+    @Test
+    public void delayFor_growsExponentiallyUpToCap_andCountsAttemptsInContext() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder()
+                .baseDelay(Duration.ofSeconds(1))
+                .delayPerSpecification(Duration.ZERO)
+                .multiplier(2)
+                .maxDelay(Duration.ofSeconds(5))
+                .jitter(0)
+                .build();
+        final CallbackContext context = new CallbackContext();
+        final Delay delay = backoff.delayFor(fleet(1, 1), context);
+
+        assertThat(delay.nextDelay(0)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(delay.nextDelay(1)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(delay.nextDelay(2)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(delay.nextDelay(3)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(context.getStabilizationAttempts()).isEqualTo(4);
+    }
+
+    @Test
+    public void delayFor_resumesFromAttemptInContext() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder()
+                .baseDelay(Duration.ofSeconds(1))
+                .delayPerSpecification(Duration.ZERO)
+                .multiplier(2)
+                .jitter(0)
+                .build();
+        final CallbackContext context = new CallbackContext();
+        context.setStabilizationAttempts(3);
+
+        // the framework restarts its own attempt count on every invocation
+        assertThat(backoff.delayFor(fleet(1, 1), context).nextDelay(0)).isEqualTo(Duration.ofSeconds(8));
+    }
+
+    @Test
+    public void delayFor_jitterStaysWithinBounds() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder()
+                .baseDelay(Duration.ofSeconds(10))
+                .delayPerSpecification(Duration.ZERO)
+                .multiplier(1)
+                .jitter(0.5)
+                .maxAttempts(Integer.MAX_VALUE)
+                .build();
+        final Delay delay = backoff.delayFor(fleet(1, 1), new CallbackContext());
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(delay.nextDelay(i)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        }
+    }
+
+    @Test
+    public void delayFor_returnsZeroWhenAttemptsExhausted() {
+        final StabilizationBackoff backoff = StabilizationBackoff.builder().maxAttempts(2).jitter(0).build();
+        final Delay delay = backoff.delayFor(fleet(1, 1), new CallbackContext());
+
+        assertThat(delay.nextDelay(0)).isGreaterThan(Duration.ZERO);
+        assertThat(delay.nextDelay(1)).isGreaterThan(Duration.ZERO);
+        assertThat(delay.nextDelay(2)).isEqualTo(Duration.ZERO);
+    }
+}
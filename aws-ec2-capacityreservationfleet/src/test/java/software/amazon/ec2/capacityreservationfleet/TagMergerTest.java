@@ -0,0 +1,110 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TagMergerTest {
+
+    private static final String FLEET = "capacity-reservation-fleet";
+
+    private static TagSpecification tagSpecification(final String resourceType, final Tag... tags) {
+        return TagSpecification.builder().resourceType(resourceType).tags(Arrays.asList(tags)).build();
+    }
+
+    private static Tag tag(final String key, final String value) {
+        return Tag.builder().key(key).value(value).build();
+    }
+
+    private static List<String> keyValues(final software.amazon.awssdk.services.ec2.model.TagSpecification tagSpecification) {
+        return tagSpecification.tags().stream().map(tag -> tag.key() + "=" + tag.value()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void merge_appliesSystemResourceStackPrecedence() {
+        final Map<String, String> systemTags = Collections.singletonMap("aws:cloudformation:stack-name", "stack");
+        final Map<String, String> stackTags = new LinkedHashMap<>();
+        stackTags.put("team", "stack-team");
+        stackTags.put("cost-center", "42");
+
+        final List<software.amazon.awssdk.services.ec2.model.TagSpecification> merged = TagMerger.merge(systemTags,
+                Arrays.asList(
+                        tagSpecification(FLEET, tag("team", "fleet-team"), tag("team", "fleet-team")),
+                        tagSpecification("ec2-instance", tag("team", "instance-team"))),
+                stackTags, FLEET);
+
+        assertThat(merged).hasSize(2);
+        assertThat(merged.get(0).resourceTypeAsString()).isEqualTo("ec2-instance");
+        assertThat(keyValues(merged.get(0))).containsExactly("team=instance-team");
+        assertThat(merged.get(1).resourceTypeAsString()).isEqualTo(FLEET);
+        assertThat(keyValues(merged.get(1)))
+                .containsExactly("aws:cloudformation:stack-name=stack", "team=fleet-team", "cost-center=42");
+    }
+
+    @Test
+    public void merge_withoutTags_returnsNoSpecifications() {
+        assertThat(TagMerger.merge(null, null, null, FLEET)).isEmpty();
+    }
+
+    @Test
+    public void merge_rejectsConflictingResourceTags() {
+        assertThatThrownBy(() -> TagMerger.merge(null,
+                Collections.singletonList(tagSpecification(FLEET, tag("team", "a"), tag("team", "b"))), null, FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining("team");
+    }
+
+    @Test
+    public void merge_rejectsReservedPrefixOutsideSystemTags() {
+        assertThatThrownBy(() -> TagMerger.merge(null,
+                Collections.singletonList(tagSpecification(FLEET, tag("AWS:owner", "me"))), null, FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining(TagMerger.RESERVED_PREFIX);
+        assertThatThrownBy(() -> TagMerger.merge(null, null, Collections.singletonMap("aws:owner", "me"), FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class);
+    }
+
+    @Test
+    public void merge_rejectsKeysAndValuesOverTheLimits() {
+        final String longKey = StringUtils.repeat('k', TagMerger.MAX_KEY_LENGTH + 1);
+        final String longValue = StringUtils.repeat('v', TagMerger.MAX_VALUE_LENGTH + 1);
+
+        assertThatThrownBy(() -> TagMerger.merge(null,
+                Collections.singletonList(tagSpecification(FLEET, tag(longKey, "v"))), null, FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class);
+        assertThatThrownBy(() -> TagMerger.merge(null,
+                Collections.singletonList(tagSpecification(FLEET, tag("", "v"))), null, FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class);
+        assertThatThrownBy(() -> TagMerger.merge(null, null, Collections.singletonMap("k", longValue), FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class);
+    }
+
+    @Test
+    public void merge_countsTagsWithoutSystemTags() {
+        final Map<String, String> systemTags = new LinkedHashMap<>();
+        systemTags.put("aws:cloudformation:logical-id", "Fleet");
+        systemTags.put("aws:cloudformation:stack-name", "stack");
+        final List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < TagMerger.MAX_TAGS; i++) {
+            tags.add(tag("key-" + i, "value-" + i));
+        }
+        final TagSpecification atLimit = TagSpecification.builder().resourceType(FLEET).tags(tags).build();
+
+        assertThat(TagMerger.merge(systemTags, Collections.singletonList(atLimit), Collections.singletonMap("key-0", "stack"), FLEET)
+                .get(0).tags()).hasSize(TagMerger.MAX_TAGS + 2);
+        assertThatThrownBy(() -> TagMerger.merge(systemTags, Collections.singletonList(atLimit), Collections.singletonMap("one-more", "v"), FLEET))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining(String.valueOf(TagMerger.MAX_TAGS));
+    }
+}
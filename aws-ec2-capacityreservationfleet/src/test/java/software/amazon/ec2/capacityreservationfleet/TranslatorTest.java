@@ -0,0 +1,141 @@
+package software.amazon.ec2.capacityreservationfleet;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections.CollectionUtils;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleet;
+import software.amazon.awssdk.services.ec2.model.CapacityReservationFleetState;
+import software.amazon.awssdk.services.ec2.model.FleetCapacityReservation;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TranslatorTest {
+
+    private static final String FLEET = "capacity-reservation-fleet";
+    private static final Instant END_DATE = Instant.parse("2030-01-01T00:00:00Z");
+
+    /**
+     * Translator.translateFromFleet before the allocation-lean rewrite, the reference the current mapping must match.
+     */
+    private static ResourceModel legacyTranslateFromFleet(final CapacityReservationFleet crFleet, final List<TagSpecification> desiredTagSpecifications) {
+        final List<Tag> tags = crFleet.tags().stream().map((tag) -> Tag.builder().key(tag.key()).value(tag.value()).build()).collect(Collectors.toList());
+        List<TagSpecification> tagSpecifications = null;
+
+        if (desiredTagSpecifications != null) {
+            tagSpecifications = desiredTagSpecifications;
+        } else if (!CollectionUtils.isEmpty(tags)) {
+            tagSpecifications = Arrays.asList(TagSpecification.builder().resourceType(FLEET).tags(tags).build());
+        }
+
+        final Set<InstanceTypeSpecification> instanceTypeSpecifications = new HashSet<>();
+        crFleet.instanceTypeSpecifications().forEach(specification -> instanceTypeSpecifications.add(InstanceTypeSpecification.builder()
+                .instanceType(specification.instanceTypeAsString())
+                .instancePlatform(specification.instancePlatformAsString())
+                .availabilityZone(specification.availabilityZone())
+                .availabilityZoneId(specification.availabilityZoneId())
+                .ebsOptimized(specification.ebsOptimized())
+                .priority(specification.priority())
+                .weight(specification.weight())
+                .build()));
+
+        return ResourceModel.builder()
+                .capacityReservationFleetId(crFleet.capacityReservationFleetId())
+                .allocationStrategy(crFleet.allocationStrategy())
+                .tenancy(crFleet.tenancyAsString())
+                .totalTargetCapacity(crFleet.totalTargetCapacity())
+                .instanceTypeSpecifications(instanceTypeSpecifications)
+                .tagSpecifications(CollectionUtils.isEmpty(tagSpecifications) ? null : tagSpecifications)
+                .instanceMatchCriteria(crFleet.instanceMatchCriteria().toString())
+                .endDate(crFleet.endDate() != null ? String.valueOf(crFleet.endDate()) : null)
+                .build();
+    }
+
+    private static CapacityReservationFleet fleet(final int specCount, final int tagCount, final Instant endDate) {
+        final List<FleetCapacityReservation> specifications = new ArrayList<>();
+        for (int i = 0; i < specCount; i++) {
+            specifications.add(FleetCapacityReservation.builder()
+                    .instanceType(i % 2 == 0 ? "m5.large" : "c5.xlarge")
+                    .instancePlatform("Linux/UNIX")
+                    .availabilityZone(i % 3 == 0 ? "us-east-1a" : null)
+                    .availabilityZoneId(i % 3 == 0 ? null : "use1-az" + (i % 6 + 1))
+                    .ebsOptimized(i % 2 == 0)
+                    .priority(i)
+                    .weight(1.0 + i)
+                    .build());
+        }
+        final List<software.amazon.awssdk.services.ec2.model.Tag> tags = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(software.amazon.awssdk.services.ec2.model.Tag.builder().key("key-" + i).value("value-" + i).build());
+        }
+
+        return CapacityReservationFleet.builder()
+                .capacityReservationFleetId("crf-1234")
+                .state(CapacityReservationFleetState.ACTIVE)
+                .allocationStrategy("prioritized")
+                .tenancy("default")
+                .instanceMatchCriteria("open")
+                .totalTargetCapacity(specCount * 10)
+                .totalFulfilledCapacity(specCount * 10.0)
+                .endDate(endDate)
+                .instanceTypeSpecifications(specifications)
+                .tags(tags)
+                .build();
+    }
+
+    private static List<TagSpecification> desiredTagSpecifications() {
+        return Collections.singletonList(TagSpecification.builder()
+                .resourceType(FLEET)
+                .tags(Collections.singletonList(Tag.builder().key("desired").value("true").build()))
+                .build());
+    }
+
+    @Test
+    public void translateFromFleet_matchesTheLegacyMapping() {
+        final List<List<TagSpecification>> desiredTagSpecifications = new ArrayList<>();
+        desiredTagSpecifications.add(null);
+        desiredTagSpecifications.add(Collections.emptyList());
+        desiredTagSpecifications.add(desiredTagSpecifications());
+
+        for (final int specCount : new int[] {0, 1, 50}) {
+            for (final int tagCount : new int[] {0, 1, 50}) {
+                for (final Instant endDate : Arrays.asList(null, END_DATE)) {
+                    for (final List<TagSpecification> desired : desiredTagSpecifications) {
+                        final CapacityReservationFleet crFleet = fleet(specCount, tagCount, endDate);
+
+                        assertThat(Translator.translateFromFleet(crFleet, desired))
+                                .as("specCount=%d tagCount=%d endDate=%s desired=%s", specCount, tagCount, endDate, desired)
+                                .isEqualTo(legacyTranslateFromFleet(crFleet, desired));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void translateFromFleet_fleetWithoutTags_mapsToNullTagSpecifications() {
+        final ResourceModel model = Translator.translateFromFleet(fleet(1, 0, null), null);
+
+        assertThat(model.getTagSpecifications()).isNull();
+        assertThat(model.getEndDate()).isNull();
+    }
+
+    @Test
+    public void translateFromFleet_mapsFleetTagsAndEndDate() {
+        final ResourceModel model = Translator.translateFromFleet(fleet(50, 2, END_DATE), null);
+
+        assertThat(model.getInstanceTypeSpecifications()).hasSize(50);
+        assertThat(model.getTagSpecifications()).containsExactly(TagSpecification.builder()
+                .resourceType(FLEET)
+                .tags(Arrays.asList(Tag.builder().key("key-0").value("value-0").build(), Tag.builder().key("key-1").value("value-1").build()))
+                .build());
+        assertThat(model.getEndDate()).isEqualTo(END_DATE.toString());
+    }
+}
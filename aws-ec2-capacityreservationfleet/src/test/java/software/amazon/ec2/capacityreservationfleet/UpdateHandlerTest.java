@@ -1,8 +1,10 @@
 package software.amazon.ec2.capacityreservationfleet;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.assertj.core.api.Assertions;
@@ -25,6 +27,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -32,6 +35,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -88,7 +93,8 @@ public class UpdateHandlerTest extends AbstractTestBase {
         final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
 
         verify(ec2Client, atLeastOnce()).modifyCapacityReservationFleet(any(ModifyCapacityReservationFleetRequest.class));
-        verify(ec2Client, atLeastOnce()).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        // existing-fleet check and one stabilization poll, the final read reuses the stabilization response
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
 
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
@@ -99,6 +105,105 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    private ResourceModel previousModel(final Integer totalTargetCapacity) {
+        return ResourceModel.builder()
+                .capacityReservationFleetId(crFleetId)
+                .instanceTypeSpecifications(model.getInstanceTypeSpecifications())
+                .totalTargetCapacity(totalTargetCapacity)
+                .allocationStrategy("prioritized")
+                .instanceMatchCriteria("open")
+                .build();
+    }
+
+    @Test
+    public void handleRequest_noMutableChange_readsWithoutModify() {
+        final UpdateHandler handler = new UpdateHandler();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousModel(1))
+                .desiredResourceState(model)
+                .build();
+
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenReturn(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId));
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        verify(ec2Client, never()).modifyCapacityReservationFleet(any(ModifyCapacityReservationFleetRequest.class));
+        verify(ec2Client, times(1)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel()).isEqualTo(request.getDesiredResourceState());
+    }
+
+    @Test
+    public void handleRequest_changedCapacity_sendsOnlyCapacity() {
+        final UpdateHandler handler = new UpdateHandler();
+        final ResourceModel previous = previousModel(1);
+        previous.setEndDate("2030-01-01T00:00:00Z");
+        model.setTotalTargetCapacity(2);
+        model.setEndDate("2030-01-01T00:00:00Z");
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previous)
+                .desiredResourceState(model)
+                .build();
+
+        when(ec2Client.modifyCapacityReservationFleet(any(ModifyCapacityReservationFleetRequest.class))).thenReturn(ModifyCapacityReservationFleetResponse.builder().returnValue(true).build());
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class))).thenReturn(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId));
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        final ArgumentCaptor<ModifyCapacityReservationFleetRequest> captor = ArgumentCaptor.forClass(ModifyCapacityReservationFleetRequest.class);
+        verify(ec2Client).modifyCapacityReservationFleet(captor.capture());
+        verify(ec2Client, times(2)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+
+        assertThat(captor.getValue().totalTargetCapacity()).isEqualTo(2);
+        assertThat(captor.getValue().endDate()).isNull();
+        assertThat(captor.getValue().removeEndDate()).isNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+    }
+
+    @Test
+    public void handleRequest_yieldsAfterStabilizationBudgetAndResumesWithoutExistCheck() throws IOException {
+        final UpdateHandler handler = new UpdateHandler();
+        model.setTotalTargetCapacity(2);
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousModel(1))
+                .desiredResourceState(model)
+                .build();
+
+        when(ec2Client.modifyCapacityReservationFleet(any(ModifyCapacityReservationFleetRequest.class))).thenReturn(ModifyCapacityReservationFleetResponse.builder().returnValue(true).build());
+        when(ec2Client.describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class)))
+                .thenReturn(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId))
+                .thenReturn(createDescribeResponse(CapacityReservationFleetState.MODIFYING, crFleetId))
+                .thenReturn(createDescribeResponse(CapacityReservationFleetState.ACTIVE, crFleetId));
+
+        final CallbackContext context = new CallbackContext();
+        context.setInvocationStartNanos(System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+        final ProgressEvent<ResourceModel, CallbackContext> yielded;
+        System.setProperty("crfleet.stabilization.budget.seconds", "1");
+        try {
+            yielded = handler.handleRequest(proxy, request, context, proxyClient, logger);
+        } finally {
+            System.clearProperty("crfleet.stabilization.budget.seconds");
+        }
+
+        assertThat(yielded.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(yielded.getCallbackDelaySeconds()).isPositive();
+        assertThat(yielded.getCallbackContext().getStabilizingCallGraph()).isEqualTo(BaseHandlerStd.CALL_GRAPH_PREFIX + "Update-update");
+        final int yieldedAttempts = yielded.getCallbackContext().getStabilizationAttempts();
+        assertThat(yieldedAttempts).isPositive();
+
+        final CallbackContext resumedContext = roundTrip(yielded.getCallbackContext());
+        assertThat(resumedContext.getStabilizationAttempts()).isEqualTo(yieldedAttempts);
+        assertThat(resumedContext.getStabilizingCallGraph()).isEqualTo(BaseHandlerStd.CALL_GRAPH_PREFIX + "Update-update");
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, resumedContext, proxyClient, logger);
+
+        // existing-fleet check and the first poll, then only the resumed poll: no second existing-fleet check
+        verify(ec2Client, times(1)).modifyCapacityReservationFleet(any(ModifyCapacityReservationFleetRequest.class));
+        verify(ec2Client, times(3)).describeCapacityReservationFleets(any(DescribeCapacityReservationFleetsRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackContext().getStabilizationAttempts()).isGreaterThanOrEqualTo(yieldedAttempts);
+        assertThat(response.getCallbackContext().getStabilizingCallGraph()).isNull();
+    }
+
     @Test
     public void handleRequest_handleError_WhenModifyThrowsException() {
         final UpdateHandler handler = new UpdateHandler();